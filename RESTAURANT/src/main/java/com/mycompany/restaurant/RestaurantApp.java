@@ -36,6 +36,7 @@ public class RestaurantApp extends Application {
 
         // Initialize Database
         com.mycompany.restaurant.utils.DatabaseHelper.initializeDatabase();
+        com.mycompany.restaurant.utils.OrderArchiver.startBackground();
 
         // Show login first
         Scene loginScene = createLoginScene();
@@ -49,6 +50,12 @@ public class RestaurantApp extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        // Release pooled database connections
+        com.mycompany.restaurant.utils.DatabaseHelper.shutdown();
+    }
+
     /**
      * Create beautiful professional login scene with two-column layout
      */
@@ -473,7 +480,7 @@ public class RestaurantApp extends Application {
                 break;
             case KITCHEN:
                 // Kitchen display
-                setCenterView(new KitchenView(this).getView());
+                setCenterView(KitchenView.create(this).getView());
                 break;
             case MENU:
                 // Menu management
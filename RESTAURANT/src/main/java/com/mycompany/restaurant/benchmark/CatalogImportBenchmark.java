@@ -0,0 +1,80 @@
+package com.mycompany.restaurant.benchmark;
+
+import com.mycompany.restaurant.models.MenuItem;
+import com.mycompany.restaurant.services.MenuService;
+import com.mycompany.restaurant.utils.CsvUtils;
+import com.mycompany.restaurant.utils.DatabaseHelper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * CatalogImportBenchmark - Compares adding menu items one at a time with
+ * the batched MenuService.importFrom path as the catalogue grows to 10,000
+ * items. Runs against a scratch database directory.
+ * Usage: CatalogImportBenchmark [maxSingleAdds]
+ */
+public class CatalogImportBenchmark {
+
+    private static final int[] SIZES = { 100, 1_000, 10_000 };
+
+    public static void main(String[] args) throws Exception {
+        // Per-row adds commit one transaction each, so cap them by default
+        int maxSingleAdds = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+
+        Path dir = Files.createTempDirectory("catalog-bench");
+        System.setProperty("restaurant.db.dir", dir.toString());
+        DatabaseHelper.initializeDatabase();
+        MenuService menuService = MenuService.getInstance();
+
+        System.out.printf("%-8s | %-26s | %-26s%n", "items", "add() one by one", "importFrom() batched");
+        int run = 0;
+        for (int size : SIZES) {
+            run++;
+            String single = "skipped";
+            if (size <= maxSingleAdds) {
+                long start = System.nanoTime();
+                for (int i = 0; i < size; i++) {
+                    menuService.add(item("single" + run, i));
+                }
+                single = format(size, System.nanoTime() - start);
+            }
+
+            Path csv = writeCatalog(dir.resolve("catalog-" + size + ".csv"), "bulk" + run, size);
+            long start = System.nanoTime();
+            int imported = menuService.importFrom(csv);
+            String bulk = format(imported, System.nanoTime() - start);
+
+            System.out.printf("%-8d | %-26s | %-26s%n", size, single, bulk);
+        }
+        System.out.println("Menu now holds " + menuService.getAllItems().size() + " items.");
+        DatabaseHelper.shutdown();
+    }
+
+    private static MenuItem item(String prefix, int i) {
+        return new MenuItem(0, prefix + " Item " + i, i % 2 == 0 ? "Pizza" : "Drinks", 100 + i % 900,
+                "Generated item, number " + i);
+    }
+
+    private static Path writeCatalog(Path file, String prefix, int size) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("name,category,price,description");
+            out.newLine();
+            for (int i = 0; i < size; i++) {
+                MenuItem item = item(prefix, i);
+                out.write(String.join(",", CsvUtils.escape(item.getName()), item.getCategory(),
+                        String.valueOf(item.getPrice()), CsvUtils.escape(item.getDescription())));
+                out.newLine();
+            }
+        }
+        return file;
+    }
+
+    private static String format(int rows, long nanos) {
+        double ms = nanos / 1_000_000.0;
+        return String.format("%9.1f ms %9.0f rows/s", ms, rows / (ms / 1000.0));
+    }
+}
@@ -0,0 +1,320 @@
+package com.mycompany.restaurant.benchmark;
+
+import com.mycompany.restaurant.models.Money;
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.OrderStatus;
+import com.mycompany.restaurant.services.OrderService;
+import com.mycompany.restaurant.utils.DatabaseHelper;
+import com.mycompany.restaurant.views.KitchenView;
+import com.mycompany.restaurant.views.components.KitchenTicket;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.TilePane;
+import javafx.stage.Stage;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KitchenRenderBenchmark - Layout and pulse times of the kitchen display as
+ * the number of open tickets grows.
+ *
+ * For each wall size the kitchen runs a mix of changes (new order, start,
+ * extra round, mark ready) with the wall kept at that size, then scrolls
+ * to random places. For each step it records the time the change takes on
+ * the FX thread and the CSS and layout part of the pulse that follows. The
+ * virtualized KitchenView is compared with a wall holding a ticket node for
+ * every order, as the view used to. Needs a display (or a headless JavaFX
+ * platform).
+ * Usage: KitchenRenderBenchmark [changes] [tickets ...]
+ */
+public class KitchenRenderBenchmark {
+
+    private static final String[] ITEMS = { "Zinger Burger", "Achari Chicken", "Fries", "Mint Margarita",
+            "Chicken Nuggets (10pcs)", "Coca Cola 500ml", "Pepperoni Feast" };
+
+    // Set by the pulse listeners on the FX thread
+    private static volatile long pulseStart;
+    private static volatile CompletableFuture<Long> nextPulse = new CompletableFuture<>();
+
+    public static void main(String[] args) throws Exception {
+        int changes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int[] sizes = args.length > 1
+                ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[] { 50, 500, 5000 };
+
+        System.setProperty("restaurant.db.dir", Files.createTempDirectory("kitchen-bench").toString());
+        System.setProperty("feed.enabled", "false");
+        DatabaseHelper.initializeDatabase();
+
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        Platform.startup(() -> started.complete(null));
+        started.get();
+
+        onFx(() -> {
+            OrderService service = OrderService.getInstance();
+            service.advanceAll(service.getActiveOrdersSnapshot(), OrderStatus.CANCELLED); // Drop the sample orders
+            return null;
+        });
+
+        System.out.printf("%-12s %8s %8s | %-20s | %-20s | %-20s%n", "wall", "tickets", "nodes",
+                "change p50 / p99 ms", "pulse p50 / p99 ms", "scroll p50 / p99 ms");
+        for (int size : sizes) {
+            run(size, changes, false);
+            run(size, changes, true);
+        }
+
+        onFx(() -> {
+            DatabaseHelper.shutdown();
+            return null;
+        });
+        Platform.exit();
+    }
+
+    /**
+     * One wall: fill it to size, then time changes and scrolls.
+     */
+    private static void run(int size, int changes, boolean full) throws Exception {
+        OrderService service = OrderService.getInstance();
+        Random random = new Random(size);
+
+        Wall wall = onFx(() -> {
+            while (service.getActiveOrdersSnapshot().size() < size) {
+                placeOrder(service, random);
+            }
+            Wall w = full ? new FullWall() : new GridWall();
+            Stage stage = new Stage();
+            Scene scene = new Scene(w.view(), 1280, 800);
+            scene.getStylesheets()
+                    .add(KitchenRenderBenchmark.class.getResource("/styles/application.css").toExternalForm());
+            scene.addPreLayoutPulseListener(() -> pulseStart = System.nanoTime());
+            scene.addPostLayoutPulseListener(() -> nextPulse.complete(System.nanoTime() - pulseStart));
+            stage.setScene(scene);
+            stage.show();
+            w.stage = stage;
+            w.sync();
+            return w;
+        });
+        step(() -> {
+        });
+
+        // Warm up, then measure
+        for (int i = 0; i < changes / 4; i++) {
+            step(() -> {
+                change(service, random, size);
+                wall.sync();
+            });
+        }
+        long[] changeTimes = new long[changes];
+        long[] pulseTimes = new long[changes];
+        for (int i = 0; i < changes; i++) {
+            long[] times = step(() -> {
+                change(service, random, size);
+                wall.sync();
+            });
+            changeTimes[i] = times[0];
+            pulseTimes[i] = times[1];
+        }
+        long[] scrollTimes = new long[changes];
+        for (int i = 0; i < changes; i++) {
+            double position = random.nextDouble();
+            scrollTimes[i] = step(() -> wall.scrollTo(position))[1];
+        }
+        int nodes = onFx(() -> countNodes(wall.view()));
+
+        onFx(() -> {
+            wall.stage.close();
+            wall.dispose();
+            service.advanceAll(service.getActiveOrdersSnapshot(), OrderStatus.CANCELLED);
+            return null;
+        });
+        System.out.printf("%-12s %8d %8d | %8.2f %8.2f    | %8.2f %8.2f    | %8.2f %8.2f%n",
+                full ? "every node" : "virtualized", size, nodes, p(changeTimes, 0.5), p(changeTimes, 0.99),
+                p(pulseTimes, 0.5), p(pulseTimes, 0.99), p(scrollTimes, 0.5), p(scrollTimes, 0.99));
+    }
+
+    /**
+     * Run the work on the FX thread and wait for the pulse it causes.
+     *
+     * @return the work's time and the CSS and layout time of the pulse, in ns
+     */
+    private static long[] step(Runnable work) throws Exception {
+        CompletableFuture<Long> pulse = new CompletableFuture<>();
+        long elapsed = onFx(() -> {
+            nextPulse = pulse;
+            long start = System.nanoTime();
+            work.run();
+            long taken = System.nanoTime() - start;
+            Platform.requestNextPulse();
+            return taken;
+        });
+        return new long[] { elapsed, pulse.get(10, TimeUnit.SECONDS) };
+    }
+
+    private static double p(long[] times, double percentile) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / 1e6;
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A kitchen-like change, keeping the number of open tickets at size.
+     */
+    private static void change(OrderService service, Random random, int size) {
+        List<Order> fresh = service.getOrdersSnapshot(OrderStatus.NEW);
+        List<Order> cooking = service.getOrdersSnapshot(OrderStatus.PREPARING);
+        int kind = random.nextInt(4);
+        if (kind == 0 && !fresh.isEmpty()) {
+            service.advanceAll(List.of(fresh.get(random.nextInt(fresh.size()))), OrderStatus.PREPARING);
+        } else if (kind == 1 && !cooking.isEmpty()) {
+            service.addLines(cooking.get(random.nextInt(cooking.size())), List.of(line(random)));
+        } else {
+            List<Order> open = new ArrayList<>(fresh);
+            open.addAll(cooking);
+            service.advanceAll(List.of(open.get(random.nextInt(open.size()))), OrderStatus.READY);
+            service.advanceAll(service.getOrdersSnapshot(OrderStatus.READY), OrderStatus.SERVED);
+        }
+        while (service.getActiveOrdersSnapshot().size() < size) {
+            placeOrder(service, random);
+        }
+    }
+
+    private static void placeOrder(OrderService service, Random random) {
+        List<OrderLine> lines = new ArrayList<>();
+        for (int i = 1 + random.nextInt(4); i > 0; i--) {
+            lines.add(line(random));
+        }
+        service.placeOrder("Table " + (1 + random.nextInt(40)), lines);
+    }
+
+    private static OrderLine line(Random random) {
+        return new OrderLine(ITEMS[random.nextInt(ITEMS.length)], "Kitchen", "", "None", Money.ofMajor(500));
+    }
+
+    private static <T> T onFx(java.util.concurrent.Callable<T> work) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get();
+    }
+
+    /**
+     * A ticket wall under test. Used on the FX thread.
+     */
+    private abstract static class Wall {
+        Stage stage;
+
+        abstract Parent view();
+
+        /**
+         * Catch up with the order queues, if the wall does not follow them itself.
+         */
+        void sync() {
+        }
+
+        abstract void scrollTo(double position);
+
+        void dispose() {
+        }
+    }
+
+    private static final class GridWall extends Wall {
+        final KitchenView kitchen = KitchenView.create(null);
+
+        @Override
+        Parent view() {
+            return kitchen.getView();
+        }
+
+        @Override
+        void scrollTo(double position) {
+            ListView<Integer> rows = kitchen.getGrid().getView();
+            rows.scrollTo((int) (position * rows.getItems().size()));
+        }
+
+        @Override
+        void dispose() {
+            kitchen.dispose();
+        }
+    }
+
+    /**
+     * Every open order's ticket in a TilePane, patched in place: new
+     * orders get a ticket, departed ones lose theirs, the rest refresh.
+     */
+    private static final class FullWall extends Wall {
+        final TilePane tiles = new TilePane();
+        final ScrollPane scroll = new ScrollPane(tiles);
+        final Map<Order, KitchenTicket> tickets = new IdentityHashMap<>();
+
+        FullWall() {
+            tiles.setPrefColumns(3);
+            tiles.setHgap(20);
+            tiles.setVgap(20);
+            scroll.setFitToWidth(true);
+        }
+
+        @Override
+        Parent view() {
+            return scroll;
+        }
+
+        @Override
+        void sync() {
+            OrderService service = OrderService.getInstance();
+            Map<Order, KitchenTicket> open = new IdentityHashMap<>();
+            for (OrderStatus status : new OrderStatus[] { OrderStatus.NEW, OrderStatus.PREPARING }) {
+                for (Order order : service.getOrders(status)) {
+                    KitchenTicket ticket = tickets.remove(order);
+                    if (ticket == null) {
+                        ticket = new KitchenTicket(o -> {
+                        }, o -> {
+                        });
+                        ticket.show(order);
+                        tiles.getChildren().add(ticket.getView());
+                    } else {
+                        ticket.refresh();
+                    }
+                    open.put(order, ticket);
+                }
+            }
+            for (KitchenTicket gone : tickets.values()) {
+                tiles.getChildren().remove(gone.getView());
+            }
+            tickets.clear();
+            tickets.putAll(open);
+        }
+
+        @Override
+        void scrollTo(double position) {
+            scroll.setVvalue(position);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.mycompany.restaurant.benchmark;
+
+import com.mycompany.restaurant.models.Money;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.Station;
+import com.mycompany.restaurant.services.KitchenScheduler;
+import com.mycompany.restaurant.utils.CsvUtils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * KitchenSchedulerSimulation - Replays a dinner rush through the kitchen
+ * under each scheduling policy and reports how long tickets take.
+ *
+ * The rush is a CSV of rounds (at_seconds,ticket,table,item,category, one
+ * row per line). Given a file that exists it is replayed; given one that
+ * does not, a rush is generated, recorded there and replayed; with no file
+ * the generated rush is only kept in memory. The kitchen is simulated on
+ * a virtual clock: each station works on as many lines as it has slots,
+ * each line takes its item's prep time, and a round's ticket time runs
+ * from its arrival until its last line is done. Everything is
+ * deterministic, so the policies see exactly the same rush.
+ * Usage: KitchenSchedulerSimulation [rush.csv]
+ */
+public class KitchenSchedulerSimulation {
+
+    // Item, category and prep seconds; a cut of the default menu
+    private static final Object[][] ITEMS = {
+            { "Chicken Fajita", "Pizza", 720 }, { "Pepperoni Feast", "Pizza", 780 },
+            { "Achari Chicken", "Pizza", 750 }, { "Veggie Lover", "Pizza", 660 },
+            { "Zinger Burger", "Burger", 420 }, { "Beef Smash", "Burger", 540 },
+            { "Chapli Burger", "Burger", 480 }, { "Chicken Tikka", "BBQ", 900 },
+            { "Seekh Kabab", "BBQ", 720 }, { "Malai Boti", "BBQ", 840 },
+            { "Regular Fries", "Sides", 240 }, { "Mayo Garlic Fries", "Sides", 300 },
+            { "Chicken Nuggets (6pcs)", "Sides", 360 }, { "Garlic Bread", "Sides", 420 },
+            { "Coca Cola 500ml", "Drinks", 30 }, { "Mint Margarita", "Drinks", 150 },
+            { "Fresh Lime", "Drinks", 120 }, { "Karak Chai", "Drinks", 240 } };
+
+    private static final Map<String, Long> PREP_MILLIS = new LinkedHashMap<>();
+
+    static {
+        for (Object[] item : ITEMS) {
+            PREP_MILLIS.put((String) item[0], ((Integer) item[2]) * 1000L);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Round> rush;
+        if (args.length > 0 && Files.exists(Path.of(args[0]))) {
+            rush = readRush(Path.of(args[0]));
+            System.out.println("Replaying " + args[0]);
+        } else {
+            rush = generateRush(new Random(42));
+            if (args.length > 0) {
+                writeRush(rush, Path.of(args[0]));
+                System.out.println("Recorded a generated rush to " + args[0]);
+            }
+        }
+        int lines = 0;
+        for (Round round : rush) {
+            lines += round.lines.size();
+        }
+        System.out.println(rush.size() + " rounds, " + lines + " lines over "
+                + rush.get(rush.size() - 1).at / 60_000 + " minutes");
+
+        System.out.printf("%-14s | %9s %9s %9s | %7s | %s%n", "policy", "mean min", "p95 min", "max min",
+                "late %", "last ready");
+        for (KitchenScheduler.Policy policy : KitchenScheduler.Policy.values()) {
+            long[] times = new long[rush.size()];
+            int late = 0;
+            long last = 0;
+            Result result = simulate(rush, policy);
+            for (int i = 0; i < rush.size(); i++) {
+                Round round = rush.get(i);
+                times[i] = result.readyAt[i] - round.at;
+                if (result.readyAt[i] > result.promisedAt[i]) {
+                    late++;
+                }
+                last = Math.max(last, result.readyAt[i]);
+            }
+            long[] sorted = times.clone();
+            Arrays.sort(sorted);
+            double mean = Arrays.stream(times).average().orElse(0);
+            System.out.printf("%-14s | %9.1f %9.1f %9.1f | %6.1f%% | %d min%n", policy, mean / 60_000,
+                    sorted[(int) (sorted.length * 0.95)] / 60_000.0, sorted[sorted.length - 1] / 60_000.0,
+                    late * 100.0 / rush.size(), last / 60_000);
+        }
+    }
+
+    /**
+     * Run the kitchen through the rush under one policy.
+     */
+    private static Result simulate(List<Round> rush, KitchenScheduler.Policy policy) {
+        KitchenScheduler scheduler = new KitchenScheduler(policy, line -> PREP_MILLIS.get(line.getItemName()));
+        Result result = new Result(rush.size());
+        int[] remaining = new int[rush.size()];
+        Map<KitchenScheduler.Job, Integer> roundOf = new IdentityHashMap<>();
+        Map<Station, Integer> free = new EnumMap<>(Station.class);
+        for (Station station : Station.values()) {
+            free.put(station, station.getSlots());
+        }
+
+        // Completions before arrivals at the same moment, then by sequence
+        PriorityQueue<long[]> events = new PriorityQueue<>((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                : a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(a[2], b[2]));
+        List<KitchenScheduler.Job> running = new ArrayList<>();
+        long seq = 0;
+        for (int i = 0; i < rush.size(); i++) {
+            events.add(new long[] { rush.get(i).at, 1, seq++, i });
+        }
+
+        while (!events.isEmpty()) {
+            long now = events.peek()[0];
+            while (!events.isEmpty() && events.peek()[0] == now) {
+                long[] event = events.poll();
+                int index = (int) event[3];
+                if (event[1] == 0) {
+                    KitchenScheduler.Job job = running.get(index);
+                    free.merge(job.getStation(), 1, Integer::sum);
+                    int round = roundOf.remove(job);
+                    if (--remaining[round] == 0) {
+                        result.readyAt[round] = now;
+                    }
+                } else {
+                    Round round = rush.get(index);
+                    long promised = scheduler.promise(round.lines, now);
+                    result.promisedAt[index] = promised;
+                    remaining[index] = round.lines.size();
+                    for (KitchenScheduler.Job job : scheduler.submit(round.ticket, round.lines, now, promised)) {
+                        roundOf.put(job, index);
+                    }
+                }
+            }
+            for (Station station : Station.values()) {
+                for (KitchenScheduler.Job job : scheduler.take(station, free.get(station))) {
+                    free.merge(station, -1, Integer::sum);
+                    running.add(job);
+                    events.add(new long[] { now + job.getPrepMillis(), 0, seq++, running.size() - 1 });
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A two-hour evening: a slow start, a peak in the middle hour and a
+     * tail, with some tables ordering another round later.
+     */
+    private static List<Round> generateRush(Random random) {
+        List<Round> rush = new ArrayList<>();
+        long ticket = 1;
+        for (int minute = 0; minute < 120; minute++) {
+            double rate = minute < 30 ? 0.5 : minute < 90 ? 1.2 : 0.4;
+            int arrivals = (int) rate + (random.nextDouble() < rate - (int) rate ? 1 : 0);
+            for (int a = 0; a < arrivals; a++) {
+                long at = minute * 60_000L + random.nextInt(60) * 1000L;
+                String table = "Table " + (1 + random.nextInt(40));
+                rush.add(new Round(at, ticket, table, randomLines(random, 1 + random.nextInt(4), false)));
+                if (random.nextDouble() < 0.15) {
+                    long later = at + (10 + random.nextInt(20)) * 60_000L;
+                    rush.add(new Round(later, ticket, table, randomLines(random, 1 + random.nextInt(2), true)));
+                }
+                ticket++;
+            }
+        }
+        rush.sort((a, b) -> Long.compare(a.at, b.at));
+        return rush;
+    }
+
+    private static List<OrderLine> randomLines(Random random, int count, boolean extras) {
+        List<OrderLine> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Extra rounds are mostly drinks and sides
+            Object[] item = extras
+                    ? ITEMS[10 + random.nextInt(ITEMS.length - 10)]
+                    : ITEMS[random.nextInt(ITEMS.length)];
+            lines.add(line((String) item[0], (String) item[1]));
+        }
+        return lines;
+    }
+
+    private static OrderLine line(String item, String category) {
+        return new OrderLine(item, category, "", "", Money.ZERO);
+    }
+
+    private static List<Round> readRush(Path file) throws IOException {
+        Map<String, Round> rounds = new LinkedHashMap<>();
+        int row = 1;
+        for (String[] fields : CsvUtils.readRows(file)) {
+            row++;
+            if (fields.length < 5) {
+                throw new IllegalArgumentException(
+                        file + " line " + row + ": expected at_seconds,ticket,table,item,category");
+            }
+            if (!PREP_MILLIS.containsKey(fields[3])) {
+                throw new IllegalArgumentException(file + " line " + row + ": no prep time for '" + fields[3] + "'");
+            }
+            long at = Long.parseLong(fields[0]) * 1000;
+            long ticket = Long.parseLong(fields[1]);
+            rounds.computeIfAbsent(at + "/" + ticket, k -> new Round(at, ticket, fields[2], new ArrayList<>()))
+                    .lines.add(line(fields[3], fields[4]));
+        }
+        List<Round> rush = new ArrayList<>(rounds.values());
+        rush.sort((a, b) -> Long.compare(a.at, b.at));
+        return rush;
+    }
+
+    private static void writeRush(List<Round> rush, Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("at_seconds,ticket,table,item,category");
+            for (Round round : rush) {
+                for (OrderLine line : round.lines) {
+                    out.println(round.at / 1000 + "," + round.ticket + "," + CsvUtils.escape(round.table) + ","
+                            + CsvUtils.escape(line.getItemName()) + "," + CsvUtils.escape(line.getCategory()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Lines a table ordered at one moment.
+     */
+    private static final class Round {
+        final long at;
+        final long ticket;
+        final String table;
+        final List<OrderLine> lines;
+
+        Round(long at, long ticket, String table, List<OrderLine> lines) {
+            this.at = at;
+            this.ticket = ticket;
+            this.table = table;
+            this.lines = lines;
+        }
+    }
+
+    private static final class Result {
+        final long[] readyAt;
+        final long[] promisedAt;
+
+        Result(int rounds) {
+            readyAt = new long[rounds];
+            promisedAt = new long[rounds];
+        }
+    }
+}
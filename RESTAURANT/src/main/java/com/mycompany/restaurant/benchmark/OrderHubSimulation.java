@@ -0,0 +1,162 @@
+package com.mycompany.restaurant.benchmark;
+
+import com.mycompany.restaurant.models.Money;
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.OrderStatus;
+import com.mycompany.restaurant.services.OrderService;
+import com.mycompany.restaurant.utils.DatabaseHelper;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OrderHubSimulation - Runs an order hub and several terminal processes on
+ * localhost and checks that every terminal sees every order.
+ *
+ * This process hosts the hub (hub.mode=server on a free port) and starts
+ * each terminal as a separate JVM in hub client mode. A terminal places its
+ * orders, waits until its replica shows every terminal's orders, serves its
+ * own and waits for the floor to clear. Placement round trips and the time
+ * for the last order to reach every replica are reported; the hub then
+ * checks its own state and the database.
+ * Usage: OrderHubSimulation [terminals] [ordersPerTerminal]
+ */
+public class OrderHubSimulation {
+
+    private static final long WAIT_MS = 60_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("terminal")) {
+            runTerminal(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        int terminals = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+
+        Path dir = Files.createTempDirectory("hub-sim");
+        System.setProperty("restaurant.db.dir", dir.toString());
+        System.setProperty("hub.mode", "server");
+        System.setProperty("hub.port", "0");
+        DatabaseHelper.initializeDatabase();
+        OrderService hub = OrderService.getInstance();
+        hub.advanceAll(hub.getActiveOrdersSnapshot(), OrderStatus.CANCELLED); // Drop the sample orders
+        int port = hub.getHubServer().getPort();
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<Process> processes = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < terminals; t++) {
+            ProcessBuilder builder = new ProcessBuilder(java,
+                    "-cp", System.getProperty("java.class.path"),
+                    "-Drestaurant.db.dir=" + dir,
+                    "-Dhub.mode=client", "-Dhub.port=" + port,
+                    "-Dhub.secret=" + System.getProperty("hub.secret", ""),
+                    OrderHubSimulation.class.getName(), "terminal", String.valueOf(t),
+                    String.valueOf(terminals), String.valueOf(orders));
+            builder.inheritIO();
+            processes.add(builder.start());
+        }
+
+        boolean ok = true;
+        for (Process process : processes) {
+            ok &= process.waitFor() == 0;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        hub.flushWrites(30_000);
+
+        int expected = terminals * orders;
+        int served = queryInt("SELECT COUNT(*) FROM order_headers WHERE status = 'SERVED'");
+        int open = hub.getActiveOrdersSnapshot().size();
+        System.out.printf("hub: %d terminals x %d orders in %.1f s, %d served in the database, %d still open%n",
+                terminals, orders, seconds, served, open);
+        ok &= served == expected && open == 0;
+
+        DatabaseHelper.shutdown();
+        System.out.println(ok ? "All terminals in step." : "Terminals out of step.");
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * One terminal process. Exits with status 1 if its replica never matches.
+     */
+    private static void runTerminal(int id, int terminals, int orders) throws Exception {
+        DatabaseHelper.initializeDatabase();
+        OrderService service = OrderService.getInstance();
+        if (!service.awaitHubSync(10_000)) {
+            throw new IllegalStateException("Terminal " + id + " could not reach the hub");
+        }
+
+        // Every order any terminal opened, as this replica heard of it
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        service.addListener(new OrderService.Listener() {
+            @Override
+            public void orderOpened(long ticket, Order order, List<OrderLine> lines, OrderStatus status) {
+                seen.add(ticket);
+            }
+
+            @Override
+            public void linesAdded(long ticket, List<OrderLine> lines) {
+            }
+
+            @Override
+            public void statusChanged(long ticket, OrderStatus status, Instant at) {
+            }
+        });
+
+        long[] roundTrips = new long[orders];
+        List<Order> mine = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            long start = System.nanoTime();
+            mine.add(service.placeOrder("Delivery", List.of(
+                    new OrderLine("Item " + i, "Sides", "", "Terminal " + id, Money.ofMajor(100 + i)))));
+            roundTrips[i] = System.nanoTime() - start;
+        }
+        long placed = System.nanoTime();
+
+        int everyone = terminals * orders;
+        boolean synced = waitFor(() -> seen.size() >= everyone);
+        double syncMs = (System.nanoTime() - placed) / 1e6;
+
+        service.advanceAll(mine, OrderStatus.READY);
+        service.advanceAll(mine, OrderStatus.SERVED);
+        // Everyone's orders are served by their own terminal
+        boolean cleared = waitFor(() -> service.getActiveOrdersSnapshot().isEmpty());
+
+        Arrays.sort(roundTrips);
+        System.out.printf("terminal %d: placed %d, place p50 %.2f ms p99 %.2f ms, saw all %d orders %.1f ms after its last%s%n",
+                id, orders, roundTrips[orders / 2] / 1e6, roundTrips[(int) (orders * 0.99)] / 1e6, everyone, syncMs,
+                synced && cleared ? "" : " - OUT OF STEP");
+        DatabaseHelper.shutdown();
+        System.exit(synced && cleared ? 0 : 1);
+    }
+
+    private static boolean waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private static int queryInt(String sql) throws Exception {
+        try (Connection conn = DatabaseHelper.getReadConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.mycompany.restaurant.benchmark;
+
+import com.mycompany.restaurant.utils.SchemaMigrator;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * OrderLookupBenchmark - Shows how the orders hot-path lookups scale with
+ * table size, with and without the indexes added by SchemaMigrator.
+ *
+ * Grows a scratch database step by step (default 10k, 100k, 1M, 2M served
+ * orders of one line each) and at each size times the kitchen's open orders
+ * (NEW and PREPARING headers with their lines), per-table and time-range
+ * queries.
+ * Usage: OrderLookupBenchmark [size ...]
+ */
+public class OrderLookupBenchmark {
+
+    private static final int ACTIVE_ORDERS = 40;
+    private static final int TABLES = 30;
+    private static final int REPETITIONS = 50;
+    // Same text layout SQLite uses for CURRENT_TIMESTAMP
+    private static final DateTimeFormatter SQL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0
+                ? new int[] { 10_000, 100_000, 1_000_000, 2_000_000 }
+                : parseSizes(args);
+
+        File dbFile = File.createTempFile("orders-bench", ".db");
+        dbFile.deleteOnExit();
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath())) {
+            SchemaMigrator.migrate(conn);
+
+            System.out.printf("%-10s | %-28s | %-28s | %-28s%n", "rows",
+                    "active orders (idx / scan)", "table lookup (idx / scan)", "last hour (idx / scan)");
+
+            int rows = 0;
+            for (int size : sizes) {
+                insertCompleted(conn, rows, size - rows);
+                rows = size;
+                resetActiveOrders(conn);
+
+                String active = compare(conn,
+                        "SELECT h.id, h.status, l.* FROM order_headers h JOIN orders l ON l.order_id = h.id "
+                                + "WHERE h.status IN ('NEW', 'PREPARING')",
+                        "SELECT h.id, h.status, l.* FROM order_headers h NOT INDEXED "
+                                + "JOIN orders l NOT INDEXED ON l.order_id = h.id "
+                                + "WHERE h.status IN ('NEW', 'PREPARING')");
+                String table = compare(conn,
+                        "SELECT * FROM order_headers WHERE table_name = 'Table 7' AND status IN ('NEW', 'PREPARING')",
+                        "SELECT * FROM order_headers NOT INDEXED "
+                                + "WHERE table_name = 'Table 7' AND status IN ('NEW', 'PREPARING')");
+                String since = lastHour().format(SQL_TIME);
+                String recent = compare(conn,
+                        "SELECT COUNT(*) FROM orders WHERE order_time >= '" + since + "'",
+                        "SELECT COUNT(*) FROM orders NOT INDEXED WHERE order_time >= '" + since + "'");
+
+                System.out.printf("%-10d | %-28s | %-28s | %-28s%n", rows, active, table, recent);
+            }
+        }
+    }
+
+    private static int[] parseSizes(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i].replace("_", ""));
+        }
+        return sizes;
+    }
+
+    private static LocalDateTime lastHour() {
+        return LocalDateTime.of(2030, 1, 1, 0, 0).minusHours(1);
+    }
+
+    /**
+     * Append served orders, spread back in time so only a handful fall in
+     * the last hour.
+     */
+    private static void insertCompleted(Connection conn, int offset, int count) throws SQLException {
+        LocalDateTime newest = LocalDateTime.of(2030, 1, 1, 0, 0);
+        conn.setAutoCommit(false);
+        try (PreparedStatement header = conn.prepareStatement(
+                "INSERT INTO order_headers(table_name, status, opened_at, closed_at) VALUES(?,'SERVED',?,?)",
+                Statement.RETURN_GENERATED_KEYS);
+                PreparedStatement line = conn.prepareStatement(
+                        "INSERT INTO orders(order_id, table_name, item_name, size, extras, total_price, total_minor, "
+                                + "status, order_time) VALUES(?,?,?,?,?,?,?,'COMPLETED',?)")) {
+            for (int i = 0; i < count; i++) {
+                int n = offset + i;
+                String table = "Table " + (n % TABLES + 1);
+                String time = newest.minusSeconds(n * 7L).format(SQL_TIME);
+                header.setString(1, table);
+                header.setString(2, time);
+                header.setString(3, time);
+                header.executeUpdate();
+                long orderId;
+                try (ResultSet keys = header.getGeneratedKeys()) {
+                    keys.next();
+                    orderId = keys.getLong(1);
+                }
+
+                line.setLong(1, orderId);
+                line.setString(2, table);
+                line.setString(3, "Item " + (n % 28));
+                line.setString(4, "");
+                line.setString(5, "None");
+                line.setString(6, "Rs. " + (100 + n % 1500));
+                line.setLong(7, (100 + n % 1500) * 100L);
+                line.setString(8, time);
+                line.addBatch();
+                if (i % 10_000 == 9_999) {
+                    line.executeBatch();
+                }
+            }
+            line.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Keep a constant working set of orders in the kitchen, half NEW and
+     * half PREPARING, regardless of history size.
+     */
+    private static void resetActiveOrders(Connection conn) throws SQLException {
+        String active = "SELECT id FROM order_headers WHERE status IN ('NEW', 'PREPARING')";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM order_events WHERE order_id IN (" + active + ")");
+            stmt.executeUpdate("DELETE FROM orders WHERE order_id IN (" + active + ")");
+            stmt.executeUpdate("DELETE FROM order_headers WHERE id IN (" + active + ")");
+        }
+        try (PreparedStatement header = conn.prepareStatement(
+                "INSERT INTO order_headers(table_name, status) VALUES(?, ?)", Statement.RETURN_GENERATED_KEYS);
+                PreparedStatement line = conn.prepareStatement(
+                        "INSERT INTO orders(order_id, table_name, item_name, total_price, total_minor, status) "
+                                + "VALUES(?, ?, 'Zinger Burger', 'Rs. 550', 55000, 'PENDING')")) {
+            for (int i = 0; i < ACTIVE_ORDERS; i++) {
+                String table = "Table " + (i % TABLES + 1);
+                header.setString(1, table);
+                header.setString(2, i % 2 == 0 ? "NEW" : "PREPARING");
+                header.executeUpdate();
+                try (ResultSet keys = header.getGeneratedKeys()) {
+                    keys.next();
+                    line.setLong(1, keys.getLong(1));
+                }
+                line.setString(2, table);
+                line.executeUpdate();
+            }
+        }
+    }
+
+    private static String compare(Connection conn, String indexed, String scan) throws SQLException {
+        return String.format("%8.3f / %8.3f ms", time(conn, indexed), time(conn, scan));
+    }
+
+    /**
+     * Average wall time in milliseconds of running the query and reading all rows.
+     */
+    private static double time(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            drain(pstmt); // warm-up
+            long start = System.nanoTime();
+            for (int i = 0; i < REPETITIONS; i++) {
+                drain(pstmt);
+            }
+            return (System.nanoTime() - start) / 1_000_000.0 / REPETITIONS;
+        }
+    }
+
+    private static void drain(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                rs.getObject(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.mycompany.restaurant.benchmark;
+
+import com.mycompany.restaurant.models.InventoryItem;
+import com.mycompany.restaurant.models.MenuItem;
+import com.mycompany.restaurant.models.Money;
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.OrderStatus;
+import com.mycompany.restaurant.services.InventoryService;
+import com.mycompany.restaurant.services.MenuService;
+import com.mycompany.restaurant.services.OrderService;
+import com.mycompany.restaurant.utils.DatabaseHelper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ServiceConcurrencyStress - Hammers the services from many threads at once,
+ * the way several terminals would, and checks that no update was lost.
+ *
+ * Each scenario starts all threads together, waits for them, then compares
+ * the in-memory state, the view-facing lists and the database against the
+ * expected totals. Runs against a scratch database directory and exits
+ * with status 1 if any check fails.
+ * Usage: ServiceConcurrencyStress [threads] [iterations]
+ */
+public class ServiceConcurrencyStress {
+
+    private static final int TABLES = 8;
+
+    private static final AtomicInteger failures = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        Path dir = Files.createTempDirectory("stress");
+        System.setProperty("restaurant.db.dir", dir.toString());
+        DatabaseHelper.initializeDatabase();
+        OrderService orders = OrderService.getInstance();
+
+        // Start from an empty floor
+        orders.advanceAll(orders.getActiveOrdersSnapshot(), OrderStatus.CANCELLED);
+
+        System.out.printf("%d threads x %d iterations%n", threads, iterations);
+        tableRounds(orders, threads, iterations);
+        racingTransitions(orders, threads);
+        stockAdjustments(InventoryService.getInstance(), threads, iterations);
+        menuAdds(MenuService.getInstance(), threads, iterations);
+
+        DatabaseHelper.shutdown();
+        System.out.println(failures.get() == 0 ? "All checks passed." : failures + " check(s) failed.");
+        System.exit(failures.get() == 0 ? 0 : 1);
+    }
+
+    /**
+     * Every thread adds single-line rounds to random tables. Each table must
+     * end with exactly one open order holding every line sent to it.
+     */
+    private static void tableRounds(OrderService orders, int threads, int iterations) throws Exception {
+        Set<String> tables = ConcurrentHashMap.newKeySet();
+        long elapsed = race(threads, t -> {
+            for (int i = 0; i < iterations; i++) {
+                String table = "Table " + (1 + (t * 31 + i) % TABLES);
+                tables.add(table);
+                orders.addToTable(table, List.of(new OrderLine("Item " + t, "Sides", "", "", Money.ofMajor(10))));
+            }
+        });
+        orders.flushWrites(30_000);
+
+        int expected = threads * iterations;
+        List<Order> open = orders.getActiveOrdersSnapshot();
+        int lines = 0;
+        for (Order order : open) {
+            lines += order.getItems().size();
+        }
+        check("table rounds: one open order per table", tables.size(), open.size());
+        check("table rounds: lines in memory", expected, lines);
+        check("table rounds: lines in view list", expected, sumLines(orders.getActiveOrders()));
+        check("table rounds: open headers in database", tables.size(), queryInt(
+                "SELECT COUNT(*) FROM order_headers WHERE status IN ('NEW', 'PREPARING', 'READY')"));
+        check("table rounds: lines in database", expected, queryInt(
+                "SELECT COUNT(*) FROM orders o JOIN order_headers h ON h.id = o.order_id "
+                        + "WHERE h.status IN ('NEW', 'PREPARING', 'READY')"));
+        report("table rounds", expected, elapsed);
+    }
+
+    /**
+     * Threads race to serve or cancel the same orders. Each order must be
+     * closed exactly once, with one terminal event that matches its header.
+     */
+    private static void racingTransitions(OrderService orders, int threads) throws Exception {
+        List<Order> open = orders.getActiveOrdersSnapshot();
+        AtomicInteger closed = new AtomicInteger();
+        long elapsed = race(threads, t -> {
+            if (t % 2 == 0) {
+                orders.advanceAll(open, OrderStatus.READY);
+                closed.addAndGet(orders.advanceAll(open, OrderStatus.SERVED));
+            } else {
+                closed.addAndGet(orders.advanceAll(open, OrderStatus.CANCELLED));
+            }
+        });
+        orders.flushWrites(30_000);
+
+        check("transitions: orders closed once", open.size(), closed.get());
+        check("transitions: open orders left", 0, orders.getActiveOrdersSnapshot().size());
+        check("transitions: view list empty", 0, orders.getActiveOrders().size());
+        StringBuilder ids = new StringBuilder("0");
+        for (Order order : open) {
+            ids.append(',').append(order.getOrderId());
+        }
+        check("transitions: terminal events for these orders", open.size(), queryInt(
+                "SELECT COUNT(*) FROM order_events WHERE to_status IN ('SERVED', 'CANCELLED') AND order_id IN ("
+                        + ids + ")"));
+        check("transitions: headers matching their last event", 0, queryInt(
+                "SELECT COUNT(*) FROM order_headers h WHERE h.status <> "
+                        + "(SELECT e.to_status FROM order_events e WHERE e.order_id = h.id ORDER BY e.id DESC LIMIT 1)"));
+        report("transitions", open.size(), elapsed);
+    }
+
+    /**
+     * Threads take one unit of the same stock item at a time. The final
+     * quantity must account for every take, and no two takes may see the
+     * same resulting quantity.
+     */
+    private static void stockAdjustments(InventoryService inventory, int threads, int iterations) throws Exception {
+        InventoryItem item = inventory.getInventorySnapshot().get(0);
+        double start = 1_000_000;
+        inventory.updateStock(item, start);
+
+        Set<Double> seen = ConcurrentHashMap.newKeySet();
+        long elapsed = race(threads, t -> {
+            for (int i = 0; i < iterations; i++) {
+                seen.add(inventory.adjustStock(item, -1));
+            }
+        });
+
+        int expected = threads * iterations;
+        check("stock: distinct results", expected, seen.size());
+        check("stock: final quantity", (int) start - expected, (int) item.getCurrentStock());
+        check("stock: stored quantity", (int) start - expected,
+                queryInt("SELECT CAST(quantity AS INTEGER) FROM inventory WHERE id = " + item.getItemId()));
+        report("stock", expected, elapsed);
+    }
+
+    /**
+     * Threads add menu items. The snapshot and the view list must both grow
+     * by exactly the number added.
+     */
+    private static void menuAdds(MenuService menu, int threads, int iterations) throws Exception {
+        int before = menu.getItemsSnapshot().size();
+        long elapsed = race(threads, t -> {
+            for (int i = 0; i < iterations; i++) {
+                menu.add(new MenuItem(0, "Stress " + t + "-" + i, "Sides", 100, ""));
+            }
+        });
+
+        int expected = before + threads * iterations;
+        check("menu: snapshot size", expected, menu.getItemsSnapshot().size());
+        check("menu: view list size", expected, menu.getAllItems().size());
+        check("menu: stored items", expected, queryInt("SELECT COUNT(*) FROM menu_items WHERE available = 1"));
+        report("menu", threads * iterations, elapsed);
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * Run the worker on every thread, released together.
+     *
+     * @return elapsed nanoseconds
+     */
+    private static long race(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> started = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    worker.run(id);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    failures.incrementAndGet();
+                }
+            }, "stress-" + t);
+            thread.start();
+            started.add(thread);
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread thread : started) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static int sumLines(List<Order> orders) {
+        int lines = 0;
+        for (Order order : orders) {
+            lines += order.getItems().size();
+        }
+        return lines;
+    }
+
+    private static int queryInt(String sql) throws Exception {
+        try (Connection conn = DatabaseHelper.getReadConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void check(String name, int expected, int actual) {
+        boolean ok = expected == actual;
+        if (!ok) {
+            failures.incrementAndGet();
+        }
+        System.out.printf("  %-48s expected %8d, got %8d  %s%n", name, expected, actual, ok ? "OK" : "LOST");
+    }
+
+    private static void report(String scenario, int operations, long nanos) {
+        double ms = nanos / 1_000_000.0;
+        System.out.printf("%-14s %8d ops in %9.1f ms%n", scenario, operations, ms);
+    }
+}
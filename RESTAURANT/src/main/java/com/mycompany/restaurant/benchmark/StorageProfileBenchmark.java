@@ -0,0 +1,94 @@
+package com.mycompany.restaurant.benchmark;
+
+import com.mycompany.restaurant.utils.SchemaMigrator;
+import com.mycompany.restaurant.utils.StorageProfile;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Random;
+
+/**
+ * StorageProfileBenchmark - Reports single-row insert throughput and read
+ * latency for each StorageProfile preset, each on its own scratch database.
+ * Inserts commit one at a time, the way OrderService writes when idle.
+ * Usage: StorageProfileBenchmark [inserts] [reads]
+ */
+public class StorageProfileBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int inserts = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int reads = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        System.out.printf("%-10s | %-12s | %-14s | %-14s%n", "profile", "inserts/s", "point read", "active scan");
+        for (StorageProfile profile : StorageProfile.presets()) {
+            File dbFile = File.createTempFile("profile-bench", ".db");
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath())) {
+                profile.apply(conn);
+                SchemaMigrator.migrate(conn);
+
+                double insertsPerSecond = insertOneByOne(conn, inserts);
+                double pointMicros = pointReads(conn, inserts, reads);
+                double scanMicros = activeScans(conn, Math.max(1, reads / 100));
+
+                System.out.printf("%-10s | %12.0f | %11.1f us | %11.1f us%n",
+                        profile.getName(), insertsPerSecond, pointMicros, scanMicros);
+            } finally {
+                dbFile.delete();
+                new File(dbFile.getPath() + "-wal").delete();
+                new File(dbFile.getPath() + "-shm").delete();
+            }
+        }
+    }
+
+    private static double insertOneByOne(Connection conn, int count) throws SQLException {
+        String sql = "INSERT INTO orders(table_name, item_name, size, extras, total_price, total_minor, status) "
+                + "VALUES(?, 'Zinger Burger', '', 'None', 'Rs. 550', 55000, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                pstmt.setString(1, "Table " + (i % 30 + 1));
+                pstmt.setString(2, i % 10 == 0 ? "PENDING" : "COMPLETED");
+                pstmt.executeUpdate();
+            }
+            return count / ((System.nanoTime() - start) / 1_000_000_000.0);
+        }
+    }
+
+    /**
+     * Average microseconds for a primary-key lookup.
+     */
+    private static double pointReads(Connection conn, int rows, int count) throws SQLException {
+        Random random = new Random(42);
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM orders WHERE id = ?")) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                pstmt.setLong(1, 1 + random.nextInt(rows));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                }
+            }
+            return (System.nanoTime() - start) / 1_000.0 / count;
+        }
+    }
+
+    /**
+     * Average microseconds to load the active orders, as OrderService does at startup.
+     */
+    private static double activeScans(Connection conn, int count) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM orders WHERE status = 'PENDING'")) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getString("table_name");
+                    }
+                }
+            }
+            return (System.nanoTime() - start) / 1_000.0 / count;
+        }
+    }
+}
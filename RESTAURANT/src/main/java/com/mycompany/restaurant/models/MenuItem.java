@@ -12,6 +12,7 @@ public class MenuItem {
     private final DoubleProperty price;
     private final StringProperty description;
     private final BooleanProperty available;
+    private int prepSeconds; // 0 when the item has no estimate of its own
 
     public MenuItem(int id, String name, String category, double price, String description) {
         this.id = new SimpleIntegerProperty(id);
@@ -72,6 +73,10 @@ public class MenuItem {
         return available.get();
     }
 
+    public int getPrepSeconds() {
+        return prepSeconds;
+    }
+
     // Setters
     public void setName(String value) {
         name.set(value);
@@ -93,6 +98,10 @@ public class MenuItem {
         available.set(value);
     }
 
+    public void setPrepSeconds(int value) {
+        prepSeconds = value;
+    }
+
     public String getPriceFormatted() {
         return String.format("Rs. %.0f", price.get());
     }
@@ -0,0 +1,122 @@
+package com.mycompany.restaurant.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money value type stored as whole minor units (paisa).
+ * Amounts are persisted as INTEGER so totals can be summed inside SQLite
+ * without any string parsing or floating point drift.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final String CURRENCY_PREFIX = "Rs. ";
+    private static final int MINOR_PER_MAJOR = 100;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money ofMajor(long rupees) {
+        return ofMinor(Math.multiplyExact(rupees, MINOR_PER_MAJOR));
+    }
+
+    public static Money ofMajor(double rupees) {
+        return ofMinor(Math.round(rupees * MINOR_PER_MAJOR));
+    }
+
+    /**
+     * Parse a display string such as "Rs. 1550", "Rs. 1,250/-" or "99.50".
+     * Used to backfill legacy TEXT prices; blank input is treated as zero.
+     */
+    public static Money parse(String text) {
+        if (text == null) {
+            return ZERO;
+        }
+        String s = text.trim();
+        if (s.startsWith("Rs")) {
+            // The abbreviation's own dot, as in "Rs. 50"; ".50" alone is a decimal
+            s = s.substring(2);
+            if (s.startsWith(".")) {
+                s = s.substring(1);
+            }
+        }
+        if (s.endsWith("/-")) {
+            s = s.substring(0, s.length() - 2);
+        }
+        s = s.replace(",", "").replace(" ", "");
+        if (s.isEmpty()) {
+            return ZERO;
+        }
+        try {
+            return ofMinor(new BigDecimal(s).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact());
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Not a money amount: " + text, e);
+        }
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public double toMajor() {
+        return minorUnits / (double) MINOR_PER_MAJOR;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long quantity) {
+        return ofMinor(Math.multiplyExact(minorUnits, quantity));
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    /**
+     * Display form used across the app, e.g. "Rs. 1550" or "Rs. 99.50".
+     */
+    public String format() {
+        long major = Math.abs(minorUnits) / MINOR_PER_MAJOR;
+        long minor = Math.abs(minorUnits) % MINOR_PER_MAJOR;
+        String sign = minorUnits < 0 ? "-" : "";
+        if (minor == 0) {
+            return CURRENCY_PREFIX + sign + major;
+        }
+        return String.format("%s%s%d.%02d", CURRENCY_PREFIX, sign, major, minor);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
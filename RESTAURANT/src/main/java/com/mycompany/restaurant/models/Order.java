@@ -6,44 +6,59 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 /**
- * Order model for restaurant orders
+ * Order model for restaurant orders: one order per table visit (a row in
+ * order_headers) holding the lines ordered during that visit
  */
 public class Order {
-    private final IntegerProperty orderId;
-    private final IntegerProperty tableNumber;
-    private final ObservableList<MenuItem> items;
-    private final DoubleProperty totalAmount;
-    private final StringProperty status; // NEW, PREPARING, READY, SERVED
+    private volatile long orderId; // order_headers.id, 0 until the INSERT has run
+    private volatile long journalSeq; // OrderJournal sequence of its ORDER record, 0 if not journaled
+    private final StringProperty tableName;
+    private final ObservableList<OrderLine> items;
+    private final ObjectProperty<Money> totalAmount;
+    private final ObjectProperty<OrderStatus> status;
+    private final ObjectProperty<LocalDateTime> statusChangedAt;
     private final ObjectProperty<LocalDateTime> orderTime;
     private final StringProperty specialInstructions;
+    // Stations its lines go to, replaced whenever the lines change
+    private volatile java.util.Set<Station> stations = java.util.Collections.emptySet();
 
-    public Order(int orderId, int tableNumber) {
-        this.orderId = new SimpleIntegerProperty(orderId);
-        this.tableNumber = new SimpleIntegerProperty(tableNumber);
+    public Order(String tableName) {
+        this(0, tableName, LocalDateTime.now());
+    }
+
+    public Order(long orderId, String tableName, LocalDateTime orderTime) {
+        this.orderId = orderId;
+        this.tableName = new SimpleStringProperty(tableName);
         this.items = FXCollections.observableArrayList();
-        this.totalAmount = new SimpleDoubleProperty(0.0);
-        this.status = new SimpleStringProperty("NEW");
-        this.orderTime = new SimpleObjectProperty<>(LocalDateTime.now());
+        this.totalAmount = new SimpleObjectProperty<>(Money.ZERO);
+        this.status = new SimpleObjectProperty<>(OrderStatus.NEW);
+        this.statusChangedAt = new SimpleObjectProperty<>(orderTime);
+        this.orderTime = new SimpleObjectProperty<>(orderTime);
         this.specialInstructions = new SimpleStringProperty("");
-    }
 
-    // Properties
-    public IntegerProperty orderIdProperty() {
-        return orderId;
+        // Invalidation listeners run before change listeners, and this one is
+        // first, so the stations are current when observers of items hear of it
+        items.addListener((javafx.beans.InvalidationListener) obs -> routeLines());
+        items.addListener((ListChangeListener<OrderLine>) c -> recalculateTotal());
     }
 
-    public IntegerProperty tableNumberProperty() {
-        return tableNumber;
+    // Properties
+    public StringProperty tableNameProperty() {
+        return tableName;
     }
 
-    public DoubleProperty totalAmountProperty() {
+    public ObjectProperty<Money> totalAmountProperty() {
         return totalAmount;
     }
 
-    public StringProperty statusProperty() {
+    public ObjectProperty<OrderStatus> statusProperty() {
         return status;
     }
 
+    public ObjectProperty<LocalDateTime> statusChangedAtProperty() {
+        return statusChangedAt;
+    }
+
     public ObjectProperty<LocalDateTime> orderTimeProperty() {
         return orderTime;
     }
@@ -53,26 +68,57 @@ public class Order {
     }
 
     // Getters
-    public int getOrderId() {
-        return orderId.get();
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public boolean hasOrderId() {
+        return orderId != 0;
+    }
+
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    public String getTableName() {
+        return tableName.get();
     }
 
+    /**
+     * Dine-in table number, or 0 for delivery.
+     */
     public int getTableNumber() {
-        return tableNumber.get();
+        return TableOccupancy.tableNumber(tableName.get());
     }
 
-    public ObservableList<MenuItem> getItems() {
+    public ObservableList<OrderLine> getItems() {
         return items;
     }
 
-    public double getTotalAmount() {
+    /**
+     * Whether any of its lines is made at the station. Constant time, so
+     * station screens can filter the queues cheaply.
+     */
+    public boolean goesTo(Station station) {
+        return stations.contains(station);
+    }
+
+    public java.util.Set<Station> getStations() {
+        return stations;
+    }
+
+    public Money getTotalAmount() {
         return totalAmount.get();
     }
 
-    public String getStatus() {
+    public OrderStatus getStatus() {
         return status.get();
     }
 
+    public LocalDateTime getStatusChangedAt() {
+        return statusChangedAt.get();
+    }
+
     public LocalDateTime getOrderTime() {
         return orderTime.get();
     }
@@ -82,8 +128,20 @@ public class Order {
     }
 
     // Setters
-    public void setStatus(String value) {
+    public void setOrderId(long value) {
+        orderId = value;
+    }
+
+    public void setJournalSeq(long value) {
+        journalSeq = value;
+    }
+
+    /**
+     * Set the state as loaded or as already validated by OrderService.
+     */
+    public void setStatus(OrderStatus value, LocalDateTime changedAt) {
         status.set(value);
+        statusChangedAt.set(changedAt);
     }
 
     public void setSpecialInstructions(String value) {
@@ -91,23 +149,49 @@ public class Order {
     }
 
     // Business methods
-    public void addItem(MenuItem item) {
+    public void addItem(OrderLine item) {
         items.add(item);
-        recalculateTotal();
     }
 
-    public void removeItem(MenuItem item) {
+    public void removeItem(OrderLine item) {
         items.remove(item);
-        recalculateTotal();
     }
 
     private void recalculateTotal() {
-        double total = items.stream().mapToDouble(MenuItem::getPrice).sum();
+        Money total = Money.ZERO;
+        for (OrderLine line : items) {
+            total = total.plus(line.getPrice());
+        }
         totalAmount.set(total);
     }
 
+    private void routeLines() {
+        java.util.Set<Station> routed = java.util.EnumSet.noneOf(Station.class);
+        for (OrderLine line : items) {
+            routed.add(line.getStation());
+        }
+        stations = java.util.Collections.unmodifiableSet(routed);
+    }
+
+    public boolean containsItem(String itemName) {
+        for (OrderLine line : items) {
+            if (line.getItemName().equals(itemName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public long getMinutesSinceOrder() {
-        return java.time.Duration.between(orderTime.get(), LocalDateTime.now()).toMinutes();
+        return getMinutesSinceOrder(LocalDateTime.now());
+    }
+
+    /**
+     * Whole minutes from the order to now, for callers ticking many orders
+     * against one clock (see TickService).
+     */
+    public long getMinutesSinceOrder(LocalDateTime now) {
+        return java.time.Duration.between(orderTime.get(), now).toMinutes();
     }
 
     public String getOrderTimeFormatted() {
@@ -116,6 +200,20 @@ public class Order {
     }
 
     public String getTotalFormatted() {
-        return String.format("Rs. %.0f", totalAmount.get());
+        return totalAmount.get().format();
+    }
+
+    /**
+     * One-line list of the items, e.g. "Zinger Burger, Large Chicken Fajita (Toppings)".
+     */
+    public String getItemSummary() {
+        StringBuilder text = new StringBuilder();
+        for (OrderLine line : items) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(line.getDescription());
+        }
+        return text.toString();
     }
 }
@@ -0,0 +1,83 @@
+package com.mycompany.restaurant.models;
+
+/**
+ * OrderLine - One item on an order (a row in the orders table)
+ */
+public class OrderLine {
+    private final String itemName;
+    private final String category;
+    private final String size;
+    private final String extras;
+    private final Money price;
+    private final Station station;
+    private volatile long journalSeq; // OrderJournal sequence of its LINE record, 0 if not journaled
+
+    public OrderLine(String itemName, String category, String size, String extras, Money price) {
+        this(itemName, category, size, extras, price, Station.forCategory(category));
+    }
+
+    /**
+     * A line routed to the station the menu assigns its item (see MenuService.getStation).
+     */
+    public OrderLine(String itemName, String category, String size, String extras, Money price,
+            Station station) {
+        this.itemName = itemName;
+        this.category = category == null ? "" : category;
+        this.size = size == null ? "" : size;
+        this.extras = extras == null ? "" : extras;
+        this.price = price;
+        this.station = station == null ? Station.forCategory(category) : station;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getSize() {
+        return size;
+    }
+
+    public String getExtras() {
+        return extras;
+    }
+
+    public Money getPrice() {
+        return price;
+    }
+
+    public Station getStation() {
+        return station;
+    }
+
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    public void setJournalSeq(long journalSeq) {
+        this.journalSeq = journalSeq;
+    }
+
+    /**
+     * Short kitchen/bill text, e.g. "Large Chicken Fajita (Toppings)".
+     */
+    public String getDescription() {
+        StringBuilder text = new StringBuilder();
+        if (!size.isEmpty()) {
+            text.append(size).append(' ');
+        }
+        text.append(itemName);
+        if (!extras.isEmpty() && !"None".equalsIgnoreCase(extras)) {
+            text.append(" (").append(extras).append(')');
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getDescription() + " " + price.format();
+    }
+}
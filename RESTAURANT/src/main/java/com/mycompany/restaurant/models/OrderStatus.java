@@ -0,0 +1,57 @@
+package com.mycompany.restaurant.models;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * OrderStatus - Lifecycle of an order and the transitions allowed between states.
+ *
+ * NEW -> PREPARING -> READY -> SERVED, with READY -> PREPARING when another
+ * round of items arrives, and CANCELLED from any state before READY.
+ */
+public enum OrderStatus {
+    NEW,
+    PREPARING,
+    READY,
+    SERVED,
+    CANCELLED;
+
+    private Set<OrderStatus> next;
+
+    static {
+        NEW.next = EnumSet.of(PREPARING, READY, CANCELLED);
+        PREPARING.next = EnumSet.of(READY, CANCELLED);
+        READY.next = EnumSet.of(SERVED, PREPARING);
+        SERVED.next = EnumSet.noneOf(OrderStatus.class);
+        CANCELLED.next = EnumSet.noneOf(OrderStatus.class);
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return next.contains(target);
+    }
+
+    /**
+     * Terminal states close the order; it leaves the active lists.
+     */
+    public boolean isTerminal() {
+        return next.isEmpty();
+    }
+
+    /**
+     * Line status stored in orders.status for orders in this state.
+     */
+    public String lineStatus() {
+        switch (this) {
+            case SERVED:
+                return "COMPLETED";
+            case CANCELLED:
+                return "CANCELLED";
+            default:
+                return "PENDING";
+        }
+    }
+
+    public String getDisplayName() {
+        return name().charAt(0) + name().substring(1).toLowerCase();
+    }
+}
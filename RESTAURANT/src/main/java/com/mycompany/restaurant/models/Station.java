@@ -0,0 +1,87 @@
+package com.mycompany.restaurant.models;
+
+/**
+ * Station - Where in the kitchen an order line is made.
+ *
+ * Each menu category is cooked at one station; MenuService keeps the
+ * station of every menu item, so lines are routed once, when created.
+ */
+public enum Station {
+    PIZZA_OVEN("Pizza Oven", 720, 8),
+    GRILL("Grill", 480, 8),
+    FRYER("Fryer", 300, 4),
+    BAR("Bar", 90, 2);
+
+    private final String displayName;
+    private final java.time.Duration defaultPrep;
+    private final int slots;
+
+    Station(String displayName, int prepSeconds, int slots) {
+        this.displayName = displayName;
+        this.defaultPrep = java.time.Duration.ofSeconds(prepSeconds);
+        this.slots = slots;
+    }
+
+    // Categories already reported as unknown, so each is logged once
+    private static final java.util.Set<String> unknownCategories = java.util.concurrent.ConcurrentHashMap.newKeySet();
+
+    /**
+     * Station cooking a menu category. Covers the default menu's categories
+     * and those MenuManagementView offers: the pizza tiers (Regular,
+     * Premium, Extreme) bake in the oven and pasta goes on the grill line's
+     * burners. Any other category goes to the fryer, reported once on
+     * System.err so a new category is noticed and added here.
+     */
+    public static Station forCategory(String category) {
+        String key = category == null ? "" : category.trim().toLowerCase();
+        switch (key) {
+            case "pizza":
+            case "pizzas":
+            case "regular":
+            case "premium":
+            case "extreme":
+                return PIZZA_OVEN;
+            case "burger":
+            case "burgers":
+            case "bbq":
+            case "pasta":
+                return GRILL;
+            case "sides":
+            case "side":
+                return FRYER;
+            case "drinks":
+            case "drink":
+                return BAR;
+            default:
+                if (unknownCategories.add(key)) {
+                    System.err.println("No kitchen station for menu category '" + category + "', sending it to the "
+                            + FRYER.displayName);
+                }
+                return FRYER;
+        }
+    }
+
+    /**
+     * Prep time of an item with no estimate of its own.
+     */
+    public java.time.Duration getDefaultPrep() {
+        return defaultPrep;
+    }
+
+    /**
+     * Items the station can have on at once (oven shelves, grill space,
+     * fryer baskets, bar staff).
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
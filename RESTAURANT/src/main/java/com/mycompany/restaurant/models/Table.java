@@ -121,8 +121,19 @@ public class Table {
     }
 
     public long getOccupiedMinutes() {
+        return getOccupiedMinutes(System.currentTimeMillis());
+    }
+
+    /**
+     * Minutes seated as of the given time, e.g. a TickService tick.
+     */
+    public long getOccupiedMinutes(java.time.LocalDateTime now) {
+        return getOccupiedMinutes(now.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private long getOccupiedMinutes(long nowMillis) {
         if (seatedTime.get() == 0)
             return 0;
-        return (System.currentTimeMillis() - seatedTime.get()) / 60000;
+        return (nowMillis - seatedTime.get()) / 60000;
     }
 }
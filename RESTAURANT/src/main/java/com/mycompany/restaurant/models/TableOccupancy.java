@@ -0,0 +1,86 @@
+package com.mycompany.restaurant.models;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * TableOccupancy - Observable bitset of dine-in tables with active orders,
+ * bit N set for "Table N". Listeners are told about each table that flips,
+ * so a view can patch its own state instead of rescanning every order.
+ */
+public class TableOccupancy {
+
+    public static final String TABLE_PREFIX = "Table ";
+
+    /**
+     * Notified once per table whose occupancy changed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void occupancyChanged(int tableNumber, boolean occupied);
+    }
+
+    private final BitSet occupied = new BitSet();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isOccupied(int tableNumber) {
+        return tableNumber > 0 && occupied.get(tableNumber);
+    }
+
+    /**
+     * Number of occupied tables numbered from 1 up to (excluding) the given one.
+     */
+    public int countOccupiedBelow(int tableNumber) {
+        return tableNumber <= 1 ? 0 : occupied.get(1, tableNumber).cardinality();
+    }
+
+    public int getOccupiedCount() {
+        return occupied.cardinality();
+    }
+
+    /**
+     * Copy of the current bits, safe to keep or modify.
+     */
+    public BitSet snapshot() {
+        return (BitSet) occupied.clone();
+    }
+
+    public void set(int tableNumber, boolean value) {
+        if (tableNumber <= 0 || occupied.get(tableNumber) == value) {
+            return;
+        }
+        occupied.set(tableNumber, value);
+        for (Listener listener : listeners) {
+            listener.occupancyChanged(tableNumber, value);
+        }
+    }
+
+    public void clear() {
+        for (int n = occupied.nextSetBit(0); n >= 0; n = occupied.nextSetBit(n + 1)) {
+            set(n, false);
+        }
+    }
+
+    /**
+     * Table number for a name like "Table 12", or 0 for anything else (e.g. "Delivery").
+     */
+    public static int tableNumber(String tableName) {
+        if (tableName == null || !tableName.startsWith(TABLE_PREFIX)) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(tableName.substring(TABLE_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
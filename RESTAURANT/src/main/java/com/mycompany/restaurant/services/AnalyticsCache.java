@@ -0,0 +1,85 @@
+package com.mycompany.restaurant.services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * AnalyticsCache - Results of the analytics queries, kept until the orders
+ * change.
+ *
+ * Each result is stored with the data version it was read at, and handed
+ * out again for as long as the version stays the same, so going back to
+ * the analytics screen between orders costs no queries at all. A query
+ * already running is joined rather than started again. Thread-safe.
+ */
+public class AnalyticsCache {
+
+    private static final class Entry {
+        final long version;
+        final CompletableFuture<Object> value = new CompletableFuture<>();
+
+        Entry(long version) {
+            this.version = version;
+        }
+    }
+
+    private final LongSupplier version;
+    private final Map<String, Entry> entries = new HashMap<>(); // Guarded by this
+
+    /**
+     * @param version goes up whenever the data behind the queries may have changed
+     */
+    public AnalyticsCache(LongSupplier version) {
+        this.version = version;
+    }
+
+    /**
+     * The result for the key if it has been read at the current version,
+     * otherwise null. Never runs a query.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T peek(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null || entry.version != version.getAsLong() || !entry.value.isDone()
+                || entry.value.isCompletedExceptionally()) {
+            return null;
+        }
+        return (T) entry.value.join();
+    }
+
+    /**
+     * The result for the key at the current version, running the query on
+     * this thread if nobody has yet. Blocks while the query runs.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> query) {
+        long current = version.getAsLong();
+        Entry entry;
+        boolean mine = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || entry.version != current) {
+                entry = new Entry(current);
+                entries.put(key, entry);
+                mine = true;
+            }
+        }
+        if (mine) {
+            try {
+                entry.value.complete(query.get());
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    entries.remove(key, entry);
+                }
+                entry.value.completeExceptionally(e);
+            }
+        }
+        return (T) entry.value.join();
+    }
+}
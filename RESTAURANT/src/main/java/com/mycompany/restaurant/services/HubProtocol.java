@@ -0,0 +1,189 @@
+package com.mycompany.restaurant.services;
+
+import com.mycompany.restaurant.models.Money;
+import com.mycompany.restaurant.models.OrderLine;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HubProtocol - Wire format between OrderHubServer and OrderHubClient.
+ *
+ * One message per line, fields separated by tabs; backslash, tab and
+ * newline inside a field are escaped. The first field is the message type.
+ * Lines are sent as a count followed by five fields each: item, category,
+ * size, extras and price in minor units.
+ *
+ * A connection opens with a handshake: the hub sends CHALLENGE with a
+ * random nonce and the terminal answers HELLO with proof(secret, nonce).
+ * A hub with a hub.secret drops terminals whose proof does not match; the
+ * secret itself never crosses the wire. Nothing is encrypted, so the hub
+ * still belongs on loopback or a trusted network.
+ *
+ * Commands that add lines carry a key the terminal makes up (unique to
+ * it) and reuses when it sends the command again after an unanswered
+ * attempt; the hub applies each key once and answers repeats with the
+ * first result. Moving orders needs no key, as a repeat moves nothing.
+ *
+ * Handshake:
+ *   hub: CHALLENGE nonce | client: HELLO proof
+ * Client to hub (req = request number echoed in the reply):
+ *   PLACE req key table lines... | TABLE req key table lines... | ADD req key ticket lines...
+ *   ADVANCE req status ticket... | BUMP req status item
+ * Hub to client:
+ *   OPENED ticket table openedAtMillis status lines... | LINES ticket lines...
+ *   STATUS ticket status atMillis | SYNCED | OK req value | ERROR req message
+ */
+final class HubProtocol {
+
+    static final String CHALLENGE = "CHALLENGE";
+    static final String HELLO = "HELLO";
+
+    static final String PLACE = "PLACE";
+    static final String TABLE = "TABLE";
+    static final String ADD = "ADD";
+    static final String ADVANCE = "ADVANCE";
+    static final String BUMP = "BUMP";
+
+    static final String OPENED = "OPENED";
+    static final String LINES = "LINES";
+    static final String STATUS = "STATUS";
+    static final String SYNCED = "SYNCED";
+    static final String OK = "OK";
+    static final String ERROR = "ERROR";
+
+    private static final int LINE_FIELDS = 5;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private HubProtocol() {
+    }
+
+    /**
+     * Builds one message; add() fields in order, then toString().
+     */
+    static final class Message {
+        private final StringBuilder text;
+
+        Message(String type) {
+            text = new StringBuilder(type);
+        }
+
+        Message add(Object field) {
+            text.append('\t');
+            String value = String.valueOf(field);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\':
+                        text.append("\\\\");
+                        break;
+                    case '\t':
+                        text.append("\\t");
+                        break;
+                    case '\n':
+                        text.append("\\n");
+                        break;
+                    case '\r':
+                        text.append("\\r");
+                        break;
+                    default:
+                        text.append(c);
+                }
+            }
+            return this;
+        }
+
+        Message addLines(List<OrderLine> lines) {
+            add(lines.size());
+            for (OrderLine line : lines) {
+                add(line.getItemName()).add(line.getCategory()).add(line.getSize()).add(line.getExtras())
+                        .add(line.getPrice().getMinorUnits());
+            }
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    static String newNonce() {
+        byte[] nonce = new byte[16];
+        RANDOM.nextBytes(nonce);
+        return HexFormat.of().formatHex(nonce);
+    }
+
+    /**
+     * HMAC-SHA256 of the nonce keyed with the shared secret, in hex; empty
+     * when no secret is configured.
+     */
+    static String proof(String secret, String nonce) {
+        if (secret.isEmpty()) {
+            return "";
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(nonce.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Whether a terminal's HELLO proves it knows the secret. Always true
+     * when no secret is configured.
+     */
+    static boolean verify(String secret, String nonce, String proof) {
+        if (secret.isEmpty()) {
+            return true;
+        }
+        return MessageDigest.isEqual(proof(secret, nonce).getBytes(StandardCharsets.UTF_8),
+                proof.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decode(String message) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '\t') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\' && i + 1 < message.length()) {
+                char next = message.charAt(++i);
+                field.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Lines written by Message.addLines, starting at the count field.
+     *
+     * @throws IllegalArgumentException if the fields are cut short or malformed
+     */
+    static List<OrderLine> readLines(String[] fields, int countIndex) {
+        int count = Integer.parseInt(fields[countIndex]);
+        if (count < 0 || fields.length < countIndex + 1 + count * LINE_FIELDS) {
+            throw new IllegalArgumentException("expected " + count + " lines");
+        }
+        List<OrderLine> lines = new ArrayList<>(count);
+        for (int i = 0, at = countIndex + 1; i < count; i++, at += LINE_FIELDS) {
+            lines.add(new OrderLine(fields[at], fields[at + 1], fields[at + 2], fields[at + 3],
+                    Money.ofMinor(Long.parseLong(fields[at + 4]))));
+        }
+        return lines;
+    }
+}
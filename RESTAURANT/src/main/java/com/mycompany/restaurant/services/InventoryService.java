@@ -2,64 +2,81 @@ package com.mycompany.restaurant.services;
 
 import com.mycompany.restaurant.models.InventoryItem;
 import com.mycompany.restaurant.utils.DatabaseHelper;
+import com.mycompany.restaurant.utils.FxThread;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+/**
+ * InventoryService - Stock items and quantities
+ *
+ * Safe to call from any thread: writers are serialized and stock changes
+ * are applied in SQL, so concurrent adjustments never overwrite each other.
+ * The observable list and item properties for views are updated on the FX
+ * thread.
+ */
 public class InventoryService {
 
-    private static InventoryService instance;
+    private static class Holder {
+        static final InventoryService INSTANCE = new InventoryService();
+    }
+
+    private static final double DEFAULT_MIN_STOCK = 10.0; // Matches the inventory.min_stock column default
+
+    // Replaced, never modified, under the instance lock
+    private volatile java.util.List<InventoryItem> snapshot = java.util.List.of();
     private final ObservableList<InventoryItem> inventory;
 
     private InventoryService() {
         inventory = FXCollections.observableArrayList();
         loadFromDatabase();
-        if (inventory.isEmpty()) {
+        if (snapshot.isEmpty()) {
             initializeDefaultData();
         }
     }
 
     private void initializeDefaultData() {
+        java.util.List<InventoryItem> defaults = new java.util.ArrayList<>();
+
         // Raw Materials
-        addItem("Burger Buns", 100, "pcs");
-        addItem("Pizza Dough", 50, "pcs");
-        addItem("Chicken Meat", 20, "kg");
-        addItem("Beef Mince", 15, "kg");
-        addItem("Mozzarella Cheese", 10, "kg");
-        addItem("Cheddar Cheese", 5, "kg");
-        addItem("Cooking Oil", 30, "liters");
-        addItem("Frozen Fries", 50, "kg");
-        addItem("Nuggets", 10, "kg");
+        defaults.add(new InventoryItem(0, "Burger Buns", 100, "pcs", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Pizza Dough", 50, "pcs", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Chicken Meat", 20, "kg", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Beef Mince", 15, "kg", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Mozzarella Cheese", 10, "kg", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Cheddar Cheese", 5, "kg", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Cooking Oil", 30, "liters", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Frozen Fries", 50, "kg", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Nuggets", 10, "kg", DEFAULT_MIN_STOCK));
 
         // Drinks Stock
-        addItem("Coke Bottles (500ml)", 100, "units");
-        addItem("Sprite Bottles (500ml)", 100, "units");
-        addItem("Fanta Bottles (500ml)", 50, "units");
-        addItem("Water Bottles", 200, "units");
+        defaults.add(new InventoryItem(0, "Coke Bottles (500ml)", 100, "units", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Sprite Bottles (500ml)", 100, "units", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Fanta Bottles (500ml)", 50, "units", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Water Bottles", 200, "units", DEFAULT_MIN_STOCK));
 
         // Fresh
-        addItem("Onions", 10, "kg");
-        addItem("Tomatoes", 10, "kg");
-        addItem("Lettuce", 5, "kg");
-        addItem("Sauces (Mayo/Ketchup)", 20, "liters");
+        defaults.add(new InventoryItem(0, "Onions", 10, "kg", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Tomatoes", 10, "kg", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Lettuce", 5, "kg", DEFAULT_MIN_STOCK));
+        defaults.add(new InventoryItem(0, "Sauces (Mayo/Ketchup)", 20, "liters", DEFAULT_MIN_STOCK));
+
+        addAll(defaults);
     }
 
     public static InventoryService getInstance() {
-        if (instance == null) {
-            instance = new InventoryService();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
-    private void loadFromDatabase() {
-        inventory.clear();
+    private synchronized void loadFromDatabase() {
+        java.util.List<InventoryItem> loaded = new java.util.ArrayList<>();
         String query = "SELECT * FROM inventory";
 
-        try (java.sql.Connection conn = DatabaseHelper.connect();
-                java.sql.Statement stmt = conn.createStatement();
-                java.sql.ResultSet rs = stmt.executeQuery(query)) {
+        try (java.sql.Connection conn = DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(query);
+                java.sql.ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                inventory.add(new InventoryItem(
+                loaded.add(new InventoryItem(
                         rs.getInt("id"),
                         rs.getString("name"),
                         rs.getDouble("quantity"),
@@ -69,43 +86,158 @@ public class InventoryService {
         } catch (Exception e) {
             e.printStackTrace();
         }
+        snapshot = java.util.List.copyOf(loaded);
+        FxThread.run(() -> inventory.setAll(loaded)); // Single change event for listeners
     }
 
-    public void addItem(String name, double qty, String unit) {
+    public synchronized void addItem(String name, double qty, String unit) {
         String sql = "INSERT INTO inventory(name, quantity, unit) VALUES(?,?,?)";
 
-        try (java.sql.Connection conn = DatabaseHelper.connect();
-                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (java.sql.Connection conn = DatabaseHelper.getWriteConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql,
+                        java.sql.Statement.RETURN_GENERATED_KEYS)) {
 
             pstmt.setString(1, name);
             pstmt.setDouble(2, qty);
             pstmt.setString(3, unit);
             pstmt.executeUpdate();
-            loadFromDatabase(); // Reload to get ID
+
+            // Append with the generated id instead of reloading the whole table
+            try (java.sql.ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    InventoryItem added = new InventoryItem(keys.getInt(1), name, qty, unit, DEFAULT_MIN_STOCK);
+                    java.util.List<InventoryItem> next = new java.util.ArrayList<>(snapshot);
+                    next.add(added);
+                    snapshot = java.util.Collections.unmodifiableList(next);
+                    FxThread.run(() -> inventory.add(added));
+                }
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    public void updateStock(InventoryItem item, double newQty) {
+    /**
+     * Insert many items in one transaction using JDBC batching, then
+     * refresh the in-memory list once.
+     *
+     * @return number of items inserted
+     */
+    public synchronized int addAll(java.util.Collection<InventoryItem> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO inventory(name, quantity, unit, min_stock) VALUES(?,?,?,?)";
+
+        try (java.sql.Connection conn = DatabaseHelper.getWriteConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+            try {
+                for (InventoryItem item : items) {
+                    pstmt.setString(1, item.getItemName());
+                    pstmt.setDouble(2, item.getCurrentStock());
+                    pstmt.setString(3, item.getUnit());
+                    pstmt.setDouble(4, item.getMinStock());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (java.sql.SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 0;
+        }
+
+        loadFromDatabase(); // Reload once to get IDs
+        return items.size();
+    }
+
+    /**
+     * Import stock items from a CSV file with the header
+     * name,quantity,unit[,min_stock].
+     *
+     * @return number of items imported
+     */
+    public int importFrom(java.nio.file.Path csvFile) throws java.io.IOException {
+        java.util.List<InventoryItem> items = new java.util.ArrayList<>();
+        int line = 1;
+        for (String[] row : com.mycompany.restaurant.utils.CsvUtils.readRows(csvFile)) {
+            line++;
+            if (row.length < 3) {
+                throw new IllegalArgumentException(csvFile + " line " + line + ": expected name,quantity,unit");
+            }
+            try {
+                double minStock = row.length > 3 && !row[3].isEmpty() ? Double.parseDouble(row[3]) : DEFAULT_MIN_STOCK;
+                items.add(new InventoryItem(0, row[0], Double.parseDouble(row[1]), row[2], minStock));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(csvFile + " line " + line + ": invalid number");
+            }
+        }
+        return addAll(items);
+    }
+
+    public synchronized void updateStock(InventoryItem item, double newQty) {
         String sql = "UPDATE inventory SET quantity = ? WHERE id = ?";
 
-        try (java.sql.Connection conn = DatabaseHelper.connect();
+        try (java.sql.Connection conn = DatabaseHelper.getWriteConnection();
                 java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setDouble(1, newQty);
             pstmt.setInt(2, item.getItemId());
             pstmt.executeUpdate();
 
-            item.setCurrentStock(newQty); // Update memory
+            FxThread.run(() -> item.setCurrentStock(newQty)); // Update memory
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Add (or with a negative delta, take) stock. The change is applied to
+     * the stored quantity, so two terminals adjusting the same item both count.
+     *
+     * @return the new quantity, or NaN if the update failed
+     */
+    public synchronized double adjustStock(InventoryItem item, double delta) {
+        String sql = "UPDATE inventory SET quantity = quantity + ? WHERE id = ? RETURNING quantity";
+
+        try (java.sql.Connection conn = DatabaseHelper.getWriteConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setDouble(1, delta);
+            pstmt.setInt(2, item.getItemId());
+            try (java.sql.ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    double quantity = rs.getDouble(1);
+                    FxThread.run(() -> item.setCurrentStock(quantity));
+                    return quantity;
+                }
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * The stock list for the FX thread; use getInventorySnapshot() elsewhere.
+     */
     public ObservableList<InventoryItem> getInventory() {
         return inventory;
     }
+
+    /**
+     * The current stock items as an immutable list, for any thread.
+     */
+    public java.util.List<InventoryItem> getInventorySnapshot() {
+        return snapshot;
+    }
 }
@@ -0,0 +1,248 @@
+package com.mycompany.restaurant.services;
+
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.Station;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ToLongFunction;
+
+/**
+ * KitchenScheduler - Decides what each kitchen station makes next.
+ *
+ * Order lines are queued at the station that makes them, in the order the
+ * policy gives, and taken a station's free slots at a time. With BATCHED,
+ * taking a line also takes the rest of that ticket's lines queued at the
+ * same station, so a table's pizzas go in the oven together; those that do
+ * not fit are next in line for the station.
+ *
+ * Times are milliseconds on whatever clock the caller keeps, so a
+ * simulation can drive it as well as a live kitchen. Thread-safe.
+ *
+ * OrderService keeps one under kitchen.policy, fed every round as it
+ * arrives and cleared of a ticket once it is ready or closed; the kitchen
+ * screens show tickets in its order (see OrderService.kitchenOrder).
+ */
+public final class KitchenScheduler {
+
+    // Promised time is the longest prep in the round plus this
+    private static final long PROMISE_SLACK_MS = 10 * 60_000;
+
+    public enum Policy {
+        /** Lines in the order they arrived, as the ticket wall shows them. */
+        FIFO,
+        /** Earliest promised time first. */
+        PROMISED_TIME,
+        /** Latest start time first: promised time less prep time. */
+        LATEST_START,
+        /** LATEST_START, firing a ticket's lines at a station together. */
+        BATCHED
+    }
+
+    /**
+     * One order line waiting for, or taken by, its station.
+     */
+    public static final class Job {
+        private final long ticket;
+        private final OrderLine line;
+        private final Station station;
+        private final long arrivedAt;
+        private final long promisedAt;
+        private final long prepMillis;
+        private final long seq;
+
+        Job(long ticket, OrderLine line, long arrivedAt, long promisedAt, long prepMillis, long seq) {
+            this.ticket = ticket;
+            this.line = line;
+            this.station = line.getStation();
+            this.arrivedAt = arrivedAt;
+            this.promisedAt = promisedAt;
+            this.prepMillis = prepMillis;
+            this.seq = seq;
+        }
+
+        public long getTicket() {
+            return ticket;
+        }
+
+        public OrderLine getLine() {
+            return line;
+        }
+
+        public Station getStation() {
+            return station;
+        }
+
+        public long getArrivedAt() {
+            return arrivedAt;
+        }
+
+        public long getPromisedAt() {
+            return promisedAt;
+        }
+
+        public long getPrepMillis() {
+            return prepMillis;
+        }
+
+        long getLatestStart() {
+            return promisedAt - prepMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "ticket " + ticket + " " + line.getItemName() + " @" + station;
+        }
+    }
+
+    private final Policy policy;
+    private final ToLongFunction<OrderLine> prepMillis;
+    private final Map<Station, TreeSet<Job>> queues = new EnumMap<>(Station.class);
+    // Lines of a batch the station started but had no room for; taken first
+    private final Map<Station, Deque<Job>> carried = new EnumMap<>(Station.class);
+    // Queued jobs of each ticket, for batching and cancelling
+    private final Map<Long, List<Job>> ticketJobs = new HashMap<>();
+    private long nextSeq;
+
+    /**
+     * @param prepMillis expected time to make a line
+     */
+    public KitchenScheduler(Policy policy, ToLongFunction<OrderLine> prepMillis) {
+        this.policy = policy;
+        this.prepMillis = prepMillis;
+        // Ties go to the line queued first, which also makes the order total
+        Comparator<Job> total = Comparator.comparingLong(this::priorityOf).thenComparingLong(job -> job.seq);
+        for (Station station : Station.values()) {
+            queues.put(station, new TreeSet<>(total));
+            carried.put(station, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * What the policy orders a station's queue by, lowest first: arrival,
+     * promised or latest start time.
+     */
+    public long priorityOf(Job job) {
+        switch (policy) {
+            case PROMISED_TIME:
+                return job.getPromisedAt();
+            case LATEST_START:
+            case BATCHED:
+                return job.getLatestStart();
+            default:
+                return job.getArrivedAt();
+        }
+    }
+
+    /**
+     * A scheduler using the menu's prep estimates.
+     */
+    public static KitchenScheduler forMenu(Policy policy) {
+        MenuService menu = MenuService.getInstance();
+        return new KitchenScheduler(policy, line -> menu.getPrepTime(line).toMillis());
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Time a round arriving now should be ready by.
+     */
+    public long promise(List<OrderLine> lines, long now) {
+        long longest = 0;
+        for (OrderLine line : lines) {
+            longest = Math.max(longest, prepMillis.applyAsLong(line));
+        }
+        return now + longest + PROMISE_SLACK_MS;
+    }
+
+    /**
+     * Queue a round of lines for a ticket at their stations.
+     *
+     * @return the queued jobs
+     */
+    public synchronized List<Job> submit(long ticket, List<OrderLine> lines, long now, long promisedAt) {
+        List<Job> jobs = new ArrayList<>(lines.size());
+        List<Job> queued = ticketJobs.computeIfAbsent(ticket, t -> new ArrayList<>());
+        for (OrderLine line : lines) {
+            Job job = new Job(ticket, line, now, promisedAt, prepMillis.applyAsLong(line), nextSeq++);
+            queues.get(job.station).add(job);
+            queued.add(job);
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * Take up to slots jobs for the station to start now.
+     */
+    public synchronized List<Job> take(Station station, int slots) {
+        TreeSet<Job> queue = queues.get(station);
+        Deque<Job> held = carried.get(station);
+        List<Job> taken = new ArrayList<>();
+        while (taken.size() < slots && !(held.isEmpty() && queue.isEmpty())) {
+            Job head = held.isEmpty() ? queue.pollFirst() : held.pollFirst();
+            taken.add(head);
+            List<Job> queued = ticketJobs.get(head.ticket);
+            queued.remove(head);
+            if (policy == Policy.BATCHED) {
+                for (Iterator<Job> it = queued.iterator(); it.hasNext();) {
+                    Job mate = it.next();
+                    if (mate.station != station || !queue.remove(mate)) {
+                        continue;
+                    }
+                    if (taken.size() < slots) {
+                        taken.add(mate);
+                        it.remove();
+                    } else {
+                        held.addLast(mate);
+                    }
+                }
+            }
+            if (queued.isEmpty()) {
+                ticketJobs.remove(head.ticket);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Drop a ticket's queued jobs, e.g. when the order is cancelled.
+     *
+     * @return number of jobs dropped
+     */
+    public synchronized int cancel(long ticket) {
+        List<Job> queued = ticketJobs.remove(ticket);
+        if (queued == null) {
+            return 0;
+        }
+        for (Job job : queued) {
+            if (!queues.get(job.station).remove(job)) {
+                carried.get(job.station).remove(job);
+            }
+        }
+        return queued.size();
+    }
+
+    public synchronized int getQueued(Station station) {
+        return carried.get(station).size() + queues.get(station).size();
+    }
+
+    /**
+     * The station's queue in the order it will be taken.
+     */
+    public synchronized List<Job> getQueue(Station station) {
+        List<Job> queue = new ArrayList<>(carried.get(station));
+        queue.addAll(queues.get(station));
+        return queue;
+    }
+}
@@ -0,0 +1,145 @@
+package com.mycompany.restaurant.services;
+
+import com.mycompany.restaurant.utils.CsvUtils;
+import com.mycompany.restaurant.utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LatencyStats - Service time histograms for the orders this process has
+ * seen go through the kitchen.
+ *
+ * Each series is one measure (e.g. order to ready) over one slice of the
+ * orders: all of them, one station, one menu item or one hour of the day.
+ * Durations come from System.nanoTime(), so clock changes do not skew
+ * them. Safe to record from any thread.
+ */
+public class LatencyStats {
+
+    public static final String ORDER_TO_READY = "Order to ready";
+    public static final String LINE_TO_READY = "Line to ready";
+
+    /**
+     * How a series slices the orders.
+     */
+    public enum Group {
+        ALL("All"),
+        STATION("Station"),
+        ITEM("Item"),
+        HOUR("Hour");
+
+        private final String displayName;
+
+        Group(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * One histogram and what it measures.
+     */
+    public static final class Series {
+        private final String measure;
+        private final Group group;
+        private final String key;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Series(String measure, Group group, String key) {
+            this.measure = measure;
+            this.group = group;
+            this.key = key;
+        }
+
+        public String getMeasure() {
+            return measure;
+        }
+
+        public Group getGroup() {
+            return group;
+        }
+
+        /**
+         * The station, item or hour, or "All".
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    private static final Comparator<Series> ORDER = Comparator.comparing(Series::getMeasure)
+            .thenComparing(Series::getGroup)
+            .thenComparing(Series::getKey);
+
+    private static final double[] EXPORTED_PERCENTILES = { 50, 75, 90, 95, 99, 99.9 };
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    public void record(String measure, Group group, String key, long nanos) {
+        series.computeIfAbsent(measure + '\u0000' + group + '\u0000' + key, k -> new Series(measure, group, key))
+                .histogram.recordNanos(nanos);
+    }
+
+    /**
+     * Every series so far, by measure, group and key.
+     */
+    public List<Series> getSeries() {
+        List<Series> all = new ArrayList<>(series.values());
+        all.sort(ORDER);
+        return all;
+    }
+
+    /**
+     * Write every series as a CSV row of count, mean, percentiles and max,
+     * all in milliseconds.
+     */
+    public void exportCsv(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            StringBuilder header = new StringBuilder("measure,group,key,count,mean_ms");
+            for (double percentile : EXPORTED_PERCENTILES) {
+                header.append(",p").append(percentile == (long) percentile
+                        ? String.valueOf((long) percentile) : String.valueOf(percentile)).append("_ms");
+            }
+            out.println(header.append(",max_ms"));
+            for (Series s : getSeries()) {
+                LatencyHistogram h = s.histogram;
+                StringBuilder row = new StringBuilder();
+                row.append(CsvUtils.escape(s.measure)).append(',').append(s.group).append(',')
+                        .append(CsvUtils.escape(s.key)).append(',').append(h.getCount()).append(',')
+                        .append(Math.round(h.getMean()));
+                for (double percentile : EXPORTED_PERCENTILES) {
+                    row.append(',').append(h.getPercentile(percentile));
+                }
+                out.println(row.append(',').append(h.getMax()));
+            }
+        }
+    }
+
+    /**
+     * A duration for display, e.g. "4:05" (minutes and seconds) or "850 ms".
+     */
+    public static String format(long millis) {
+        if (millis < 1000) {
+            return millis + " ms";
+        }
+        long seconds = millis / 1000;
+        return seconds / 60 + ":" + String.format("%02d", seconds % 60);
+    }
+}
@@ -1,6 +1,9 @@
 package com.mycompany.restaurant.services;
 
 import com.mycompany.restaurant.models.MenuItem;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.Station;
+import com.mycompany.restaurant.utils.FxThread;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
@@ -8,132 +11,291 @@ import java.util.stream.Collectors;
 
 /**
  * MenuService - Manages all food and drink items
+ *
+ * Safe to call from any thread: readers get an immutable snapshot without
+ * locking, writers are serialized and replace it. The observable list for
+ * views is updated on the FX thread.
  */
 public class MenuService {
 
-    private static MenuService instance;
+    private static class Holder {
+        static final MenuService INSTANCE = new MenuService();
+    }
+
+    // Replaced, never modified, under the instance lock
+    private volatile java.util.List<MenuItem> snapshot = java.util.List.of();
+    // Kitchen station of each item by id and by name, rebuilt with the snapshot
+    private volatile java.util.Map<Integer, Station> stationsById = java.util.Map.of();
+    private volatile java.util.Map<String, Station> stationsByName = java.util.Map.of();
+    // Prep estimate in seconds of each item that has its own, by name
+    private volatile java.util.Map<String, Integer> prepByName = java.util.Map.of();
     private final ObservableList<MenuItem> menuItems;
 
     private MenuService() {
         menuItems = FXCollections.observableArrayList();
         loadFromDatabase();
-        if (menuItems.isEmpty()) {
+        if (snapshot.isEmpty()) {
             initializeDefaultData();
         }
     }
 
     public static MenuService getInstance() {
-        if (instance == null) {
-            instance = new MenuService();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
-    private void loadFromDatabase() {
-        menuItems.clear();
+    private synchronized void loadFromDatabase() {
+        java.util.List<MenuItem> loaded = new java.util.ArrayList<>();
         String query = "SELECT * FROM menu_items WHERE available = 1";
 
-        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.connect();
-                java.sql.Statement stmt = conn.createStatement();
-                java.sql.ResultSet rs = stmt.executeQuery(query)) {
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(query);
+                java.sql.ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                menuItems.add(new MenuItem(
+                MenuItem item = new MenuItem(
                         rs.getInt("id"),
                         rs.getString("name"),
                         rs.getString("category"),
                         rs.getDouble("price"),
-                        rs.getString("description")));
+                        rs.getString("description"));
+                item.setPrepSeconds(rs.getInt("prep_seconds"));
+                loaded.add(item);
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
+        setSnapshot(java.util.List.copyOf(loaded));
+        FxThread.run(() -> menuItems.setAll(loaded)); // Single change event for listeners
+    }
+
+    /**
+     * Replace the menu and recompute its station routing, once per change
+     * rather than per ticket. Called with the instance lock held.
+     */
+    private void setSnapshot(java.util.List<MenuItem> items) {
+        java.util.Map<Integer, Station> byId = new java.util.HashMap<>();
+        java.util.Map<String, Station> byName = new java.util.HashMap<>();
+        java.util.Map<String, Integer> prep = new java.util.HashMap<>();
+        for (MenuItem item : items) {
+            Station station = Station.forCategory(item.getCategory());
+            byId.put(item.getId(), station);
+            byName.put(item.getName(), station);
+            if (item.getPrepSeconds() > 0) {
+                prep.put(item.getName(), item.getPrepSeconds());
+            }
+        }
+        stationsById = java.util.Map.copyOf(byId);
+        stationsByName = java.util.Map.copyOf(byName);
+        prepByName = java.util.Map.copyOf(prep);
+        snapshot = items;
     }
 
     private void initializeDefaultData() {
+        java.util.List<MenuItem> defaults = new java.util.ArrayList<>();
+
         // Pizzas
-        add(new MenuItem(0, "Chicken Fajita", "Pizza", 1200, "Spicy chicken with onions and capsicum"));
-        add(new MenuItem(0, "Pepperoni Feast", "Pizza", 1300, "Loaded with pepperoni slices"));
-        add(new MenuItem(0, "BBQ Chicken", "Pizza", 1250, "Chicken with smoke BBQ sauce"));
-        add(new MenuItem(0, "Veggie Lover", "Pizza", 1100, "Mushrooms, onions, tomatoes, olives"));
-        add(new MenuItem(0, "Cheese Lover", "Pizza", 1150, "Double cheese margarita"));
-        add(new MenuItem(0, "Achari Chicken", "Pizza", 1250, "Traditional pickle spice flavor"));
+        defaults.add(new MenuItem(0, "Chicken Fajita", "Pizza", 1200, "Spicy chicken with onions and capsicum"));
+        defaults.add(new MenuItem(0, "Pepperoni Feast", "Pizza", 1300, "Loaded with pepperoni slices"));
+        defaults.add(new MenuItem(0, "BBQ Chicken", "Pizza", 1250, "Chicken with smoke BBQ sauce"));
+        defaults.add(new MenuItem(0, "Veggie Lover", "Pizza", 1100, "Mushrooms, onions, tomatoes, olives"));
+        defaults.add(new MenuItem(0, "Cheese Lover", "Pizza", 1150, "Double cheese margarita"));
+        defaults.add(new MenuItem(0, "Achari Chicken", "Pizza", 1250, "Traditional pickle spice flavor"));
 
         // Burgers
-        add(new MenuItem(0, "Zinger Burger", "Burger", 550, "Crispy fried chicken fillet with mayo"));
-        add(new MenuItem(0, "Cheesy Sizzler", "Burger", 780, "Loaded with cheese and spicy sauce"));
-        add(new MenuItem(0, "Beef Smash", "Burger", 750, "Double beef patty with cheese"));
-        add(new MenuItem(0, "Grilled Chicken", "Burger", 600, "Healthy grilled breast with lettuce"));
-        add(new MenuItem(0, "Chapli Burger", "Burger", 500, "Traditional spicy beef patty"));
-        add(new MenuItem(0, "Tower Burger", "Burger", 850, "Double zinger fillets with cheese"));
+        defaults.add(new MenuItem(0, "Zinger Burger", "Burger", 550, "Crispy fried chicken fillet with mayo"));
+        defaults.add(new MenuItem(0, "Cheesy Sizzler", "Burger", 780, "Loaded with cheese and spicy sauce"));
+        defaults.add(new MenuItem(0, "Beef Smash", "Burger", 750, "Double beef patty with cheese"));
+        defaults.add(new MenuItem(0, "Grilled Chicken", "Burger", 600, "Healthy grilled breast with lettuce"));
+        defaults.add(new MenuItem(0, "Chapli Burger", "Burger", 500, "Traditional spicy beef patty"));
+        defaults.add(new MenuItem(0, "Tower Burger", "Burger", 850, "Double zinger fillets with cheese"));
 
         // Sides (Fries, Nuggets)
-        add(new MenuItem(0, "Regular Fries", "Sides", 250, "Crispy salted fries"));
-        add(new MenuItem(0, "Mayo Garlic Fries", "Sides", 350, "Fries topped with special mayo sauce"));
-        add(new MenuItem(0, "Chicken Nuggets (6pcs)", "Sides", 400, "Golden fried chicken bites"));
-        add(new MenuItem(0, "Chicken Nuggets (10pcs)", "Sides", 650, "Family share box"));
-        add(new MenuItem(0, "Garlic Bread", "Sides", 200, "Toasted bread with garlic butter"));
+        defaults.add(new MenuItem(0, "Regular Fries", "Sides", 250, "Crispy salted fries"));
+        defaults.add(new MenuItem(0, "Mayo Garlic Fries", "Sides", 350, "Fries topped with special mayo sauce"));
+        defaults.add(new MenuItem(0, "Chicken Nuggets (6pcs)", "Sides", 400, "Golden fried chicken bites"));
+        defaults.add(new MenuItem(0, "Chicken Nuggets (10pcs)", "Sides", 650, "Family share box"));
+        defaults.add(new MenuItem(0, "Garlic Bread", "Sides", 200, "Toasted bread with garlic butter"));
 
         // BBQ
-        add(new MenuItem(0, "Chicken Tikka", "BBQ", 450, "Quarter leg piece grilled"));
-        add(new MenuItem(0, "Malai Boti", "BBQ", 600, "Creamy boneless chicken pieces (6pcs)"));
-        add(new MenuItem(0, "Seekh Kabab", "BBQ", 550, "Spicy minced beef kababs (4pcs)"));
-        add(new MenuItem(0, "Reshmi Kabab", "BBQ", 600, "Soft minced chicken kababs"));
+        defaults.add(new MenuItem(0, "Chicken Tikka", "BBQ", 450, "Quarter leg piece grilled"));
+        defaults.add(new MenuItem(0, "Malai Boti", "BBQ", 600, "Creamy boneless chicken pieces (6pcs)"));
+        defaults.add(new MenuItem(0, "Seekh Kabab", "BBQ", 550, "Spicy minced beef kababs (4pcs)"));
+        defaults.add(new MenuItem(0, "Reshmi Kabab", "BBQ", 600, "Soft minced chicken kababs"));
 
         // Drinks
-        add(new MenuItem(0, "Coca Cola 500ml", "Drinks", 120, "Chilled bottle"));
-        add(new MenuItem(0, "Sprite 500ml", "Drinks", 120, "Chilled bottle"));
-        add(new MenuItem(0, "Fanta 500ml", "Drinks", 120, "Chilled bottle"));
-        add(new MenuItem(0, "Mint Margarita", "Drinks", 290, "Fresh mint, lime and soda"));
-        add(new MenuItem(0, "Fresh Lime", "Drinks", 150, "Soda with lime juice"));
-        add(new MenuItem(0, "Mineral Water", "Drinks", 80, "Small bottle"));
-        add(new MenuItem(0, "Karak Chai", "Drinks", 100, "Strong tea"));
+        defaults.add(new MenuItem(0, "Coca Cola 500ml", "Drinks", 120, "Chilled bottle"));
+        defaults.add(new MenuItem(0, "Sprite 500ml", "Drinks", 120, "Chilled bottle"));
+        defaults.add(new MenuItem(0, "Fanta 500ml", "Drinks", 120, "Chilled bottle"));
+        defaults.add(new MenuItem(0, "Mint Margarita", "Drinks", 290, "Fresh mint, lime and soda"));
+        defaults.add(new MenuItem(0, "Fresh Lime", "Drinks", 150, "Soda with lime juice"));
+        defaults.add(new MenuItem(0, "Mineral Water", "Drinks", 80, "Small bottle"));
+        defaults.add(new MenuItem(0, "Karak Chai", "Drinks", 100, "Strong tea"));
+
+        addAll(defaults);
     }
 
-    public void add(MenuItem item) {
-        String sql = "INSERT INTO menu_items(name, category, price, description) VALUES(?,?,?,?)";
+    public synchronized void add(MenuItem item) {
+        String sql = "INSERT INTO menu_items(name, category, price, description, prep_seconds) "
+                + "VALUES(?,?,?,?,NULLIF(?,0))";
 
-        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.connect();
-                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getWriteConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql,
+                        java.sql.Statement.RETURN_GENERATED_KEYS)) {
 
             pstmt.setString(1, item.getName());
             pstmt.setString(2, item.getCategory());
             pstmt.setDouble(3, item.getPrice());
             pstmt.setString(4, item.getDescription());
+            pstmt.setInt(5, item.getPrepSeconds());
             pstmt.executeUpdate();
 
-            // Reload to get ID
-            loadFromDatabase();
+            // Append with the generated id instead of reloading the whole table
+            try (java.sql.ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    MenuItem added = new MenuItem(keys.getInt(1), item.getName(), item.getCategory(),
+                            item.getPrice(), item.getDescription());
+                    added.setPrepSeconds(item.getPrepSeconds());
+                    java.util.List<MenuItem> next = new java.util.ArrayList<>(snapshot);
+                    next.add(added);
+                    setSnapshot(java.util.Collections.unmodifiableList(next));
+                    FxThread.run(() -> menuItems.add(added));
+                }
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Insert many items in one transaction using JDBC batching, then
+     * refresh the in-memory list once.
+     *
+     * @return number of items inserted
+     */
+    public synchronized int addAll(java.util.Collection<MenuItem> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO menu_items(name, category, price, description, prep_seconds) "
+                + "VALUES(?,?,?,?,NULLIF(?,0))";
+
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getWriteConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+            try {
+                for (MenuItem item : items) {
+                    pstmt.setString(1, item.getName());
+                    pstmt.setString(2, item.getCategory());
+                    pstmt.setDouble(3, item.getPrice());
+                    pstmt.setString(4, item.getDescription());
+                    pstmt.setInt(5, item.getPrepSeconds());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (java.sql.SQLException e) {
+                conn.rollback();
+                throw e;
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
+            return 0;
+        }
+
+        loadFromDatabase(); // Reload once to get IDs
+        return items.size();
+    }
+
+    /**
+     * Import menu items from a CSV file with the header
+     * name,category,price,description.
+     *
+     * @return number of items imported
+     */
+    public int importFrom(java.nio.file.Path csvFile) throws java.io.IOException {
+        java.util.List<MenuItem> items = new java.util.ArrayList<>();
+        int line = 1;
+        for (String[] row : com.mycompany.restaurant.utils.CsvUtils.readRows(csvFile)) {
+            line++;
+            if (row.length < 3) {
+                throw new IllegalArgumentException(csvFile + " line " + line + ": expected name,category,price");
+            }
+            try {
+                items.add(new MenuItem(0, row[0], row[1], Double.parseDouble(row[2]),
+                        row.length > 3 ? row[3] : ""));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(csvFile + " line " + line + ": invalid price '" + row[2] + "'");
+            }
         }
+        return addAll(items);
     }
 
-    public void remove(MenuItem item) {
+    public synchronized void remove(MenuItem item) {
         String sql = "DELETE FROM menu_items WHERE name = ?"; // Ideally use ID
-        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.connect();
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getWriteConnection();
                 java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, item.getName());
             pstmt.executeUpdate();
 
-            menuItems.remove(item);
+            java.util.List<MenuItem> next = new java.util.ArrayList<>(snapshot);
+            next.remove(item);
+            setSnapshot(java.util.Collections.unmodifiableList(next));
+            FxThread.run(() -> menuItems.remove(item));
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * The menu for the FX thread; use getItemsSnapshot() elsewhere.
+     */
     public ObservableList<MenuItem> getAllItems() {
         return menuItems;
     }
 
+    /**
+     * The current menu as an immutable list, for any thread.
+     */
+    public java.util.List<MenuItem> getItemsSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Station the item is made at, from the routing table.
+     */
+    public Station getStation(MenuItem item) {
+        Station station = stationsById.get(item.getId());
+        return station != null ? station : Station.forCategory(item.getCategory());
+    }
+
+    /**
+     * Station for an item known only by name, e.g. a line read back from
+     * the database; items no longer on the menu are routed by category.
+     */
+    public Station getStation(String itemName, String category) {
+        Station station = stationsByName.get(itemName);
+        return station != null ? station : Station.forCategory(category);
+    }
+
+    /**
+     * Expected time to make the line: the item's own estimate, or its
+     * station's usual time.
+     */
+    public java.time.Duration getPrepTime(OrderLine line) {
+        Integer seconds = prepByName.get(line.getItemName());
+        return seconds != null ? java.time.Duration.ofSeconds(seconds) : line.getStation().getDefaultPrep();
+    }
+
     public ObservableList<MenuItem> getItemsByCategory(String category) {
         if (category == null || category.equals("All")) {
             return menuItems;
         }
-        return menuItems.stream()
+        return snapshot.stream()
                 .filter(item -> item.getCategory().equalsIgnoreCase(category))
                 .collect(Collectors.toCollection(FXCollections::observableArrayList));
     }
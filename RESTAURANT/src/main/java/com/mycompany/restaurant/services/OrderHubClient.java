@@ -0,0 +1,331 @@
+package com.mycompany.restaurant.services;
+
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.OrderStatus;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OrderHubClient - Keeps an OrderService in hub client mode in step with
+ * the hub, and forwards its changes there.
+ *
+ * A virtual thread reads the hub's events into the service's replica
+ * state; commands wait for the hub's reply, which arrives after the events
+ * the command caused, so a caller sees its own change once the call
+ * returns. Commands block the calling thread for up to REPLY_TIMEOUT_MS,
+ * so views send them from a background thread. If the hub goes away the
+ * client reconnects and takes a fresh snapshot, reconciled with the
+ * replica it already has; commands fail with IllegalStateException until
+ * then. Commands that add lines are keyed, so one left unanswered by a
+ * slow or lost hub is sent again, within RETRY_WINDOW_MS, without the
+ * risk of placing it twice. Each connection starts with the HubProtocol
+ * handshake, answered with the terminal's hub.secret.
+ */
+final class OrderHubClient {
+
+    private static final long REPLY_TIMEOUT_MS = 5000;
+    private static final long RECONNECT_DELAY_MS = 2000;
+    private static final long RETRY_WINDOW_MS = 3 * REPLY_TIMEOUT_MS;
+
+    /**
+     * The hub did not answer: it may or may not have applied the command.
+     */
+    private static final class Unanswered extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        Unanswered(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final OrderService service;
+    private final String host;
+    private final int port;
+    private final String secret;
+
+    private final Map<Long, CompletableFuture<String[]>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextRequest = new AtomicLong();
+    // Request keys are this terminal's prefix and a counter
+    private final String keyPrefix = HubProtocol.newNonce();
+    private final AtomicLong nextKey = new AtomicLong();
+    private final CountDownLatch firstSync = new CountDownLatch(1);
+    private final Object writeLock = new Object();
+
+    private volatile Socket socket;
+    private volatile BufferedWriter out;
+    private volatile boolean closed;
+
+    OrderHubClient(OrderService service, String host, int port, String secret) {
+        this.service = service;
+        this.host = host;
+        this.port = port;
+        this.secret = secret;
+    }
+
+    /**
+     * Connect in the background. Returns at once; the hub's orders appear
+     * in the views as the snapshot arrives.
+     */
+    void start() {
+        Thread.ofVirtual().name("order-hub-client").start(this::run);
+    }
+
+    /**
+     * Wait for the first snapshot.
+     *
+     * @return false if the timeout elapsed first
+     */
+    boolean awaitSync(long timeoutMs) {
+        try {
+            return firstSync.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        boolean reported = false;
+        while (!closed) {
+            try (Socket s = new Socket()) {
+                s.connect(new InetSocketAddress(host, port), (int) REPLY_TIMEOUT_MS);
+                s.setTcpNoDelay(true);
+                socket = s;
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8));
+                answerChallenge(in, writer);
+                service.replicaResync();
+                out = writer;
+                System.out.println("Connected to order hub " + host + ":" + port);
+                reported = false;
+
+                String line;
+                while ((line = in.readLine()) != null) {
+                    receive(HubProtocol.decode(line));
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!closed && !reported) {
+                    System.err.println("Order hub connection lost: " + e.getMessage());
+                    reported = true;
+                }
+            } finally {
+                out = null;
+                socket = null;
+                failPending("order hub disconnected");
+            }
+            if (!closed) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reply to the hub's CHALLENGE. A wrong secret shows up afterwards as
+     * an ERROR with request number 0 and the hub closing the connection.
+     */
+    private void answerChallenge(BufferedReader in, BufferedWriter writer) throws IOException {
+        String line = in.readLine();
+        String[] fields = line == null ? new String[0] : HubProtocol.decode(line);
+        if (fields.length < 2 || !fields[0].equals(HubProtocol.CHALLENGE)) {
+            throw new IOException("expected a " + HubProtocol.CHALLENGE + " from the hub");
+        }
+        writer.write(new HubProtocol.Message(HubProtocol.HELLO).add(HubProtocol.proof(secret, fields[1])).toString());
+        writer.newLine();
+        writer.flush();
+    }
+
+    private void receive(String[] fields) {
+        switch (fields[0]) {
+            case HubProtocol.OPENED:
+                service.replicaOpened(Long.parseLong(fields[1]), fields[2],
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(fields[3])), ZoneId.systemDefault()),
+                        OrderStatus.valueOf(fields[4]), HubProtocol.readLines(fields, 5));
+                break;
+            case HubProtocol.LINES:
+                service.replicaLines(Long.parseLong(fields[1]), HubProtocol.readLines(fields, 2));
+                break;
+            case HubProtocol.STATUS:
+                service.replicaStatus(Long.parseLong(fields[1]), OrderStatus.valueOf(fields[2]),
+                        Instant.ofEpochMilli(Long.parseLong(fields[3])));
+                break;
+            case HubProtocol.SYNCED:
+                service.replicaSynced();
+                firstSync.countDown();
+                break;
+            case HubProtocol.OK:
+            case HubProtocol.ERROR: {
+                CompletableFuture<String[]> reply = pending.remove(Long.parseLong(fields[1]));
+                if (reply == null && fields[0].equals(HubProtocol.ERROR)) {
+                    System.err.println("Order hub: " + (fields.length > 2 ? fields[2] : "rejected"));
+                } else if (reply != null) {
+                    if (fields[0].equals(HubProtocol.OK)) {
+                        reply.complete(fields);
+                    } else {
+                        reply.completeExceptionally(new IllegalStateException(fields.length > 2 ? fields[2] : "rejected"));
+                    }
+                }
+                break;
+            }
+            default:
+                System.err.println("Order hub sent unknown message " + fields[0]);
+        }
+    }
+
+    Order placeOrder(String table, List<OrderLine> lines) {
+        long ticket = keyedCall(HubProtocol.PLACE, m -> m.add(table).addLines(lines));
+        return replicaOrder(ticket, table, lines);
+    }
+
+    Order addToTable(String table, List<OrderLine> lines) {
+        long ticket = keyedCall(HubProtocol.TABLE, m -> m.add(table).addLines(lines));
+        return replicaOrder(ticket, table, lines);
+    }
+
+    boolean addLines(long ticket, List<OrderLine> lines) {
+        return keyedCall(HubProtocol.ADD, m -> m.add(ticket).addLines(lines)) == 1;
+    }
+
+    int advanceAll(List<Long> tickets, OrderStatus target) {
+        return (int) call(HubProtocol.ADVANCE, m -> {
+            m.add(target.name());
+            for (long ticket : tickets) {
+                m.add(ticket);
+            }
+        });
+    }
+
+    int advanceItem(String itemName, OrderStatus target) {
+        return (int) call(HubProtocol.BUMP, m -> m.add(target.name()).add(itemName));
+    }
+
+    /**
+     * The replica of an order the hub just opened. Only missing if another
+     * terminal closed it in between, in which case a detached copy is returned.
+     */
+    private Order replicaOrder(long ticket, String table, List<OrderLine> lines) {
+        Order order = service.findByTicket(ticket);
+        if (order == null) {
+            order = new Order(table);
+            order.getItems().addAll(lines);
+        }
+        return order;
+    }
+
+    /**
+     * Send a command with a new request key, and send it again with the
+     * same key while the hub leaves it unanswered, reconnecting if need be,
+     * for up to RETRY_WINDOW_MS. The hub applies the key only once.
+     */
+    private long keyedCall(String type, java.util.function.Consumer<HubProtocol.Message> fields) {
+        String key = keyPrefix + "-" + nextKey.incrementAndGet();
+        long deadline = System.currentTimeMillis() + RETRY_WINDOW_MS;
+        while (true) {
+            try {
+                return call(type, m -> {
+                    m.add(key);
+                    fields.accept(m);
+                });
+            } catch (Unanswered e) {
+                if (!awaitConnection(deadline)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if still not connected at the deadline, or closing
+     */
+    private boolean awaitConnection(long deadline) {
+        while (out == null && !closed && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return out != null && !closed && System.currentTimeMillis() < deadline;
+    }
+
+    /**
+     * Send a command and wait for the hub's value.
+     *
+     * @param fields adds the fields after the request number
+     * @throws IllegalStateException if the hub rejects it, or Unanswered if it
+     *         cannot be reached or does not reply in time
+     */
+    private long call(String type, java.util.function.Consumer<HubProtocol.Message> fields) {
+        long req = nextRequest.incrementAndGet();
+        HubProtocol.Message message = new HubProtocol.Message(type).add(req);
+        fields.accept(message);
+        CompletableFuture<String[]> reply = new CompletableFuture<>();
+        pending.put(req, reply);
+        try {
+            BufferedWriter writer = out;
+            if (writer == null) {
+                throw new Unanswered("Order hub " + host + ":" + port + " is not connected", null);
+            }
+            synchronized (writeLock) {
+                writer.write(message.toString());
+                writer.newLine();
+                writer.flush();
+            }
+            return Long.parseLong(reply.get(REPLY_TIMEOUT_MS, TimeUnit.MILLISECONDS)[2]);
+        } catch (IOException | TimeoutException e) {
+            throw new Unanswered("Order hub " + host + ":" + port + " did not answer", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Unanswered unanswered) {
+                throw unanswered;
+            }
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the order hub", e);
+        } finally {
+            pending.remove(req);
+        }
+    }
+
+    private void failPending(String reason) {
+        for (CompletableFuture<String[]> reply : pending.values()) {
+            reply.completeExceptionally(new Unanswered(reason, null));
+        }
+    }
+
+    void close() {
+        closed = true;
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.mycompany.restaurant.services;
+
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.OrderStatus;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * OrderHubServer - Shares this process's OrderService with other terminals
+ * over a local TCP socket (see HubProtocol).
+ *
+ * Every connection gets a snapshot of the open orders and then every change
+ * as it happens, including its own. Commands from a terminal are applied to
+ * the OrderService here, so the hub alone journals and writes to SQLite.
+ * Each connection is served by two virtual threads: one reading commands,
+ * one writing events, so a slow terminal never holds up the others.
+ *
+ * Terminals must pass the HubProtocol handshake before they see anything.
+ * Without a hub.secret any terminal that can connect is trusted, so the
+ * hub then refuses to listen on anything but a loopback address.
+ */
+public class OrderHubServer implements AutoCloseable {
+
+    // Events queued for a terminal that stopped reading; past this it is dropped
+    private static final int MAX_BACKLOG = 50_000;
+    private static final int HANDSHAKE_TIMEOUT_MS = 5000;
+    // Request keys remembered for repeats; far more than terminals retry within
+    private static final int REMEMBERED_KEYS = 10_000;
+
+    private final OrderService service;
+    private final String secret;
+    private final ServerSocket serverSocket;
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Peer> peers = ConcurrentHashMap.newKeySet();
+    // Result of each recent keyed command, oldest first; guarded by itself
+    private final Map<String, Long> applied = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > REMEMBERED_KEYS;
+        }
+    };
+
+    private OrderHubServer(OrderService service, String secret, ServerSocket serverSocket) {
+        this.service = service;
+        this.secret = secret;
+        this.serverSocket = serverSocket;
+    }
+
+    /**
+     * Listen on the given address (port 0 picks a free one) and start accepting terminals.
+     *
+     * @param secret shared with the terminals; empty for none, allowed on loopback only
+     */
+    static OrderHubServer start(OrderService service, String host, int port, String secret) throws IOException {
+        InetAddress address = InetAddress.getByName(host);
+        if (secret.isEmpty() && !address.isLoopbackAddress()) {
+            throw new IOException("hub.secret must be set to serve on " + host);
+        }
+        ServerSocket socket = new ServerSocket(port, 50, address);
+        OrderHubServer server = new OrderHubServer(service, secret, socket);
+        server.threads.submit(server::acceptLoop);
+        System.out.println("Order hub listening on " + socket.getInetAddress().getHostAddress() + ":"
+                + socket.getLocalPort());
+        return server;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return peers.size();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                threads.submit(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Order hub accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Peer peer;
+        try {
+            peer = new Peer(socket);
+        } catch (IOException e) {
+            System.err.println("Order hub connection failed: " + e.getMessage());
+            return;
+        }
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            if (!handshake(peer, in)) {
+                System.err.println("Order hub refused terminal " + socket.getRemoteSocketAddress()
+                        + ": wrong hub.secret");
+                return;
+            }
+            peers.add(peer);
+            threads.submit(peer::writeLoop);
+            service.addListener(peer); // Sends the snapshot
+            peer.send(new HubProtocol.Message(HubProtocol.SYNCED));
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                handle(peer, HubProtocol.decode(line));
+            }
+        } catch (IOException e) {
+            // Terminal went away
+        } finally {
+            service.removeListener(peer);
+            peer.close();
+            peers.remove(peer);
+        }
+    }
+
+    /**
+     * Challenge the terminal and check its proof, before its writer thread
+     * starts, so nothing else has been sent yet.
+     */
+    private boolean handshake(Peer peer, BufferedReader in) throws IOException {
+        String nonce = HubProtocol.newNonce();
+        peer.writeNow(new HubProtocol.Message(HubProtocol.CHALLENGE).add(nonce));
+        peer.socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+        String line = in.readLine();
+        peer.socket.setSoTimeout(0);
+        String[] fields = line == null ? new String[0] : HubProtocol.decode(line);
+        if (fields.length >= 2 && fields[0].equals(HubProtocol.HELLO)
+                && HubProtocol.verify(secret, nonce, fields[1])) {
+            return true;
+        }
+        peer.writeNow(new HubProtocol.Message(HubProtocol.ERROR).add(0).add("not authorised"));
+        return false;
+    }
+
+    private void handle(Peer peer, String[] fields) {
+        String req = fields.length > 1 ? fields[1] : "0";
+        try {
+            long value;
+            switch (fields[0]) {
+                case HubProtocol.PLACE:
+                    value = once(fields[2], () -> service.ticketOf(
+                            service.placeOrder(fields[3], HubProtocol.readLines(fields, 4))));
+                    break;
+                case HubProtocol.TABLE:
+                    value = once(fields[2], () -> service.ticketOf(
+                            service.addToTable(fields[3], HubProtocol.readLines(fields, 4))));
+                    break;
+                case HubProtocol.ADD:
+                    value = once(fields[2], () -> {
+                        Order order = service.findByTicket(Long.parseLong(fields[3]));
+                        List<OrderLine> lines = HubProtocol.readLines(fields, 4);
+                        return order != null && service.addLines(order, lines) ? 1 : 0;
+                    });
+                    break;
+                case HubProtocol.ADVANCE: {
+                    OrderStatus target = OrderStatus.valueOf(fields[2]);
+                    List<Order> orders = new ArrayList<>();
+                    for (int i = 3; i < fields.length; i++) {
+                        Order order = service.findByTicket(Long.parseLong(fields[i]));
+                        if (order != null) {
+                            orders.add(order);
+                        }
+                    }
+                    value = service.advanceAll(orders, target);
+                    break;
+                }
+                case HubProtocol.BUMP:
+                    value = service.advanceItem(fields[3], OrderStatus.valueOf(fields[2]));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown command " + fields[0]);
+            }
+            // Queued after the events the command caused, so the terminal sees those first
+            peer.send(new HubProtocol.Message(HubProtocol.OK).add(req).add(value));
+        } catch (RuntimeException e) {
+            peer.send(new HubProtocol.Message(HubProtocol.ERROR).add(req).add(String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Apply a keyed command unless it has been already, e.g. by an attempt
+     * whose reply the terminal never got; a repeat gets the first result.
+     * Held while applying, so a repeat on another connection waits for it.
+     */
+    private long once(String key, LongSupplier command) {
+        synchronized (applied) {
+            Long done = applied.get(key);
+            if (done != null) {
+                return done;
+            }
+            long value = command.getAsLong();
+            applied.put(key, value);
+            return value;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing order hub: " + e.getMessage());
+        }
+        for (Peer peer : peers) {
+            peer.close();
+        }
+        threads.shutdownNow();
+    }
+
+    /**
+     * One connected terminal. Listener calls arrive under the OrderService
+     * lock, so they only queue the encoded event for the writer thread.
+     */
+    private final class Peer implements OrderService.Listener {
+        private final Socket socket;
+        private final BufferedWriter out;
+        private final BlockingQueue<String> outbound = new LinkedBlockingQueue<>();
+
+        Peer(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void orderOpened(long ticket, Order order, List<OrderLine> lines, OrderStatus status) {
+            send(new HubProtocol.Message(HubProtocol.OPENED).add(ticket).add(order.getTableName())
+                    .add(order.getOrderTime().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli())
+                    .add(status.name()).addLines(lines));
+        }
+
+        @Override
+        public void linesAdded(long ticket, List<OrderLine> lines) {
+            send(new HubProtocol.Message(HubProtocol.LINES).add(ticket).addLines(lines));
+        }
+
+        @Override
+        public void statusChanged(long ticket, OrderStatus status, Instant at) {
+            send(new HubProtocol.Message(HubProtocol.STATUS).add(ticket).add(status.name()).add(at.toEpochMilli()));
+        }
+
+        void send(HubProtocol.Message message) {
+            if (outbound.size() >= MAX_BACKLOG) {
+                System.err.println("Order hub dropping terminal " + socket.getRemoteSocketAddress()
+                        + ": it stopped reading");
+                close();
+                return;
+            }
+            outbound.add(message.toString());
+        }
+
+        /**
+         * Write straight to the socket; only before writeLoop has started.
+         */
+        void writeNow(HubProtocol.Message message) throws IOException {
+            out.write(message.toString());
+            out.newLine();
+            out.flush();
+        }
+
+        void writeLoop() {
+            try {
+                while (!socket.isClosed()) {
+                    String message = outbound.take();
+                    out.write(message);
+                    out.newLine();
+                    // Batch whatever else is already waiting into the same flush
+                    while ((message = outbound.poll()) != null) {
+                        out.write(message);
+                        out.newLine();
+                    }
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
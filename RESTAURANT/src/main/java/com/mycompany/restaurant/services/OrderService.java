@@ -1,125 +1,1595 @@
 package com.mycompany.restaurant.services;
 
-import com.mycompany.restaurant.views.WaiterOrderView.Order;
+import com.mycompany.restaurant.models.Money;
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.OrderStatus;
+import com.mycompany.restaurant.models.Station;
+import com.mycompany.restaurant.models.TableOccupancy;
+import com.mycompany.restaurant.utils.ChangeFeed;
+import com.mycompany.restaurant.utils.DatabaseHelper;
+import com.mycompany.restaurant.utils.FxThread;
+import com.mycompany.restaurant.utils.OrderJournal;
+import com.mycompany.restaurant.utils.WriteBehindQueue;
+import javafx.beans.Observable;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
+import javafx.collections.transformation.FilteredList;
 
 /**
- * OrderService - Manages active orders across the system
+ * OrderService - Manages active orders across the system.
+ * An order is one table visit (an order_headers row) with many lines (rows
+ * in orders). Each round of items is written in a single transaction.
+ * Status changes follow OrderStatus and are logged in order_events.
+ * Changes other processes commit are picked up through a ChangeFeed.
+ *
+ * Safe to call from any thread. The service's own state is guarded by a
+ * read/write lock; the observable lists and Order properties that views
+ * bind to are updated on the FX thread (see FxThread), in the same order.
+ *
+ * With hub.mode=server the service is shared with other terminals through
+ * an OrderHubServer; with hub.mode=client it is a live replica of a hub's
+ * orders and forwards every change there instead of writing to SQLite.
  */
 public class OrderService {
 
-    private static OrderService instance;
+    private static final String INSERT_HEADER_SQL =
+            "INSERT INTO order_headers(table_name, status, journal_seq) VALUES(?, 'NEW', ?)";
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO order_events(order_id, from_status, to_status, at, journal_seq, origin) VALUES(?,?,?,?,?,?)";
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE order_headers SET status = ?, closed_at = CASE WHEN ? THEN ? ELSE closed_at END WHERE id = ?";
+    private static final String CLOSE_LINES_SQL =
+            "UPDATE orders SET status = ? WHERE order_id = ? AND status = 'PENDING'";
+
+    // Event times keep milliseconds so kitchen timings can be measured
+    private static final java.time.format.DateTimeFormatter EVENT_TIME = java.time.format.DateTimeFormatter
+            .ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(java.time.ZoneOffset.UTC);
+    private static final String INSERT_LINE_SQL =
+            "INSERT INTO orders(order_id, table_name, item_name, size, extras, total_price, total_minor, status, journal_seq, origin) "
+                    + "VALUES(?,?,?,?,?,?,?,'PENDING',?,?)";
+
+    // Initialization-on-demand holder: built once, on first use, by whichever thread gets there first
+    private static class Holder {
+        static final OrderService INSTANCE = new OrderService();
+    }
+
+    /**
+     * Told about every change to the open orders, on the thread that made it
+     * and under the service lock, so changes arrive in order. Must not block.
+     * Orders are identified by ticket: a number unique among this process's
+     * (or, for a hub client, the hub's) orders since start.
+     */
+    public interface Listener {
+        void orderOpened(long ticket, Order order, java.util.List<OrderLine> lines, OrderStatus status);
+
+        void linesAdded(long ticket, java.util.List<OrderLine> lines);
+
+        void statusChanged(long ticket, OrderStatus status, java.time.Instant at);
+    }
+
+    /**
+     * Service-side state of an open order. The Order's own items and status
+     * properties follow it on the FX thread.
+     */
+    private static final class OpenOrder {
+        final long ticket;
+        final Order order;
+        final java.util.List<OrderLine> lines;
+        final java.util.Set<Station> stations = java.util.EnumSet.noneOf(Station.class);
+        OrderStatus status;
+        // System.nanoTime() of the last transition and of each line's arrival,
+        // 0 where it happened before this process saw the order
+        long stageNanos;
+        final java.util.List<Long> lineNanos = new java.util.ArrayList<>();
+        int readyLines; // Lines already timed to ready
+
+        OpenOrder(long ticket, Order order, java.util.List<OrderLine> lines, OrderStatus status, long nanos) {
+            this.ticket = ticket;
+            this.order = order;
+            this.lines = new java.util.ArrayList<>();
+            this.status = status;
+            this.stageNanos = nanos;
+            addLines(lines, nanos);
+        }
+
+        void addLines(java.util.List<OrderLine> round, long nanos) {
+            lines.addAll(round);
+            for (OrderLine line : round) {
+                stations.add(line.getStation());
+                lineNanos.add(nanos);
+            }
+        }
+
+        boolean containsItem(String itemName) {
+            for (OrderLine line : lines) {
+                if (line.getItemName().equals(itemName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Guards openOrders, openTickets, ordersByState, tableOrderCounts and
+    // nextTicket, and orders the journal appends, queued writes and listener
+    // calls that go with each change
+    private final java.util.concurrent.locks.ReentrantReadWriteLock lock = new java.util.concurrent.locks.ReentrantReadWriteLock();
+
+    // Open orders, oldest first
+    private final java.util.Map<Order, OpenOrder> openOrders = new java.util.LinkedHashMap<>();
+    private final java.util.Map<Long, OpenOrder> openTickets = new java.util.HashMap<>();
+    private long nextTicket = 1;
+    private final java.util.Map<OrderStatus, java.util.Set<Order>> ordersByState = new java.util.EnumMap<>(
+            OrderStatus.class);
+
+    // Active order count per table name, so lookups never scan the orders
+    private final java.util.Map<String, Integer> tableOrderCounts = new java.util.HashMap<>();
+
+    // FX-thread copies for the views
     private final ObservableList<Order> activeOrders;
+    // Open orders per state, oldest first, so each view reads only the
+    // state it shows (the kitchen NEW/PREPARING, the pass READY)
+    private final java.util.Map<OrderStatus, ObservableList<Order>> stateQueues = new java.util.EnumMap<>(
+            OrderStatus.class);
+    // A station screen's share of each state queue, made on first use
+    private final java.util.Map<OrderStatus, java.util.Map<Station, ObservableList<Order>>> stationQueues = new java.util.EnumMap<>(
+            OrderStatus.class);
+    private final TableOccupancy occupancy = new TableOccupancy();
+
+    // Active orders by header id. Filled when the id is known: on load, or
+    // on the writer thread once the INSERT has returned its generated key.
+    private final java.util.Map<Long, Order> ordersById = new java.util.concurrent.ConcurrentHashMap<>();
+
+    // Order inserts/updates are persisted off the FX thread
+    private final WriteBehindQueue writeQueue;
+
+    // Every mutation is journaled before it is queued, so a crash before the
+    // queue commits is repaired on the next start (null when disabled)
+    private final OrderJournal journal;
+    // Journal size at which the writer thread is asked to checkpoint it
+    private static final int JOURNAL_CHECKPOINT_BYTES = 1024 * 1024;
+    private final java.util.concurrent.atomic.AtomicBoolean checkpointQueued =
+            new java.util.concurrent.atomic.AtomicBoolean();
+
+    private final java.util.List<Listener> listeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+    // Service times of the orders seen going through the kitchen
+    private final LatencyStats latency = new LatencyStats();
+    // Kitchen lines queued at their stations while the order is NEW or
+    // PREPARING; decides the order the kitchen screens show tickets in
+    private final KitchenScheduler scheduler;
+    // FX-thread copy: each kitchen ticket's best scheduler priority per
+    // station. The state queues report a change to it as an update, which
+    // re-sorts the kitchen screens (see kitchenOrder)
+    private final java.util.Map<Order, ObservableMap<Station, Long>> kitchenPriority = new java.util.HashMap<>();
+    // Analytics results, read again once orders change (see getDataVersion)
+    private final AnalyticsCache analytics = new AnalyticsCache(this::getDataVersion);
+    // Changes that reach the database other than through writeQueue: other
+    // processes' (from the feed) and, for a hub client, all of them
+    private final java.util.concurrent.atomic.AtomicLong outsideChanges = new java.util.concurrent.atomic.AtomicLong();
+    // Off while loading orders opened before this process started. Guarded by the lock.
+    private boolean timeArrivals = true;
+
+    // Other processes' changes, applied as they commit (null when disabled or a hub client)
+    private final ChangeFeed feed;
+    // Highest line row read with each order the feed opened; LINE events up
+    // to it are already in the order. Guarded by the lock.
+    private final java.util.Map<Long, Long> feedLineIds = new java.util.HashMap<>();
+
+    // Set in hub client mode: changes go to the hub, which sends them back
+    private final OrderHubClient hub;
+    // Replica tickets not yet confirmed by the snapshot after a reconnect. Guarded by the lock.
+    private final java.util.Set<Long> resyncing = new java.util.HashSet<>();
+    private volatile OrderHubServer hubServer;
 
     private OrderService() {
-        activeOrders = FXCollections.observableArrayList();
-        loadActiveOrders();
+        // Line and status changes inside an order are reported as list updates
+        activeOrders = FXCollections.observableArrayList(
+                order -> new Observable[] { order.getItems(), order.statusProperty() });
+        for (OrderStatus status : OrderStatus.values()) {
+            if (!status.isTerminal()) {
+                ordersByState.put(status, new java.util.LinkedHashSet<>());
+                stateQueues.put(status, FXCollections.observableArrayList(
+                        order -> new Observable[] { order.getItems(), kitchenPriority(order) }));
+            }
+        }
+        writeQueue = WriteBehindQueue.start("orders", 1024, 256);
+
+        java.util.Properties config = DatabaseHelper.loadConfig();
+        String hubMode = config.getProperty("hub.mode", "off").trim();
+        String hubHost = config.getProperty("hub.host", "127.0.0.1").trim();
+        int hubPort = Integer.parseInt(config.getProperty("hub.port", "7420").trim());
+        String hubSecret = config.getProperty("hub.secret", "").trim();
+        scheduler = KitchenScheduler.forMenu(kitchenPolicy(config));
+
+        if (hubMode.equals("client")) {
+            // The hub owns the journal and the database rows
+            journal = null;
+            feed = null;
+            hub = new OrderHubClient(this, hubHost, hubPort, hubSecret);
+            hub.start();
+            DatabaseHelper.addShutdownHook(hub::close);
+            return;
+        }
+        hub = null;
+        journal = openJournal();
+        recoverFromJournal();
+        long lastEventId = loadActiveOrders();
+        // Registered after the queue's own hook, so queued writes are committed first
+        DatabaseHelper.addShutdownHook(this::closeJournal);
+        feed = startFeed(config, lastEventId);
+
+        if (hubMode.equals("server")) {
+            try {
+                hubServer = OrderHubServer.start(this, hubHost, hubPort, hubSecret);
+                DatabaseHelper.addShutdownHook(hubServer::close);
+            } catch (java.io.IOException e) {
+                System.err.println("Order hub could not listen on " + hubHost + ":" + hubPort
+                        + ", running standalone: " + e.getMessage());
+            }
+        } else if (!hubMode.equals("off")) {
+            System.err.println("Unknown hub.mode '" + hubMode + "', running standalone");
+        }
     }
 
     public static OrderService getInstance() {
-        if (instance == null) {
-            instance = new OrderService();
+        return Holder.INSTANCE;
+    }
+
+    private OrderJournal openJournal() {
+        if (!Boolean.parseBoolean(DatabaseHelper.loadConfig().getProperty("journal.enabled", "true").trim())) {
+            return null;
+        }
+        try {
+            return OrderJournal.open(DatabaseHelper.dataFile("orders.journal").toPath());
+        } catch (java.io.IOException e) {
+            System.err.println("Order journal unavailable, continuing without it: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replay journaled mutations that never reached SQLite: missing headers,
+     * lines and state changes are inserted and applied. Rows are matched by
+     * journal sequence, so replaying twice is harmless.
+     */
+    private void recoverFromJournal() {
+        if (journal == null || journal.getRecovered().isEmpty()) {
+            return;
+        }
+        String headerSql = "INSERT INTO order_headers(table_name, status, opened_at, journal_seq) "
+                + "SELECT ?, 'NEW', ?, ? WHERE NOT EXISTS (SELECT 1 FROM order_headers WHERE journal_seq = ?)";
+        String headerIdSql = "SELECT id FROM order_headers WHERE journal_seq = ?";
+        String lineSql = "INSERT INTO orders(order_id, table_name, item_name, size, extras, total_price, total_minor, status, order_time, journal_seq) "
+                + "SELECT h.id, h.table_name, ?, ?, ?, ?, ?, 'PENDING', ?, ? FROM order_headers h "
+                + "WHERE h.id = ? AND NOT EXISTS (SELECT 1 FROM orders WHERE journal_seq = ?)";
+        String eventSql = "INSERT INTO order_events(order_id, from_status, to_status, at, journal_seq) "
+                + "SELECT id, CASE WHEN ? = 'NEW' THEN NULL ELSE status END, ?, ?, ? FROM order_headers "
+                + "WHERE id = ? AND NOT EXISTS (SELECT 1 FROM order_events WHERE journal_seq = ?)";
+        java.time.format.DateTimeFormatter utc = java.time.format.DateTimeFormatter
+                .ofPattern("yyyy-MM-dd HH:mm:ss").withZone(java.time.ZoneOffset.UTC);
+
+        java.util.Map<Long, Long> headerIds = new java.util.HashMap<>();
+        int orders = 0;
+        int lines = 0;
+        int changes = 0;
+        try (java.sql.Connection conn = DatabaseHelper.getWriteConnection()) {
+            conn.setAutoCommit(false);
+            try (java.sql.PreparedStatement header = conn.prepareStatement(headerSql);
+                    java.sql.PreparedStatement headerId = conn.prepareStatement(headerIdSql);
+                    java.sql.PreparedStatement line = conn.prepareStatement(lineSql);
+                    java.sql.PreparedStatement event = conn.prepareStatement(eventSql);
+                    java.sql.PreparedStatement updateStatus = conn.prepareStatement(UPDATE_STATUS_SQL);
+                    java.sql.PreparedStatement closeLines = conn.prepareStatement(CLOSE_LINES_SQL)) {
+                for (OrderJournal.Record record : journal.getRecovered()) {
+                    String time = utc.format(java.time.Instant.ofEpochMilli(record.getTimeMillis()));
+                    switch (record.getType()) {
+                        case ORDER:
+                            header.setString(1, record.getTable());
+                            header.setString(2, time);
+                            header.setLong(3, record.getSeq());
+                            header.setLong(4, record.getSeq());
+                            if (header.executeUpdate() > 0) {
+                                orders++;
+                                long orderId = resolveOrderId(headerId, headerIds, record.getSeq(), 0);
+                                recordEvent(event, orderId, OrderStatus.NEW, eventTime(record), record.getSeq());
+                            }
+                            break;
+                        case LINE: {
+                            long orderId = resolveOrderId(headerId, headerIds, record.getOrderSeq(),
+                                    record.getOrderId());
+                            if (orderId == 0) {
+                                System.err.println("Journal line " + record.getSeq() + " has no order; skipped");
+                                break;
+                            }
+                            Money total = Money.ofMinor(record.getTotalMinor());
+                            line.setString(1, record.getItem());
+                            line.setString(2, record.getSize());
+                            line.setString(3, record.getExtras());
+                            line.setString(4, total.format());
+                            line.setLong(5, total.getMinorUnits());
+                            line.setString(6, time);
+                            line.setLong(7, record.getSeq());
+                            line.setLong(8, orderId);
+                            line.setLong(9, record.getSeq());
+                            lines += line.executeUpdate();
+                            break;
+                        }
+                        case STATUS: {
+                            long orderId = resolveOrderId(headerId, headerIds, record.getOrderSeq(),
+                                    record.getOrderId());
+                            OrderStatus status = OrderStatus.valueOf(record.getStatus());
+                            if (orderId == 0 || !recordEvent(event, orderId, status, eventTime(record), record.getSeq())) {
+                                break;
+                            }
+                            applyStatus(updateStatus, closeLines, orderId, status, time);
+                            updateStatus.executeBatch();
+                            closeLines.executeBatch();
+                            changes++;
+                            break;
+                        }
+                        default:
+                            break;
+                    }
+                }
+                conn.commit();
+            } catch (java.sql.SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (java.sql.SQLException e) {
+            // Keep the journal so the next start can try again
+            System.err.println("Order journal replay failed: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+
+        if (orders + lines + changes > 0) {
+            System.out.println("Recovered from order journal: " + orders + " orders, " + lines + " lines, "
+                    + changes + " status changes.");
         }
-        return instance;
+        journal.checkpoint();
     }
 
-    private void loadActiveOrders() {
-        activeOrders.clear();
-        String query = "SELECT * FROM orders WHERE status != 'COMPLETED'";
+    /**
+     * Header id a journal record refers to: its recorded id, or the header
+     * inserted for the ORDER record with the given sequence.
+     */
+    private long resolveOrderId(java.sql.PreparedStatement headerId, java.util.Map<Long, Long> headerIds,
+            long orderSeq, long orderId) throws java.sql.SQLException {
+        if (orderId != 0) {
+            return orderId;
+        }
+        Long known = headerIds.get(orderSeq);
+        if (known != null && known != 0) {
+            return known;
+        }
+        headerId.setLong(1, orderSeq);
+        try (java.sql.ResultSet rs = headerId.executeQuery()) {
+            long id = rs.next() ? rs.getLong(1) : 0;
+            headerIds.put(orderSeq, id);
+            return id;
+        }
+    }
 
-        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.connect();
-                java.sql.Statement stmt = conn.createStatement();
-                java.sql.ResultSet rs = stmt.executeQuery(query)) {
+    private static String eventTime(OrderJournal.Record record) {
+        return EVENT_TIME.format(java.time.Instant.ofEpochMilli(record.getTimeMillis()));
+    }
 
-            while (rs.next()) {
-                Order order = new Order(
-                        rs.getString("table_name"),
-                        rs.getString("item_name"),
-                        rs.getString("size"),
-                        rs.getString("extras"),
-                        rs.getString("total_price"));
-                activeOrders.add(order);
+    /**
+     * @return false if this journal record's event is already stored
+     */
+    private static boolean recordEvent(java.sql.PreparedStatement event, long orderId, OrderStatus status,
+            String at, long journalSeq) throws java.sql.SQLException {
+        event.setString(1, status.name());
+        event.setString(2, status.name());
+        event.setString(3, at);
+        event.setLong(4, journalSeq);
+        event.setLong(5, orderId);
+        event.setLong(6, journalSeq);
+        return event.executeUpdate() > 0;
+    }
+
+    /**
+     * Queue the header update (and line close for terminal states) on the
+     * given batch statements.
+     */
+    private static void applyStatus(java.sql.PreparedStatement updateStatus, java.sql.PreparedStatement closeLines,
+            long orderId, OrderStatus status, String at) throws java.sql.SQLException {
+        updateStatus.setString(1, status.name());
+        updateStatus.setBoolean(2, status.isTerminal());
+        updateStatus.setString(3, at);
+        updateStatus.setLong(4, orderId);
+        updateStatus.addBatch();
+        if (status.isTerminal()) {
+            closeLines.setString(1, status.lineStatus());
+            closeLines.setLong(2, orderId);
+            closeLines.addBatch();
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        // Only forget the journal once everything it holds is committed
+        if (writeQueue.flush(5000)) {
+            journal.checkpoint();
+        }
+        System.out.println("Order journal: " + journal);
+        try {
+            journal.close();
+        } catch (java.io.IOException e) {
+            System.err.println("Error closing order journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load every open order with its lines in one query.
+     *
+     * @return id of the last order event the loaded state includes
+     */
+    private long loadActiveOrders() {
+        String query = "SELECT h.id AS order_id, h.table_name, h.opened_at, h.journal_seq AS order_seq, h.status, "
+                + "(SELECT MAX(e.at) FROM order_events e WHERE e.order_id = h.id AND e.kind = 'STATUS') AS status_at, "
+                + "l.item_name, l.size, l.extras, l.total_minor, l.journal_seq AS line_seq "
+                + "FROM order_headers h JOIN orders l ON l.order_id = h.id "
+                + "WHERE h.status IN ('NEW', 'PREPARING', 'READY') ORDER BY h.id, l.id";
+
+        java.util.List<Order> loaded = new java.util.ArrayList<>();
+        long lastEventId = 0;
+        try (java.sql.Connection conn = DatabaseHelper.getReadConnection()) {
+            // One read transaction, so the orders and the event id agree
+            conn.setAutoCommit(false);
+            try (java.sql.PreparedStatement pstmt = conn.prepareStatement(query);
+                    java.sql.ResultSet rs = pstmt.executeQuery()) {
+                readOrders(rs, loaded, null);
             }
+            lastEventId = ChangeFeed.latestEventId(conn);
+            conn.commit();
         } catch (Exception e) {
             e.printStackTrace();
         }
+        for (Order order : loaded) {
+            ordersById.put(order.getOrderId(), order);
+        }
+        lock.writeLock().lock();
+        try {
+            timeArrivals = false;
+            for (Order order : loaded) {
+                openLocally(order, order.getItems(), order.getStatus());
+            }
+        } finally {
+            timeArrivals = true;
+            lock.writeLock().unlock();
+        }
 
-        if (activeOrders.isEmpty()) {
+        if (loaded.isEmpty()) {
             initializeSampleData();
         }
+        return lastEventId;
+    }
+
+    /**
+     * Orders from rows of header and line columns, ordered by header. A
+     * header without lines (LEFT JOIN) gives an empty order.
+     *
+     * @param lineIds if not null, gets the highest line row id per order
+     */
+    private static void readOrders(java.sql.ResultSet rs, java.util.List<Order> orders,
+            java.util.Map<Long, Long> lineIds) throws java.sql.SQLException {
+        MenuService menu = MenuService.getInstance();
+        Order current = null;
+        while (rs.next()) {
+            long orderId = rs.getLong("order_id");
+            if (current == null || current.getOrderId() != orderId) {
+                current = new Order(orderId, rs.getString("table_name"), parseUtc(rs.getString("opened_at")));
+                current.setJournalSeq(rs.getLong("order_seq"));
+                String statusAt = rs.getString("status_at");
+                current.setStatus(OrderStatus.valueOf(rs.getString("status")),
+                        statusAt == null ? current.getOrderTime() : parseUtc(statusAt));
+                orders.add(current);
+            }
+            if (rs.getString("item_name") == null) {
+                continue;
+            }
+            String itemName = rs.getString("item_name");
+            OrderLine line = new OrderLine(
+                    itemName,
+                    null,
+                    rs.getString("size"),
+                    rs.getString("extras"),
+                    Money.ofMinor(rs.getLong("total_minor")),
+                    menu.getStation(itemName, null));
+            line.setJournalSeq(rs.getLong("line_seq"));
+            current.addItem(line);
+            if (lineIds != null) {
+                lineIds.merge(orderId, rs.getLong("line_id"), Math::max);
+            }
+        }
+    }
+
+    /**
+     * SQLite CURRENT_TIMESTAMP text (UTC) as local time.
+     */
+    private static java.time.LocalDateTime parseUtc(String timestamp) {
+        if (timestamp == null) {
+            return java.time.LocalDateTime.now();
+        }
+        try {
+            return java.time.LocalDateTime.parse(timestamp.replace(' ', 'T'))
+                    .atOffset(java.time.ZoneOffset.UTC)
+                    .atZoneSameInstant(java.time.ZoneId.systemDefault())
+                    .toLocalDateTime();
+        } catch (java.time.format.DateTimeParseException e) {
+            return java.time.LocalDateTime.now();
+        }
     }
 
     private void initializeSampleData() {
         // Sample orders for demonstration
-        addOrder(new Order("Table 5", "Achari Chicken", "Large", "Extra Cheese", "Rs. 1550"));
-        addOrder(new Order("Table 2", "Cheesy Sizzler", "", "None", "Rs. 780"));
-        addOrder(new Order("Table 8", "Coca Cola 500ml", "", "Cold", "Rs. 120"));
-        addOrder(new Order("Table 1", "Zinger Burger", "", "Cheese", "Rs. 550"));
+        placeOrder("Table 5", java.util.List.of(
+                new OrderLine("Achari Chicken", "Pizza", "Large", "Extra Cheese", Money.ofMajor(1550)),
+                new OrderLine("Mint Margarita", "Drinks", "", "Ice", Money.ofMajor(290))));
+        placeOrder("Table 2", java.util.List.of(
+                new OrderLine("Cheesy Sizzler", "Burger", "", "None", Money.ofMajor(780)),
+                new OrderLine("Coca Cola 500ml", "Drinks", "", "Cold", Money.ofMajor(120))));
+        placeOrder("Table 1", java.util.List.of(
+                new OrderLine("Zinger Burger", "Burger", "", "Cheese", Money.ofMajor(550))));
+        placeOrder("Table 3", java.util.List.of(
+                new OrderLine("Pepperoni Feast", "Pizza", "Medium", "None", Money.ofMajor(1300)),
+                new OrderLine("Chicken Nuggets (10pcs)", "Sides", "", "Sauce", Money.ofMajor(650))));
+    }
 
-        // Additional orders to fill rows
-        addOrder(new Order("Table 3", "Pepperoni Feast", "Medium", "None", "Rs. 1300"));
-        addOrder(new Order("Table 4", "Chicken Nuggets (10pcs)", "", "Sauce", "Rs. 650"));
-        addOrder(new Order("Table 6", "Mint Margarita", "", "Ice", "Rs. 290"));
+    /**
+     * Open a new order (table visit) with its first round of lines.
+     */
+    public Order placeOrder(String table, java.util.List<OrderLine> lines) {
+        if (hub != null) {
+            return hub.placeOrder(table, lines);
+        }
+        java.util.List<OrderLine> round = java.util.List.copyOf(lines);
+        Order order = new Order(table);
+        order.getItems().addAll(round); // Not shared yet, so safe off the FX thread
+
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                order.setJournalSeq(journal.appendOrder(table));
+            }
+            journalLines(order, round);
+            openLocally(order, round, OrderStatus.NEW);
+
+            String openedAt = EVENT_TIME.format(java.time.Instant.now());
+            writeQueue.submit(conn -> {
+                try (java.sql.PreparedStatement pstmt = conn.prepareStatement(INSERT_HEADER_SQL,
+                        java.sql.Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setString(1, order.getTableName());
+                    setSeq(pstmt, 2, order.getJournalSeq());
+                    pstmt.executeUpdate();
+
+                    try (java.sql.ResultSet keys = pstmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            order.setOrderId(keys.getLong(1));
+                            ordersById.put(order.getOrderId(), order);
+                        }
+                    }
+                }
+                try (java.sql.PreparedStatement event = conn.prepareStatement(INSERT_EVENT_SQL)) {
+                    addEvent(event, order.getOrderId(), null, OrderStatus.NEW, openedAt, order.getJournalSeq());
+                    event.executeBatch();
+                }
+                insertLines(conn, order, round);
+            });
+            checkpointWhenCommitted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return order;
     }
 
-    public void addOrder(Order order) {
-        activeOrders.add(order);
-        String sql = "INSERT INTO orders(table_name, item_name, size, extras, total_price, status) VALUES(?,?,?,?,?,'PENDING')";
+    /**
+     * Add another round of lines to an open order. An order already READY
+     * goes back to PREPARING for the new items.
+     *
+     * @return false if the order was closed in the meantime (e.g. served
+     *         from another terminal); nothing is added
+     */
+    public boolean addLines(Order order, java.util.List<OrderLine> lines) {
+        if (lines.isEmpty()) {
+            return true;
+        }
+        if (hub != null) {
+            long ticket = ticketOf(order);
+            return ticket != 0 && hub.addLines(ticket, lines);
+        }
+        java.util.List<OrderLine> round = java.util.List.copyOf(lines);
+        lock.writeLock().lock();
+        try {
+            OpenOrder open = openOrders.get(order);
+            if (open == null) {
+                return false;
+            }
+            journalLines(order, round);
+            addLocally(open, round);
 
-        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.connect();
-                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            // Queued behind the order's header INSERT, so its id is assigned by now
+            writeQueue.submit(conn -> insertLines(conn, order, round));
+            checkpointWhenCommitted();
 
-            pstmt.setString(1, order.getTable());
-            pstmt.setString(2, order.getItem());
-            pstmt.setString(3, order.getSize());
-            pstmt.setString(4, order.getExtras());
-            pstmt.setString(5, order.getTotal());
-            pstmt.executeUpdate();
+            if (open.status == OrderStatus.READY) {
+                advanceAll(java.util.List.of(order), OrderStatus.PREPARING);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * Add a round to the table's open order, or open one. Done under one
+     * lock, so two terminals ordering for the same table share an order.
+     * Delivery orders are always new.
+     */
+    public Order addToTable(String table, java.util.List<OrderLine> lines) {
+        if (hub != null) {
+            return hub.addToTable(table, lines);
+        }
+        lock.writeLock().lock();
+        try {
+            Order open = findOpenOrder(table);
+            if (open != null) {
+                addLines(open, lines);
+                return open;
+            }
+            return placeOrder(table, lines);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
-    public void removeOrder(Order order) {
-        activeOrders.remove(order);
-        // Best effort delete
-        String sql = "UPDATE orders SET status = 'COMPLETED' WHERE table_name=? AND item_name=? AND total_price=? AND status!='COMPLETED'";
-        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.connect();
-                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /**
+     * Once the journal has grown past JOURNAL_CHECKPOINT_BYTES, have the
+     * writer thread empty it after the writes queued so far commit. Caller
+     * holds the write lock and has queued the writes for everything it
+     * journaled, so they cover every record up to the current sequence. If
+     * more records arrive before then, or a write fails, the next write
+     * tries again.
+     */
+    private void checkpointWhenCommitted() {
+        if (journal == null || journal.getUsedBytes() < JOURNAL_CHECKPOINT_BYTES
+                || !checkpointQueued.compareAndSet(false, true)) {
+            return;
+        }
+        long upTo = journal.getLastSeq();
+        writeQueue.whenCommitted(committed -> {
+            checkpointQueued.set(false);
+            // After a failed batch its records stay until a later batch commits cleanly
+            if (committed) {
+                journal.checkpointIfAt(upTo);
+            }
+        });
+    }
 
-            pstmt.setString(1, order.getTable());
-            pstmt.setString(2, order.getItem());
-            pstmt.setString(3, order.getTotal());
-            pstmt.executeUpdate();
+    private void journalLines(Order order, java.util.List<OrderLine> lines) {
+        if (journal == null) {
+            return;
+        }
+        for (OrderLine line : lines) {
+            line.setJournalSeq(journal.appendLine(order.getJournalSeq(), order.getOrderId(), line.getItemName(),
+                    line.getSize(), line.getExtras(), line.getPrice().getMinorUnits()));
+        }
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * One batched INSERT per round, inside the caller's transaction.
+     */
+    private static void insertLines(java.sql.Connection conn, Order order, java.util.List<OrderLine> lines)
+            throws java.sql.SQLException {
+        try (java.sql.PreparedStatement pstmt = conn.prepareStatement(INSERT_LINE_SQL)) {
+            for (OrderLine line : lines) {
+                pstmt.setLong(1, order.getOrderId());
+                pstmt.setString(2, order.getTableName());
+                pstmt.setString(3, line.getItemName());
+                pstmt.setString(4, line.getSize());
+                pstmt.setString(5, line.getExtras());
+                pstmt.setString(6, line.getPrice().format());
+                pstmt.setLong(7, line.getPrice().getMinorUnits());
+                setSeq(pstmt, 8, line.getJournalSeq());
+                pstmt.setString(9, ChangeFeed.ORIGIN);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void setSeq(java.sql.PreparedStatement pstmt, int index, long seq) throws java.sql.SQLException {
+        if (seq != 0) {
+            pstmt.setLong(index, seq);
+        } else {
+            pstmt.setNull(index, java.sql.Types.INTEGER);
+        }
+    }
+
+    /**
+     * Move one order to a new state.
+     *
+     * @throws IllegalStateException if OrderStatus does not allow the transition
+     */
+    public void advance(Order order, OrderStatus target) {
+        if (advanceAll(java.util.List.of(order), target) == 0) {
+            throw new IllegalStateException("Order for " + order.getTableName() + " cannot go from "
+                    + getStatus(order) + " to " + target);
+        }
+    }
+
+    /**
+     * Move the active order with the given id to a new state.
+     *
+     * @return false if there is no such active order or the transition is not allowed
+     */
+    public boolean advance(long orderId, OrderStatus target) {
+        Order order = ordersById.get(orderId);
+        return order != null && advanceAll(java.util.List.of(order), target) == 1;
+    }
+
+    /**
+     * Move many orders to the same state in one queued write, so a kitchen
+     * bump of twenty tickets is one transaction. Orders that are closed or
+     * cannot make the transition are skipped.
+     *
+     * @return number of orders moved
+     */
+    public int advanceAll(java.util.Collection<Order> orders, OrderStatus target) {
+        if (hub != null) {
+            java.util.List<Long> tickets = new java.util.ArrayList<>();
+            for (Order order : orders) {
+                long ticket = ticketOf(order);
+                if (ticket != 0) {
+                    tickets.add(ticket);
+                }
+            }
+            return tickets.isEmpty() ? 0 : hub.advanceAll(tickets, target);
+        }
+        java.time.Instant now = java.time.Instant.now();
+        String at = EVENT_TIME.format(now);
+
+        lock.writeLock().lock();
+        try {
+            java.util.List<Order> moved = new java.util.ArrayList<>();
+            java.util.List<OrderStatus> previous = new java.util.ArrayList<>();
+            java.util.List<Long> seqs = new java.util.ArrayList<>();
+            for (Order order : orders) {
+                OpenOrder open = openOrders.get(order);
+                if (open == null || !open.status.canTransitionTo(target)) {
+                    continue;
+                }
+                seqs.add(journal == null ? 0 : journal.appendStatus(order.getJournalSeq(), order.getOrderId(), target.name()));
+                if (target.isTerminal() && order.hasOrderId()) {
+                    ordersById.remove(order.getOrderId());
+                }
+                previous.add(moveLocally(open, target, now));
+                moved.add(order);
+            }
+            if (moved.isEmpty()) {
+                return 0;
+            }
+
+            // Queued behind the orders' INSERTs, so their ids are assigned by now
+            writeQueue.submit(conn -> {
+                try (java.sql.PreparedStatement event = conn.prepareStatement(INSERT_EVENT_SQL);
+                        java.sql.PreparedStatement updateStatus = conn.prepareStatement(UPDATE_STATUS_SQL);
+                        java.sql.PreparedStatement closeLines = conn.prepareStatement(CLOSE_LINES_SQL)) {
+                    for (int i = 0; i < moved.size(); i++) {
+                        long orderId = moved.get(i).getOrderId();
+                        if (target.isTerminal()) {
+                            ordersById.remove(orderId);
+                        }
+                        addEvent(event, orderId, previous.get(i), target, at, seqs.get(i));
+                        applyStatus(updateStatus, closeLines, orderId, target, at);
+                    }
+                    event.executeBatch();
+                    updateStatus.executeBatch();
+                    closeLines.executeBatch();
+                }
+            });
+            checkpointWhenCommitted();
+            return moved.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bump every order still in the kitchen that contains the item, e.g.
+     * "all fries ready".
+     *
+     * @return number of orders moved
+     */
+    public int advanceItem(String itemName, OrderStatus target) {
+        if (hub != null) {
+            return hub.advanceItem(itemName, target);
+        }
+        lock.writeLock().lock();
+        try {
+            java.util.List<Order> matching = new java.util.ArrayList<>();
+            for (OrderStatus status : new OrderStatus[] { OrderStatus.NEW, OrderStatus.PREPARING }) {
+                for (Order order : ordersByState.get(status)) {
+                    if (openOrders.get(order).containsItem(itemName)) {
+                        matching.add(order);
+                    }
+                }
+            }
+            return advanceAll(matching, target);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record a newly open order in memory and tell the views and listeners.
+     * Caller holds the write lock; nothing is persisted here.
+     */
+    private OpenOrder openLocally(Order order, java.util.List<OrderLine> lines, OrderStatus status) {
+        return openLocally(nextTicket++, order, lines, status);
+    }
+
+    private OpenOrder openLocally(long ticket, Order order, java.util.List<OrderLine> lines, OrderStatus status) {
+        // Only orders seen arriving are timed; one already under way has an unknown start
+        OpenOrder open = new OpenOrder(ticket, order, lines, status,
+                status == OrderStatus.NEW && timeArrivals ? System.nanoTime() : 0);
+        openOrders.put(order, open);
+        openTickets.put(ticket, open);
+        ordersByState.get(status).add(order);
+        boolean occupied = adjustTableCount(order.getTableName(), 1);
+        java.util.Map<Station, Long> priority = status == OrderStatus.NEW || status == OrderStatus.PREPARING
+                ? schedule(ticket, open.lines,
+                        order.getOrderTime().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli())
+                : java.util.Map.of();
+        FxThread.run(() -> {
+            kitchenPriority(order).clear();
+            kitchenPriority(order).putAll(priority);
+            activeOrders.add(order);
+            stateQueues.get(status).add(order);
+            occupancy.set(order.getTableNumber(), occupied);
+        });
+        java.util.List<OrderLine> snapshot = java.util.List.copyOf(open.lines);
+        for (Listener listener : listeners) {
+            listener.orderOpened(ticket, order, snapshot, status);
+        }
+        if (hub != null) {
+            outsideChanges.incrementAndGet();
+        }
+        return open;
+    }
+
+    /**
+     * Caller holds the write lock.
+     */
+    private void addLocally(OpenOrder open, java.util.List<OrderLine> round) {
+        open.addLines(round, System.nanoTime());
+        java.util.Map<Station, Long> priority = schedule(open.ticket, round, System.currentTimeMillis());
+        FxThread.run(() -> {
+            java.util.Map<Station, Long> best = kitchenPriority.get(open.order);
+            if (best != null) {
+                priority.forEach((station, key) -> best.merge(station, key, Math::min));
+            }
+            open.order.getItems().addAll(round);
+        });
+        for (Listener listener : listeners) {
+            listener.linesAdded(open.ticket, round);
+        }
+        if (hub != null) {
+            outsideChanges.incrementAndGet();
+        }
+    }
+
+    /**
+     * Caller holds the write lock and has checked the transition.
+     *
+     * @return the previous state
+     */
+    private OrderStatus moveLocally(OpenOrder open, OrderStatus target, java.time.Instant at) {
+        Order order = open.order;
+        OrderStatus from = open.status;
+        recordLatency(open, target, at);
+        ordersByState.get(from).remove(order);
+        open.status = target;
+        boolean occupied = true;
+        if (target.isTerminal()) {
+            openOrders.remove(order);
+            openTickets.remove(open.ticket);
+            occupied = adjustTableCount(order.getTableName(), -1);
+        } else {
+            ordersByState.get(target).add(order);
+        }
+        boolean cooked = target == OrderStatus.READY || target.isTerminal();
+        if (cooked) {
+            scheduler.cancel(open.ticket);
+        }
+
+        boolean stillOccupied = occupied;
+        java.time.LocalDateTime changedAt = java.time.LocalDateTime.ofInstant(at, java.time.ZoneId.systemDefault());
+        FxThread.run(() -> {
+            stateQueues.get(from).remove(order);
+            order.setStatus(target, changedAt);
+            if (cooked) {
+                kitchenPriority.get(order).clear();
+            }
+            if (target.isTerminal()) {
+                kitchenPriority.remove(order);
+                activeOrders.remove(order);
+                occupancy.set(order.getTableNumber(), stillOccupied);
+            } else {
+                stateQueues.get(target).add(order);
+            }
+        });
+        for (Listener listener : listeners) {
+            listener.statusChanged(open.ticket, target, at);
+        }
+        if (hub != null) {
+            outsideChanges.incrementAndGet();
+        }
+        return from;
+    }
+
+    /**
+     * Queue a round at the kitchen scheduler, promised from when it arrived.
+     *
+     * @return the round's best priority at each station it goes to
+     */
+    private java.util.Map<Station, Long> schedule(long ticket, java.util.List<OrderLine> round, long arrivedAt) {
+        java.util.Map<Station, Long> best = new java.util.EnumMap<>(Station.class);
+        for (KitchenScheduler.Job job : scheduler.submit(ticket, round, arrivedAt, scheduler.promise(round, arrivedAt))) {
+            best.merge(job.getStation(), scheduler.priorityOf(job), Math::min);
+        }
+        return best;
+    }
+
+    /**
+     * The order's kitchen priorities, made empty on first use. FX thread.
+     */
+    private ObservableMap<Station, Long> kitchenPriority(Order order) {
+        return kitchenPriority.computeIfAbsent(order,
+                o -> FXCollections.observableMap(new java.util.EnumMap<>(Station.class)));
+    }
+
+    private static KitchenScheduler.Policy kitchenPolicy(java.util.Properties config) {
+        String policy = config.getProperty("kitchen.policy", "FIFO").trim();
+        try {
+            return KitchenScheduler.Policy.valueOf(policy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown kitchen.policy '" + policy + "', using FIFO");
+            return KitchenScheduler.Policy.FIFO;
+        }
+    }
+
+    /**
+     * Time the stage the order is leaving and, when it becomes ready, each
+     * line's and the round's wait from arrival. Caller holds the write lock.
+     */
+    private void recordLatency(OpenOrder open, OrderStatus target, java.time.Instant at) {
+        long now = System.nanoTime();
+        if (open.stageNanos != 0) {
+            latency.record("Time in " + open.status.getDisplayName(), LatencyStats.Group.ALL, "All",
+                    now - open.stageNanos);
+        }
+        open.stageNanos = now;
+        if (target != OrderStatus.READY) {
+            return;
+        }
+        long roundNanos = 0;
+        for (int i = open.readyLines; i < open.lines.size(); i++) {
+            long arrived = open.lineNanos.get(i);
+            if (arrived == 0) {
+                continue;
+            }
+            OrderLine line = open.lines.get(i);
+            latency.record(LatencyStats.LINE_TO_READY, LatencyStats.Group.STATION,
+                    line.getStation().getDisplayName(), now - arrived);
+            latency.record(LatencyStats.LINE_TO_READY, LatencyStats.Group.ITEM, line.getItemName(), now - arrived);
+            if (roundNanos == 0) {
+                roundNanos = arrived;
+            }
+        }
+        open.readyLines = open.lines.size();
+        if (roundNanos != 0) {
+            int hour = java.time.LocalDateTime.ofInstant(at, java.time.ZoneId.systemDefault()).getHour();
+            latency.record(LatencyStats.ORDER_TO_READY, LatencyStats.Group.ALL, "All", now - roundNanos);
+            latency.record(LatencyStats.ORDER_TO_READY, LatencyStats.Group.HOUR, String.format("%02d:00", hour),
+                    now - roundNanos);
+        }
+    }
+
+    /**
+     * Register a listener. It is first told about every open order (as
+     * orderOpened calls), then about each later change; both happen under
+     * the service lock, so nothing is missed or reported twice.
+     */
+    public void addListener(Listener listener) {
+        lock.writeLock().lock();
+        try {
+            for (OpenOrder open : openOrders.values()) {
+                listener.orderOpened(open.ticket, open.order, java.util.List.copyOf(open.lines), open.status);
+            }
+            listeners.add(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * The open order with the given ticket, or null.
+     */
+    public Order findByTicket(long ticket) {
+        lock.readLock().lock();
+        try {
+            OpenOrder open = openTickets.get(ticket);
+            return open == null ? null : open.order;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ticket of an open order, or 0 once it is closed.
+     */
+    public long ticketOf(Order order) {
+        lock.readLock().lock();
+        try {
+            OpenOrder open = openOrders.get(order);
+            return open == null ? 0 : open.ticket;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Service time histograms of the orders this process has seen.
+     */
+    public LatencyStats getLatencyStats() {
+        return latency;
+    }
+
+    /**
+     * In hub client mode, wait until the hub's snapshot has arrived, e.g.
+     * before a tool places orders. Views need not: they fill in as it does.
+     *
+     * @return false if the timeout elapsed first; true when not a hub client
+     */
+    public boolean awaitHubSync(long timeoutMs) {
+        return hub == null || hub.awaitSync(timeoutMs);
+    }
+
+    /**
+     * Memoized results of the analytics queries below.
+     */
+    public AnalyticsCache getAnalytics() {
+        return analytics;
+    }
+
+    /**
+     * Goes up once order changes have reached the database: when our own
+     * writes commit, or when the feed or hub brings in others'.
+     */
+    private long getDataVersion() {
+        return writeQueue.getStats().getWritesCompleted() + outsideChanges.get();
+    }
+
+    /**
+     * The hub this service hosts, or null when not in hub server mode.
+     */
+    public OrderHubServer getHubServer() {
+        return hubServer;
+    }
+
+    private ChangeFeed startFeed(java.util.Properties config, long lastEventId) {
+        if (!Boolean.parseBoolean(config.getProperty("feed.enabled", "true").trim())) {
+            return null;
+        }
+        try {
+            ChangeFeed started = ChangeFeed.start(lastEventId,
+                    Long.parseLong(config.getProperty("feed.pollMs", "250").trim()));
+            started.subscribe(this::applyFeed);
+            // Registered before the pool closes, after the queued writes
+            DatabaseHelper.addShutdownHook(started::close);
+            return started;
+        } catch (java.sql.SQLException e) {
+            System.err.println("Change feed unavailable, other terminals' changes will not show: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // --- Changes committed by other processes, applied from the change feed ---
+
+    /**
+     * Apply the events other writers committed, in order. Orders they opened
+     * are read with their lines and lines they added are read by row id,
+     * both before taking the lock; status changes are in the events. Runs on
+     * the feed thread.
+     */
+    private void applyFeed(java.util.List<ChangeFeed.Event> events) {
+        java.util.List<ChangeFeed.Event> foreign = new java.util.ArrayList<>();
+        java.util.Set<Long> openedIds = new java.util.HashSet<>();
+        java.util.Set<Long> lineIds = new java.util.HashSet<>();
+        for (ChangeFeed.Event event : events) {
+            if (event.isOwn()) {
+                continue;
+            }
+            foreign.add(event);
+            if (event.isLine()) {
+                lineIds.add(event.getLineId());
+            } else if (event.getFromStatus() == null) {
+                openedIds.add(event.getOrderId());
+            }
+        }
+        if (foreign.isEmpty()) {
+            return;
+        }
+        outsideChanges.addAndGet(foreign.size());
+
+        java.util.Map<Long, Order> opened = new java.util.HashMap<>();
+        java.util.Map<Long, Long> openedLineIds = new java.util.HashMap<>();
+        java.util.Map<Long, OrderLine> lines = new java.util.HashMap<>();
+        try {
+            readFeedOrders(openedIds, opened, openedLineIds);
+            readFeedLines(lineIds, lines);
+        } catch (java.sql.SQLException e) {
+            System.err.println("Change feed could not read orders: " + e.getMessage());
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (ChangeFeed.Event event : foreign) {
+                long orderId = event.getOrderId();
+                Order known = ordersById.get(orderId);
+                OpenOrder open = known == null ? null : openOrders.get(known);
+                if (event.isLine()) {
+                    OrderLine line = lines.get(event.getLineId());
+                    if (open != null && line != null && event.getLineId() > feedLineIds.getOrDefault(orderId, 0L)) {
+                        addLocally(open, java.util.List.of(line));
+                    }
+                } else if (event.getFromStatus() == null) {
+                    // Opened elsewhere; skipped if already closed when read
+                    Order order = opened.get(orderId);
+                    if (known == null && order != null) {
+                        ordersById.put(orderId, order);
+                        feedLineIds.put(orderId, openedLineIds.getOrDefault(orderId, 0L));
+                        openLocally(order, java.util.List.copyOf(order.getItems()), OrderStatus.NEW);
+                    }
+                } else if (open != null) {
+                    OrderStatus target = OrderStatus.valueOf(event.getToStatus());
+                    if (open.status != target && open.status.canTransitionTo(target)) {
+                        if (target.isTerminal()) {
+                            ordersById.remove(orderId);
+                            feedLineIds.remove(orderId);
+                        }
+                        moveLocally(open, target, parseEventTime(event.getAt()));
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The still open orders among the given ids, with their lines so far.
+     */
+    private static void readFeedOrders(java.util.Set<Long> ids, java.util.Map<Long, Order> orders,
+            java.util.Map<Long, Long> lineIds) throws java.sql.SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String query = "SELECT h.id AS order_id, h.table_name, h.opened_at, h.journal_seq AS order_seq, 'NEW' AS status, "
+                + "h.opened_at AS status_at, l.id AS line_id, l.item_name, l.size, l.extras, l.total_minor, "
+                + "l.journal_seq AS line_seq "
+                + "FROM order_headers h LEFT JOIN orders l ON l.order_id = h.id "
+                + "WHERE h.id IN (" + placeholders(ids.size()) + ") AND h.status IN ('NEW', 'PREPARING', 'READY') "
+                + "ORDER BY h.id, l.id";
+        java.util.List<Order> read = new java.util.ArrayList<>();
+        try (java.sql.Connection conn = DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(query)) {
+            bindIds(pstmt, ids);
+            try (java.sql.ResultSet rs = pstmt.executeQuery()) {
+                readOrders(rs, read, lineIds);
+            }
+        }
+        for (Order order : read) {
+            orders.put(order.getOrderId(), order);
+        }
+    }
+
+    private static void readFeedLines(java.util.Set<Long> ids, java.util.Map<Long, OrderLine> lines)
+            throws java.sql.SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String query = "SELECT id, item_name, size, extras, total_minor, journal_seq FROM orders WHERE id IN ("
+                + placeholders(ids.size()) + ")";
+        try (java.sql.Connection conn = DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(query)) {
+            bindIds(pstmt, ids);
+            try (java.sql.ResultSet rs = pstmt.executeQuery()) {
+                MenuService menu = MenuService.getInstance();
+                while (rs.next()) {
+                    String itemName = rs.getString("item_name");
+                    OrderLine line = new OrderLine(itemName, null, rs.getString("size"), rs.getString("extras"),
+                            Money.ofMinor(rs.getLong("total_minor")), menu.getStation(itemName, null));
+                    line.setJournalSeq(rs.getLong("journal_seq"));
+                    lines.put(rs.getLong("id"), line);
+                }
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", java.util.Collections.nCopies(count, "?"));
+    }
+
+    private static void bindIds(java.sql.PreparedStatement pstmt, java.util.Collection<Long> ids)
+            throws java.sql.SQLException {
+        int index = 1;
+        for (long id : ids) {
+            pstmt.setLong(index++, id);
         }
     }
 
+    private static java.time.Instant parseEventTime(String at) {
+        try {
+            return java.time.Instant.from(EVENT_TIME.parse(at));
+        } catch (RuntimeException e) {
+            return java.time.Instant.now();
+        }
+    }
+
+    // --- Hub replica updates, applied by OrderHubClient as the hub reports them ---
+
+    /**
+     * An order the hub reports open. After a reconnect, a replica already
+     * held for the ticket is kept, and caught up, if it is the same order;
+     * views go on showing the same Order object.
+     */
+    void replicaOpened(long ticket, String table, java.time.LocalDateTime openedAt, OrderStatus status,
+            java.util.List<OrderLine> lines) {
+        Order order = new Order(0, table, openedAt);
+        order.getItems().addAll(lines); // Not shared yet, so safe off the FX thread
+        order.setStatus(status, openedAt);
+        lock.writeLock().lock();
+        try {
+            OpenOrder known = openTickets.get(ticket);
+            if (known != null && resyncing.remove(ticket)) {
+                // Tickets restart with the hub, so check it is the order we had
+                if (known.order.getTableName().equals(table) && known.order.getOrderTime().equals(openedAt)
+                        && known.lines.size() <= lines.size()) {
+                    if (lines.size() > known.lines.size()) {
+                        addLocally(known, java.util.List.copyOf(lines.subList(known.lines.size(), lines.size())));
+                    }
+                    if (known.status != status) {
+                        moveLocally(known, status, java.time.Instant.now());
+                    }
+                    return;
+                }
+                dropLocally(known);
+                known = null;
+            }
+            if (known == null) {
+                openLocally(ticket, order, lines, status);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void replicaLines(long ticket, java.util.List<OrderLine> lines) {
+        lock.writeLock().lock();
+        try {
+            OpenOrder open = openTickets.get(ticket);
+            if (open != null) {
+                addLocally(open, lines);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void replicaStatus(long ticket, OrderStatus status, java.time.Instant at) {
+        lock.writeLock().lock();
+        try {
+            OpenOrder open = openTickets.get(ticket);
+            if (open != null && open.status != status) {
+                moveLocally(open, status, at);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The hub is about to send a fresh snapshot: every replicated order is
+     * in doubt until the snapshot confirms it (see replicaSynced).
+     */
+    void replicaResync() {
+        lock.writeLock().lock();
+        try {
+            resyncing.clear();
+            resyncing.addAll(openTickets.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The snapshot is complete. Orders it did not mention were closed while
+     * we were away; they are dropped, not moved, since how they closed and
+     * when is not known.
+     */
+    void replicaSynced() {
+        lock.writeLock().lock();
+        try {
+            for (long ticket : resyncing) {
+                OpenOrder open = openTickets.get(ticket);
+                if (open != null) {
+                    dropLocally(open);
+                }
+            }
+            resyncing.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forget an open order without a transition: nothing is timed, the
+     * Order keeps its status and listeners are not told. Caller holds the
+     * write lock.
+     */
+    private void dropLocally(OpenOrder open) {
+        Order order = open.order;
+        OrderStatus from = open.status;
+        ordersByState.get(from).remove(order);
+        openOrders.remove(order);
+        openTickets.remove(open.ticket);
+        boolean occupied = adjustTableCount(order.getTableName(), -1);
+        scheduler.cancel(open.ticket);
+        FxThread.run(() -> {
+            stateQueues.get(from).remove(order);
+            activeOrders.remove(order);
+            kitchenPriority.remove(order);
+            occupancy.set(order.getTableNumber(), occupied);
+        });
+    }
+
+    private static void addEvent(java.sql.PreparedStatement event, long orderId, OrderStatus from, OrderStatus to,
+            String at, long journalSeq) throws java.sql.SQLException {
+        event.setLong(1, orderId);
+        event.setString(2, from == null ? null : from.name());
+        event.setString(3, to.name());
+        event.setString(4, at);
+        setSeq(event, 5, journalSeq);
+        event.setString(6, ChangeFeed.ORIGIN);
+        event.addBatch();
+    }
+
+    /**
+     * Open orders currently in the given state, oldest first, for the FX
+     * thread. Read-only; use advance() to move orders between states.
+     */
+    public ObservableList<Order> getOrders(OrderStatus status) {
+        ObservableList<Order> queue = stateQueues.get(status);
+        return queue == null
+                ? FXCollections.emptyObservableList()
+                : FXCollections.unmodifiableObservableList(queue);
+    }
+
+    /**
+     * Copy of the open orders in the given state, oldest first, for any thread.
+     */
+    public java.util.List<Order> getOrdersSnapshot(OrderStatus status) {
+        lock.readLock().lock();
+        try {
+            java.util.Set<Order> orders = ordersByState.get(status);
+            return orders == null ? java.util.List.of() : java.util.List.copyOf(orders);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Open orders in the given state with at least one line for the station,
+     * oldest first, for the FX thread. Orders are tested by their station
+     * set, so keeping the list filtered costs nothing per line; an order
+     * joins when a line for the station is added.
+     */
+    public ObservableList<Order> getOrders(OrderStatus status, Station station) {
+        ObservableList<Order> queue = stateQueues.get(status);
+        if (queue == null) {
+            return FXCollections.emptyObservableList();
+        }
+        return stationQueues.computeIfAbsent(status, s -> new java.util.EnumMap<>(Station.class))
+                .computeIfAbsent(station, s -> FXCollections.unmodifiableObservableList(
+                        new FilteredList<>(queue, order -> order.goesTo(station))));
+    }
+
+    /**
+     * Order for the kitchen screens, on the FX thread: tickets with the line
+     * the kitchen scheduler would start first, at the station or at any
+     * station when null, come first; tickets with nothing queued there go
+     * last. Ties go to the older order.
+     */
+    public java.util.Comparator<Order> kitchenOrder(Station station) {
+        java.util.function.ToLongFunction<Order> priority = order -> {
+            java.util.Map<Station, Long> best = kitchenPriority.get(order);
+            if (best == null || best.isEmpty()) {
+                return Long.MAX_VALUE;
+            }
+            return station == null ? java.util.Collections.min(best.values())
+                    : best.getOrDefault(station, Long.MAX_VALUE);
+        };
+        return java.util.Comparator.comparingLong(priority).thenComparing(Order::getOrderTime);
+    }
+
+    /**
+     * Copy of the open orders in the given state with a line for the
+     * station, oldest first, for any thread.
+     */
+    public java.util.List<Order> getOrdersSnapshot(OrderStatus status, Station station) {
+        lock.readLock().lock();
+        try {
+            java.util.Set<Order> orders = ordersByState.get(status);
+            if (orders == null) {
+                return java.util.List.of();
+            }
+            java.util.List<Order> routed = new java.util.ArrayList<>();
+            for (Order order : orders) {
+                if (openOrders.get(order).stations.contains(station)) {
+                    routed.add(order);
+                }
+            }
+            return routed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy of all open orders, oldest first, for any thread.
+     */
+    public java.util.List<Order> getActiveOrdersSnapshot() {
+        lock.readLock().lock();
+        try {
+            return java.util.List.copyOf(openOrders.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Current state of an order as the service sees it; the Order's own
+     * status property may trail it until the FX thread catches up.
+     */
+    public OrderStatus getStatus(Order order) {
+        lock.readLock().lock();
+        try {
+            OpenOrder open = openOrders.get(order);
+            return open == null ? order.getStatus() : open.status;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The open order for a table, or null. Delivery orders are never reused.
+     */
+    public Order findOpenOrder(String table) {
+        lock.readLock().lock();
+        try {
+            if (TableOccupancy.tableNumber(table) == 0 || !tableOrderCounts.containsKey(table)) {
+                return null;
+            }
+            for (Order order : openOrders.keySet()) {
+                if (order.getTableName().equals(table)) {
+                    return order;
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Order findOrder(long orderId) {
+        return ordersById.get(orderId);
+    }
+
+    /**
+     * Block until all queued order writes are committed.
+     */
+    public boolean flushWrites(long timeoutMs) {
+        return writeQueue.flush(timeoutMs);
+    }
+
+    public WriteBehindQueue.Stats getWriteStats() {
+        return writeQueue.getStats();
+    }
+
+    /**
+     * Caller holds the write lock.
+     *
+     * @return whether the table still has an active order
+     */
+    private boolean adjustTableCount(String table, int delta) {
+        Integer count = tableOrderCounts.merge(table, delta, Integer::sum);
+        if (count <= 0) {
+            tableOrderCounts.remove(table);
+        }
+        return count > 0;
+    }
+
+    /**
+     * Copy of the tables that have at least one active order.
+     */
     public java.util.Set<String> getOccupiedTables() {
-        return activeOrders.stream()
-                .map(Order::getTable)
-                .collect(java.util.stream.Collectors.toSet());
+        lock.readLock().lock();
+        try {
+            return java.util.Set.copyOf(tableOrderCounts.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
+    public boolean isTableOccupied(String table) {
+        lock.readLock().lock();
+        try {
+            return tableOrderCounts.containsKey(table);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getActiveOrderCount(String table) {
+        lock.readLock().lock();
+        try {
+            return tableOrderCounts.getOrDefault(table, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Occupied dine-in tables as an observable bitset, for views that update
+     * by diff. Changes are reported on the FX thread.
+     */
+    public TableOccupancy getTableOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * Open orders for the FX thread; see getActiveOrdersSnapshot() elsewhere.
+     */
     public ObservableList<Order> getActiveOrders() {
         return activeOrders;
     }
     // --- Analytics Methods ---
+    // Read from the trigger-maintained rollup tables (see SalesRollups), so
+    // cost grows with the number of items/hours/days, not with order history.
 
     public java.util.Map<String, Integer> getSalesByItemStats() {
         java.util.Map<String, Integer> stats = new java.util.HashMap<>();
-        String sql = "SELECT item_name, COUNT(*) as count FROM orders GROUP BY item_name";
+        String sql = "SELECT item_name, order_count FROM sales_by_item";
 
-        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.connect();
-                java.sql.Statement stmt = conn.createStatement();
-                java.sql.ResultSet rs = stmt.executeQuery(sql)) {
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql);
+                java.sql.ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                stats.put(rs.getString("item_name"), rs.getInt("count"));
+                stats.put(rs.getString("item_name"), rs.getInt("order_count"));
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -127,27 +1597,115 @@ public class OrderService {
         return stats;
     }
 
-    public double getTotalRevenue() {
-        double totalRevenue = 0;
-        String sql = "SELECT total_price FROM orders";
+    public java.util.Map<String, Money> getRevenueByItem() {
+        java.util.Map<String, Money> revenue = new java.util.HashMap<>();
+        String sql = "SELECT item_name, total_minor FROM sales_by_item";
 
-        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.connect();
-                java.sql.Statement stmt = conn.createStatement();
-                java.sql.ResultSet rs = stmt.executeQuery(sql)) {
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql);
+                java.sql.ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                String priceStr = rs.getString("total_price");
-                // Remove "Rs. " prefix and non-numeric characters except decimal point
-                if (priceStr != null) {
-                    priceStr = priceStr.replaceAll("[^0-9.]", "");
-                    if (!priceStr.isEmpty()) {
-                        totalRevenue += Double.parseDouble(priceStr);
-                    }
+                revenue.put(rs.getString("item_name"), Money.ofMinor(rs.getLong("total_minor")));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return revenue;
+    }
+
+    /**
+     * Revenue per calendar day (yyyy-MM-dd), oldest first.
+     */
+    public java.util.Map<String, Money> getRevenueByDay() {
+        java.util.Map<String, Money> revenue = new java.util.LinkedHashMap<>();
+        String sql = "SELECT day, total_minor FROM sales_by_day ORDER BY day";
+
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql);
+                java.sql.ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                revenue.put(rs.getString("day"), Money.ofMinor(rs.getLong("total_minor")));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return revenue;
+    }
+
+    /**
+     * Orders placed per hour bucket (yyyy-MM-dd HH:00) for the given day.
+     */
+    public java.util.Map<String, Integer> getOrdersByHour(java.time.LocalDate day) {
+        java.util.Map<String, Integer> counts = new java.util.LinkedHashMap<>();
+        String sql = "SELECT hour, order_count FROM sales_by_hour WHERE hour >= ? AND hour < ? ORDER BY hour";
+
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, day.toString());
+            pstmt.setString(2, day.plusDays(1).toString());
+            try (java.sql.ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getString("hour"), rs.getInt("order_count"));
                 }
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
-        return totalRevenue;
+        return counts;
+    }
+
+    public Money getTotalRevenue() {
+        String sql = "SELECT COALESCE(SUM(total_minor), 0) FROM sales_by_day";
+
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql);
+                java.sql.ResultSet rs = pstmt.executeQuery()) {
+
+            if (rs.next()) {
+                return Money.ofMinor(rs.getLong(1));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return Money.ZERO;
+    }
+
+    /**
+     * Number of served orders (table visits) and their average value, from
+     * the served orders rollup rather than the order headers.
+     */
+    public long getServedOrderCount() {
+        String sql = "SELECT order_count FROM served_orders WHERE id = 1";
+
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql);
+                java.sql.ResultSet rs = pstmt.executeQuery()) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    public Money getAverageOrderValue() {
+        String sql = "SELECT order_count, total_minor FROM served_orders WHERE id = 1";
+
+        try (java.sql.Connection conn = com.mycompany.restaurant.utils.DatabaseHelper.getReadConnection();
+                java.sql.PreparedStatement pstmt = conn.prepareStatement(sql);
+                java.sql.ResultSet rs = pstmt.executeQuery()) {
+
+            if (rs.next() && rs.getLong("order_count") > 0) {
+                return Money.ofMinor(Math.round(rs.getLong("total_minor") / (double) rs.getLong("order_count")));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return Money.ZERO;
     }
 }
@@ -0,0 +1,244 @@
+package com.mycompany.restaurant.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * ChangeFeed - Publishes order changes committed by any connection or
+ * process, in the order of their order_events ids.
+ *
+ * A dedicated read connection polls PRAGMA data_version, which only moves
+ * when another connection commits, so an idle database costs one pragma
+ * per poll. When it moves, only the events past the last id seen are
+ * read. (SQLite's update hook is no use here: it only reports changes made
+ * on the connection it is registered with.)
+ *
+ * Subscribers are called on the feed thread, one batch at a time.
+ */
+public class ChangeFeed implements AutoCloseable {
+
+    /**
+     * Written to order_events.origin and orders.origin by this process, so
+     * subscribers can tell their own changes from everyone else's.
+     */
+    public static final String ORIGIN = UUID.randomUUID().toString();
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String EVENTS_SQL = "SELECT id, order_id, kind, from_status, to_status, at, line_id, origin "
+            + "FROM order_events WHERE id > ? ORDER BY id LIMIT " + BATCH_SIZE;
+
+    /**
+     * One row of order_events.
+     */
+    public static final class Event {
+        private final long id;
+        private final long orderId;
+        private final String kind;
+        private final String fromStatus;
+        private final String toStatus;
+        private final String at;
+        private final long lineId;
+        private final String origin;
+
+        Event(long id, long orderId, String kind, String fromStatus, String toStatus, String at, long lineId,
+                String origin) {
+            this.id = id;
+            this.orderId = orderId;
+            this.kind = kind;
+            this.fromStatus = fromStatus;
+            this.toStatus = toStatus;
+            this.at = at;
+            this.lineId = lineId;
+            this.origin = origin;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getOrderId() {
+            return orderId;
+        }
+
+        public boolean isLine() {
+            return "LINE".equals(kind);
+        }
+
+        /**
+         * Null when the event opened the order.
+         */
+        public String getFromStatus() {
+            return fromStatus;
+        }
+
+        public String getToStatus() {
+            return toStatus;
+        }
+
+        /**
+         * UTC, yyyy-MM-dd HH:mm:ss.SSS.
+         */
+        public String getAt() {
+            return at;
+        }
+
+        /**
+         * The orders row a LINE event added, otherwise 0.
+         */
+        public long getLineId() {
+            return lineId;
+        }
+
+        public boolean isOwn() {
+            return ORIGIN.equals(origin);
+        }
+
+        @Override
+        public String toString() {
+            return "#" + id + " order " + orderId + " " + kind + " " + fromStatus + "->" + toStatus;
+        }
+    }
+
+    private final Connection conn;
+    private final ScheduledExecutorService timer;
+    private final List<Consumer<List<Event>>> subscribers = new CopyOnWriteArrayList<>();
+
+    // Only touched on the feed thread
+    private long lastId;
+    private long dataVersion = -1;
+    private long polls;
+    private long reads;
+    private long published;
+
+    private ChangeFeed(Connection conn, long afterId) {
+        this.conn = conn;
+        this.lastId = afterId;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start polling every pollMs for events after the given id.
+     */
+    public static ChangeFeed start(long afterId, long pollMs) throws SQLException {
+        ChangeFeed feed = new ChangeFeed(DatabaseHelper.openDedicatedReader(), afterId);
+        feed.timer.scheduleWithFixedDelay(feed::poll, pollMs, pollMs, TimeUnit.MILLISECONDS);
+        return feed;
+    }
+
+    /**
+     * Id of the newest event, to start a feed after state loaded from the
+     * same snapshot.
+     */
+    public static long latestEventId(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM order_events");
+                ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    public void subscribe(Consumer<List<Event>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<List<Event>> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    private void poll() {
+        try {
+            polls++;
+            long version = readDataVersion();
+            if (version == dataVersion) {
+                return;
+            }
+            dataVersion = version;
+            List<Event> batch;
+            do {
+                batch = readEvents();
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).getId();
+                    published += batch.size();
+                    publish(batch);
+                }
+            } while (batch.size() == BATCH_SIZE);
+        } catch (SQLException e) {
+            // Read again from the same id next time
+            dataVersion = -1;
+            System.err.println("Change feed poll failed: " + e.getMessage());
+        }
+    }
+
+    private long readDataVersion() throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("PRAGMA data_version")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private List<Event> readEvents() throws SQLException {
+        reads++;
+        List<Event> batch = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(EVENTS_SQL)) {
+            pstmt.setLong(1, lastId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    batch.add(new Event(rs.getLong("id"), rs.getLong("order_id"), rs.getString("kind"),
+                            rs.getString("from_status"), rs.getString("to_status"), rs.getString("at"),
+                            rs.getLong("line_id"), rs.getString("origin")));
+                }
+            }
+        }
+        return batch;
+    }
+
+    private void publish(List<Event> batch) {
+        List<Event> events = List.copyOf(batch);
+        for (Consumer<List<Event>> subscriber : subscribers) {
+            try {
+                subscriber.accept(events);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stop polling. Events already published stay applied.
+     */
+    @Override
+    public void close() {
+        timer.shutdown();
+        try {
+            timer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing change feed connection: " + e.getMessage());
+        }
+        System.out.println("Change feed: " + this);
+    }
+
+    @Override
+    public String toString() {
+        return polls + " polls, " + reads + " event reads, " + published + " events published, last id " + lastId;
+    }
+}
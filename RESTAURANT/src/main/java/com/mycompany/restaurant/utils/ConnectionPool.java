@@ -0,0 +1,447 @@
+package com.mycompany.restaurant.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ConnectionPool - Bounded pool of long-lived SQLite connections.
+ * SQLite only allows one writer at a time, so all writes share a single
+ * dedicated connection while reads are spread over a fixed set of readers.
+ * Connections handed out are wrappers: closing them returns the underlying
+ * connection to the pool instead of closing the file, and their
+ * prepareStatement(sql) is served from a per-connection StatementCache.
+ */
+public class ConnectionPool {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final StorageProfile profile;
+    private final int readerCount;
+    private final long acquireTimeoutMs;
+    private final int statementCacheSize;
+
+    // A permit rather than a lock: the borrower may hand the writer back from another thread
+    private final Semaphore writerPermit = new Semaphore(1, true);
+    private volatile Thread writerOwner;
+    private Connection writer;
+    private final BlockingQueue<Connection> idleReaders;
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder replacedConnections = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * @param statementCacheSize prepared statements cached per connection; 0 disables caching
+     */
+    public ConnectionPool(String url, StorageProfile profile, int readerCount, long acquireTimeoutMs,
+            int statementCacheSize) throws SQLException {
+        if (readerCount < 1) {
+            throw new IllegalArgumentException("Pool needs at least one reader connection");
+        }
+        this.url = url;
+        this.profile = profile;
+        this.readerCount = readerCount;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.statementCacheSize = statementCacheSize;
+        this.idleReaders = new ArrayBlockingQueue<>(readerCount);
+
+        writer = open(false);
+        for (int i = 0; i < readerCount; i++) {
+            idleReaders.add(open(true));
+        }
+    }
+
+    /**
+     * Borrow the writer connection. Not re-entrant: a thread that already
+     * holds it must pass its connection down instead of borrowing again,
+     * since a nested commit or rollback would end the outer transaction.
+     */
+    public Connection acquireWriter() throws SQLException {
+        ensureOpen();
+        if (writerOwner == Thread.currentThread()) {
+            throw new SQLException("Writer connection is already held by this thread");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = writerPermit.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for writer connection", e);
+        }
+        recordWait(start, acquired);
+        if (!acquired) {
+            throw new SQLException("Timed out after " + acquireTimeoutMs + " ms waiting for writer connection");
+        }
+
+        try {
+            writer = validate(writer, false);
+        } catch (SQLException e) {
+            writerPermit.release();
+            throw e;
+        }
+        writerOwner = Thread.currentThread();
+        return wrap(writer, cacheFor(writer), this::releaseWriter);
+    }
+
+    /**
+     * Borrow one of the reader connections, waiting up to the acquire timeout.
+     */
+    public Connection acquireReader() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        Connection reader;
+        try {
+            reader = idleReaders.poll(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for reader connection", e);
+        }
+        recordWait(start, reader != null);
+        if (reader == null) {
+            throw new SQLException("Timed out after " + acquireTimeoutMs + " ms waiting for reader connection");
+        }
+
+        Connection checked;
+        try {
+            checked = validate(reader, true);
+        } catch (SQLException e) {
+            // Keep the pool at full size; the broken handle is retried next time
+            idleReaders.offer(reader);
+            throw e;
+        }
+        return wrap(checked, cacheFor(checked), () -> releaseReader(checked));
+    }
+
+    /**
+     * Open a read-only connection with the pool's settings that the caller
+     * keeps and closes itself, e.g. for a long-running watcher. It does not
+     * count against the readers.
+     */
+    public Connection openDedicatedReader() throws SQLException {
+        ensureOpen();
+        return open(true);
+    }
+
+    private void releaseWriter() {
+        resetState(writer);
+        writerOwner = null;
+        writerPermit.release();
+    }
+
+    private void releaseReader(Connection reader) {
+        resetState(reader);
+        if (closed) {
+            closeQuietly(reader);
+        } else {
+            idleReaders.offer(reader);
+        }
+    }
+
+    /**
+     * The connection's statement cache, or null when caching is off.
+     */
+    private StatementCache cacheFor(Connection conn) {
+        if (statementCacheSize <= 0) {
+            return null;
+        }
+        return statementCaches.computeIfAbsent(conn, c -> new StatementCache(c, statementCacheSize,
+                statementHits, statementMisses, statementEvictions));
+    }
+
+    /**
+     * Undo anything a caller may have left behind so the next borrower
+     * gets a clean connection.
+     */
+    private void resetState(Connection conn) {
+        try {
+            if (!conn.isClosed() && !conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error resetting pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Health check performed on every checkout. A dead connection is
+     * replaced with a fresh one so callers never see a stale handle.
+     */
+    private Connection validate(Connection conn, boolean reader) throws SQLException {
+        boolean healthy;
+        try {
+            healthy = !conn.isClosed() && conn.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            healthy = false;
+        }
+        if (healthy) {
+            return conn;
+        }
+        closeQuietly(conn);
+        replacedConnections.increment();
+        return open(reader);
+    }
+
+    private Connection open(boolean reader) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        profile.apply(conn);
+        if (reader) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
+        }
+        return conn;
+    }
+
+    private void recordWait(long startNanos, boolean acquired) {
+        long waited = System.nanoTime() - startNanos;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (acquired) {
+            acquisitions.increment();
+        } else {
+            timeouts.increment();
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+    }
+
+    /**
+     * Close every pooled connection. Borrowed readers are closed when
+     * they are handed back.
+     */
+    public void shutdown() {
+        closed = true;
+        Connection reader;
+        while ((reader = idleReaders.poll()) != null) {
+            closeQuietly(reader);
+        }
+        writerPermit.acquireUninterruptibly();
+        try {
+            closeQuietly(writer);
+        } finally {
+            writerPermit.release();
+        }
+    }
+
+    public Stats getStats() {
+        long count = acquisitions.sum() + timeouts.sum();
+        return new Stats(
+                readerCount,
+                readerCount - idleReaders.size(),
+                writerPermit.availablePermits() == 0,
+                acquisitions.sum(),
+                timeouts.sum(),
+                replacedConnections.sum(),
+                count == 0 ? 0 : totalWaitNanos.sum() / count,
+                maxWaitNanos.get(),
+                statementHits.sum(),
+                statementMisses.sum(),
+                statementEvictions.sum());
+    }
+
+    private void closeQuietly(Connection conn) {
+        try {
+            if (conn != null) {
+                StatementCache cache = statementCaches.remove(conn);
+                if (cache != null) {
+                    cache.close();
+                }
+                conn.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private static Connection wrap(Connection target, StatementCache cache, Runnable onRelease) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new PooledHandle(target, cache, onRelease));
+    }
+
+    /**
+     * Proxy handler that turns close() into a return-to-pool and routes
+     * prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys)
+     * through the connection's statement cache.
+     */
+    private static class PooledHandle implements InvocationHandler {
+        private final Connection target;
+        private final StatementCache cache;
+        private final Runnable onRelease;
+        // close() may come from any thread (the writer is a permit, not a lock), and must release only once
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PooledHandle(Connection target, StatementCache cache, Runnable onRelease) {
+            this.target = target;
+            this.cache = cache;
+            this.onRelease = onRelease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (released.compareAndSet(false, true)) {
+                        onRelease.run();
+                    }
+                    return null;
+                case "isClosed":
+                    return released.get() || target.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + target + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(target)) {
+                        return target;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (released.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (cache != null && method.getName().equals("prepareStatement")) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    return cache.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (types.length == 2 && types[1] == int.class) {
+                    return cache.prepare((String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of pool usage.
+     */
+    public static class Stats {
+        private final int readerCount;
+        private final int readersInUse;
+        private final boolean writerInUse;
+        private final long acquisitions;
+        private final long timeouts;
+        private final long replacedConnections;
+        private final long averageWaitNanos;
+        private final long maxWaitNanos;
+        private final long statementHits;
+        private final long statementMisses;
+        private final long statementEvictions;
+
+        Stats(int readerCount, int readersInUse, boolean writerInUse, long acquisitions, long timeouts,
+                long replacedConnections, long averageWaitNanos, long maxWaitNanos,
+                long statementHits, long statementMisses, long statementEvictions) {
+            this.readerCount = readerCount;
+            this.readersInUse = readersInUse;
+            this.writerInUse = writerInUse;
+            this.acquisitions = acquisitions;
+            this.timeouts = timeouts;
+            this.replacedConnections = replacedConnections;
+            this.averageWaitNanos = averageWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.statementHits = statementHits;
+            this.statementMisses = statementMisses;
+            this.statementEvictions = statementEvictions;
+        }
+
+        public int getReaderCount() {
+            return readerCount;
+        }
+
+        public int getReadersInUse() {
+            return readersInUse;
+        }
+
+        public boolean isWriterInUse() {
+            return writerInUse;
+        }
+
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getReplacedConnections() {
+            return replacedConnections;
+        }
+
+        public long getAverageWaitNanos() {
+            return averageWaitNanos;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        public long getStatementHits() {
+            return statementHits;
+        }
+
+        public long getStatementMisses() {
+            return statementMisses;
+        }
+
+        public long getStatementEvictions() {
+            return statementEvictions;
+        }
+
+        public double getStatementHitRate() {
+            long total = statementHits + statementMisses;
+            return total == 0 ? 0 : (double) statementHits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "readers %d/%d in use, writer %s, %d acquisitions, %d timeouts, %d replaced, avg wait %.3f ms, max wait %.3f ms, "
+                            + "statement cache %d hits / %d misses (%.0f%%), %d evictions",
+                    readersInUse, readerCount, writerInUse ? "busy" : "idle", acquisitions, timeouts,
+                    replacedConnections, averageWaitNanos / 1_000_000.0, maxWaitNanos / 1_000_000.0,
+                    statementHits, statementMisses, getStatementHitRate() * 100, statementEvictions);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.mycompany.restaurant.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CsvUtils - Minimal CSV reading for catalogue imports.
+ * Supports double-quoted fields containing commas and "" escapes.
+ */
+public class CsvUtils {
+
+    /**
+     * Read all data rows, skipping the header line and blank lines.
+     */
+    public static List<String[]> readRows(Path file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    rows.add(parseLine(line));
+                }
+            }
+        }
+        return rows;
+    }
+
+    public static String[] parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Quote a value for writing if it contains a comma or quote.
+     */
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
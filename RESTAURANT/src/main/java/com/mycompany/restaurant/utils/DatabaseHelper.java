@@ -1,17 +1,31 @@
 package com.mycompany.restaurant.utils;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
 
 public class DatabaseHelper {
 
-    private static final String DB_DIR = "Database";
+    // Relative to the working directory; -Drestaurant.db.dir points elsewhere (e.g. benchmarks)
+    private static final String DB_DIR = System.getProperty("restaurant.db.dir", "Database");
     private static final String DB_NAME = "restaurant.db";
     private static final String CONNECTION_STRING = "jdbc:sqlite:" + DB_DIR + File.separator + DB_NAME;
 
+    private static final String CONFIG_NAME = "database.properties";
+
+    private static volatile ConnectionPool pool;
+    private static final List<Runnable> shutdownHooks = new ArrayList<>();
+    private static boolean jvmHookRegistered;
+
     public static void initializeDatabase() {
         // Ensure Database directory exists
         File dir = new File(DB_DIR);
@@ -19,9 +33,10 @@ public class DatabaseHelper {
             dir.mkdirs();
         }
 
-        try (Connection conn = connect()) {
+        try (Connection conn = getWriteConnection()) {
             if (conn != null) {
-                createTables(conn);
+                SchemaMigrator.migrate(conn);
+                System.out.println("Database schema at version " + SchemaMigrator.currentVersion(conn) + ".");
             }
         } catch (SQLException e) {
             System.err.println("Error initializing database: " + e.getMessage());
@@ -29,49 +44,153 @@ public class DatabaseHelper {
         }
     }
 
+    /**
+     * A file alongside the database, e.g. the order journal.
+     */
+    public static File dataFile(String name) {
+        return new File(DB_DIR, name);
+    }
+
+    /**
+     * Open a new, unpooled connection. Prefer getReadConnection() or
+     * getWriteConnection() for regular service work.
+     */
     public static Connection connect() throws SQLException {
         return DriverManager.getConnection(CONNECTION_STRING);
     }
 
-    private static void createTables(Connection conn) throws SQLException {
-        Statement stmt = conn.createStatement();
-
-        // Menu Items Table
-        String createMenuTable = "CREATE TABLE IF NOT EXISTS menu_items ("
-                + "id INTEGER PRIMARY KEY,"
-                + "name TEXT NOT NULL,"
-                + "category TEXT NOT NULL,"
-                + "price REAL NOT NULL,"
-                + "description TEXT,"
-                + "available INTEGER DEFAULT 1"
-                + ");";
-        stmt.execute(createMenuTable);
-
-        // Orders Table
-        // Storing active orders. For a real POS, we might want a 'sales' table for
-        // history too.
-        String createOrdersTable = "CREATE TABLE IF NOT EXISTS orders ("
-                + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                + "table_name TEXT NOT NULL,"
-                + "item_name TEXT NOT NULL,"
-                + "size TEXT,"
-                + "extras TEXT,"
-                + "total_price TEXT,"
-                + "status TEXT DEFAULT 'PENDING',"
-                + "order_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
-                + ");";
-        stmt.execute(createOrdersTable);
-
-        // Inventory Table
-        String createInventoryTable = "CREATE TABLE IF NOT EXISTS inventory ("
-                + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                + "name TEXT NOT NULL,"
-                + "quantity REAL NOT NULL,"
-                + "unit TEXT NOT NULL,"
-                + "min_stock REAL DEFAULT 10.0"
-                + ");";
-        stmt.execute(createInventoryTable);
-
-        System.out.println("Database tables initialized.");
+    /**
+     * Borrow a pooled read-only connection. Closing it returns it to the pool.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return getPool().acquireReader();
+    }
+
+    /**
+     * Borrow the single pooled writer connection. Closing it returns it to the pool.
+     */
+    public static Connection getWriteConnection() throws SQLException {
+        return getPool().acquireWriter();
+    }
+
+    /**
+     * Open an unpooled read-only connection with the pool's settings, for
+     * long-lived watchers such as ChangeFeed. The caller closes it.
+     */
+    public static Connection openDedicatedReader() throws SQLException {
+        return getPool().openDedicatedReader();
+    }
+
+    public static ConnectionPool.Stats getPoolStats() {
+        ConnectionPool current = pool;
+        return current == null ? null : current.getStats();
+    }
+
+    /**
+     * Register work that must finish while the pool is still open, such as
+     * flushing queued writes. Hooks run in registration order on shutdown.
+     */
+    public static synchronized void addShutdownHook(Runnable hook) {
+        shutdownHooks.add(hook);
+    }
+
+    /**
+     * Run shutdown hooks, then close all pooled connections. Called when the
+     * application exits, and from a JVM shutdown hook as a fallback.
+     */
+    public static void shutdown() {
+        List<Runnable> hooks;
+        synchronized (DatabaseHelper.class) {
+            hooks = new ArrayList<>(shutdownHooks);
+            shutdownHooks.clear();
+        }
+        // Hooks may still need pooled connections, so run them unlocked
+        for (Runnable hook : hooks) {
+            try {
+                hook.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error during database shutdown hook: " + e.getMessage());
+            }
+        }
+
+        synchronized (DatabaseHelper.class) {
+            if (pool != null) {
+                System.out.println("Connection pool: " + pool.getStats());
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
+
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current != null) {
+            return current;
+        }
+        synchronized (DatabaseHelper.class) {
+            if (pool == null) {
+                Properties config = loadConfig();
+                StorageProfile profile;
+                try {
+                    profile = StorageProfile.fromProperties(config);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Invalid storage settings, using balanced profile: " + e.getMessage());
+                    profile = StorageProfile.BALANCED;
+                }
+                pool = new ConnectionPool(CONNECTION_STRING, profile,
+                        Integer.parseInt(config.getProperty("pool.readers", "3").trim()),
+                        Long.parseLong(config.getProperty("pool.acquireTimeoutMs", "5000").trim()),
+                        Integer.parseInt(config.getProperty("pool.statementCacheSize", "32").trim()));
+                System.out.println("Database storage profile: " + profile);
+                if (!jvmHookRegistered) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(DatabaseHelper::shutdown, "database-shutdown"));
+                    jvmHookRegistered = true;
+                }
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Settings are layered: bundled database.properties, then
+     * Database/database.properties on the terminal, then -D system
+     * properties in the same sections (e.g. -Dstorage.profile=rush-hour,
+     * -Djournal.enabled=false).
+     */
+    public static Properties loadConfig() {
+        Properties config = new Properties();
+        try (InputStream in = DatabaseHelper.class.getResourceAsStream("/" + CONFIG_NAME)) {
+            if (in != null) {
+                config.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading bundled " + CONFIG_NAME + ": " + e.getMessage());
+        }
+
+        File local = new File(DB_DIR, CONFIG_NAME);
+        if (local.isFile()) {
+            try (InputStream in = new FileInputStream(local)) {
+                config.load(in);
+            } catch (IOException e) {
+                System.err.println("Error reading " + local + ": " + e.getMessage());
+            }
+        }
+
+        // Any key in a section the files use (storage., archive., ...), so a
+        // new setting can be overridden without being listed here
+        Set<String> sections = new HashSet<>();
+        for (String key : config.stringPropertyNames()) {
+            int dot = key.indexOf('.');
+            if (dot > 0) {
+                sections.add(key.substring(0, dot + 1));
+            }
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            int dot = key.indexOf('.');
+            if (dot > 0 && sections.contains(key.substring(0, dot + 1))) {
+                config.setProperty(key, System.getProperty(key));
+            }
+        }
+        return config;
     }
 }
@@ -0,0 +1,93 @@
+package com.mycompany.restaurant.utils;
+
+import javafx.application.Platform;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * FxThread - Applies changes to JavaFX-visible state (observable lists,
+ * properties bound by views) on the FX application thread.
+ *
+ * Changes run in the order they were submitted, from whatever thread. A
+ * change submitted on the FX thread runs at once, after anything already
+ * pending, so the caller sees its own update. Tools and benchmarks that
+ * never start the toolkit run the changes inline, one at a time; which
+ * case applies is decided on first use, so the application only touches
+ * the services once the toolkit is up.
+ */
+public final class FxThread {
+
+    private static final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean scheduled = new AtomicBoolean();
+    private static volatile Boolean headless; // null until first use
+
+    // Touched only while draining: on the FX thread, or under the class lock when headless
+    private static boolean draining;
+
+    private FxThread() {
+    }
+
+    /**
+     * Submit a change. Callers that need changes to appear in the same order
+     * as their own state updates submit while holding their lock.
+     */
+    public static void run(Runnable change) {
+        pending.add(change);
+        if (isHeadless()) {
+            drainHeadless();
+        } else if (Platform.isFxApplicationThread()) {
+            drain();
+        } else if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(FxThread::drainScheduled);
+        }
+    }
+
+    /**
+     * Probe with runLater rather than isFxApplicationThread(), which would
+     * load (and try to start rendering for) the toolkit.
+     */
+    private static boolean isHeadless() {
+        Boolean known = headless;
+        if (known == null) {
+            try {
+                Platform.runLater(() -> {
+                });
+                known = false;
+            } catch (IllegalStateException e) {
+                known = true; // Toolkit not started: command-line tools and benchmarks
+            }
+            headless = known;
+        }
+        return known;
+    }
+
+    private static void drainScheduled() {
+        scheduled.set(false);
+        drain();
+    }
+
+    private static synchronized void drainHeadless() {
+        drain();
+    }
+
+    private static void drain() {
+        if (draining) {
+            return; // A listener submitted a change; the outer loop picks it up
+        }
+        draining = true;
+        try {
+            Runnable change;
+            while ((change = pending.poll()) != null) {
+                try {
+                    change.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            draining = false;
+        }
+    }
+}
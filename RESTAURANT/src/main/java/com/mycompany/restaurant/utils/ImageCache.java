@@ -0,0 +1,115 @@
+package com.mycompany.restaurant.utils;
+
+import javafx.scene.image.Image;
+
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ImageCache - Application-wide cache of decoded images, keyed by resource
+ * path and the size they are shown at.
+ *
+ * Images are decoded in the background straight to the requested size, so
+ * a ticket thumbnail costs a 60x60 bitmap rather than the full PNG; an
+ * ImageView shows it once loading finishes. Recently used images are held
+ * up to a byte budget; older ones are only softly reachable and are
+ * decoded again if the collector has taken them. Safe to call from any
+ * thread.
+ */
+public final class ImageCache {
+
+    // Decoded pixels kept strongly, at 4 bytes per pixel
+    private static final long MAX_BYTES = 16L * 1024 * 1024;
+
+    private static final Map<String, Image> recent = new LinkedHashMap<>(32, 0.75f, true);
+    private static final Map<String, SoftReference<Image>> evicted = new HashMap<>();
+    private static long hits;
+    private static long misses;
+    private static long evictions;
+
+    private ImageCache() {
+    }
+
+    /**
+     * The image at a classpath resource, scaled to fit width x height with
+     * its aspect ratio kept (0 for either means the image's own size).
+     *
+     * @return null if there is no such resource
+     */
+    public static synchronized Image get(String path, double width, double height) {
+        String key = path + "@" + width + "x" + height;
+        Image image = recent.get(key);
+        if (image == null) {
+            SoftReference<Image> soft = evicted.remove(key);
+            image = soft == null ? null : soft.get();
+            if (image != null) {
+                recent.put(key, image);
+            }
+        }
+        if (image != null) {
+            hits++;
+            return image;
+        }
+
+        misses++;
+        URL url = ImageCache.class.getResource(path);
+        if (url == null) {
+            System.err.println("Could not load image: " + path);
+            return null;
+        }
+        image = new Image(url.toExternalForm(), width, height, true, true, true);
+        image.exceptionProperty().addListener((obs, old, error) -> {
+            if (error != null) {
+                System.err.println("Could not decode image " + path + ": " + error.getMessage());
+            }
+        });
+        recent.put(key, image);
+        trim();
+        return image;
+    }
+
+    /**
+     * Start decoding images that are about to be shown.
+     */
+    public static void preload(double width, double height, String... paths) {
+        for (String path : paths) {
+            get(path, width, height);
+        }
+    }
+
+    /**
+     * Move the least recently used images past the budget to the soft tier.
+     * Images still loading count at their requested size.
+     */
+    private static void trim() {
+        long bytes = 0;
+        for (Image image : recent.values()) {
+            bytes += bytesOf(image);
+        }
+        Iterator<Map.Entry<String, Image>> it = recent.entrySet().iterator();
+        while (bytes > MAX_BYTES && recent.size() > 1 && it.hasNext()) {
+            Map.Entry<String, Image> eldest = it.next();
+            bytes -= bytesOf(eldest.getValue());
+            evicted.put(eldest.getKey(), new SoftReference<>(eldest.getValue()));
+            it.remove();
+            evictions++;
+        }
+        evicted.values().removeIf(ref -> ref.get() == null);
+    }
+
+    private static long bytesOf(Image image) {
+        double width = image.getWidth() > 0 ? image.getWidth() : image.getRequestedWidth();
+        double height = image.getHeight() > 0 ? image.getHeight() : image.getRequestedHeight();
+        return (long) (width * height) * 4;
+    }
+
+    public static synchronized String getStats() {
+        long total = hits + misses;
+        return "Image cache: " + recent.size() + " held, " + evicted.size() + " soft, " + hits + " hits / "
+                + misses + " misses (" + (total == 0 ? 0 : hits * 100 / total) + "%), " + evictions + " evictions";
+    }
+}
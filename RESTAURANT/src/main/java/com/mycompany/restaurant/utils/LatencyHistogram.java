@@ -0,0 +1,97 @@
+package com.mycompany.restaurant.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram - Counts of durations in log-linear buckets, in the
+ * style of HdrHistogram.
+ *
+ * Values below 64 ms have a bucket each; above that every power of two is
+ * split into 32 buckets, so any value is placed within about 3% of its
+ * true size whether it is 80 ms or 80 minutes. Memory is fixed (a few KB)
+ * however many values are recorded, and recording is a couple of atomic
+ * increments, safe from any thread.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR = 64;
+    private static final int SUB_BITS = 5; // 32 buckets per power of two above LINEAR
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 36; // 2^37 ms, over four years
+    private static final int BUCKETS = LINEAR + (MAX_EXPONENT - 5) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void recordNanos(long nanos) {
+        record(Math.max(0, nanos) / 1_000_000);
+    }
+
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        int shift = exponent - SUB_BITS;
+        long sub = Math.min(value >>> shift, 2L * SUB - 1) - SUB;
+        return LINEAR + (exponent - 6) * SUB + (int) sub;
+    }
+
+    /**
+     * Largest value that falls in the bucket.
+     */
+    private static long highestIn(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int exponent = (index - LINEAR) / SUB + 6;
+        int sub = (index - LINEAR) % SUB + SUB;
+        int shift = exponent - SUB_BITS;
+        return ((long) (sub + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public double getMean() {
+        long count = total.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Value at or below which the given percent of recorded values fall,
+     * to bucket precision; 0 when nothing was recorded.
+     */
+    public long getPercentile(double percent) {
+        long count = total.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percent / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestIn(i), getMax());
+            }
+        }
+        return getMax();
+    }
+}
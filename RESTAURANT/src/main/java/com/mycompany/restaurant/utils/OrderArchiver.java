@@ -0,0 +1,322 @@
+package com.mycompany.restaurant.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * OrderArchiver - Moves old closed orders out of the hot tables.
+ * COMPLETED and CANCELLED lines, then the SERVED and CANCELLED headers left
+ * without lines together with their order_events, go into per-month history
+ * tables (orders_history_YYYY_MM, order_headers_history_YYYY_MM,
+ * order_events_history_YYYY_MM) and stay reachable through the orders_all,
+ * order_headers_all and order_events_all views. So the working set that
+ * OrderService, the kitchen and the change feed query stays small however
+ * long the restaurant has been running.
+ *
+ * Settings (database.properties): archive.enabled, archive.completedAfterDays,
+ * archive.intervalMinutes, archive.batchSize.
+ */
+public class OrderArchiver {
+
+    public static final String UNION_VIEW = "orders_all";
+    public static final String HEADERS_VIEW = "order_headers_all";
+    private static final Pattern MONTH = Pattern.compile("\\d{4}_\\d{2}");
+
+    /**
+     * A table whose old rows are archived: its history tables, union view
+     * and the column the history tables are indexed on.
+     */
+    private enum Archived {
+        LINES("orders", "orders_history_", UNION_VIEW, "order_time"),
+        HEADERS("order_headers", "order_headers_history_", HEADERS_VIEW, "opened_at"),
+        EVENTS("order_events", "order_events_history_", "order_events_all", "order_id");
+
+        final String table;
+        final String historyPrefix;
+        final String view;
+        final String indexColumn;
+
+        Archived(String table, String historyPrefix, String view, String indexColumn) {
+            this.table = table;
+            this.historyPrefix = historyPrefix;
+            this.view = view;
+            this.indexColumn = indexColumn;
+        }
+    }
+
+    private static OrderArchiver running;
+
+    private final int completedAfterDays;
+    private final int batchSize;
+    private ScheduledExecutorService scheduler;
+
+    public OrderArchiver(int completedAfterDays, int batchSize) {
+        this.completedAfterDays = completedAfterDays;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Start the background archiver using the database settings. Safe to call
+     * more than once; stopped automatically on DatabaseHelper.shutdown().
+     */
+    public static synchronized void startBackground() {
+        if (running != null) {
+            return;
+        }
+        Properties config = DatabaseHelper.loadConfig();
+        if (!Boolean.parseBoolean(config.getProperty("archive.enabled", "true").trim())) {
+            return;
+        }
+        int days = Integer.parseInt(config.getProperty("archive.completedAfterDays", "30").trim());
+        int batch = Integer.parseInt(config.getProperty("archive.batchSize", "5000").trim());
+        long interval = Long.parseLong(config.getProperty("archive.intervalMinutes", "60").trim());
+
+        running = new OrderArchiver(days, batch);
+        running.schedule(interval);
+        DatabaseHelper.addShutdownHook(OrderArchiver::stopBackground);
+    }
+
+    public static synchronized void stopBackground() {
+        if (running != null) {
+            running.scheduler.shutdownNow();
+            running = null;
+        }
+    }
+
+    private void schedule(long intervalMinutes) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-archiver");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        // First pass shortly after startup, off the launch path
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int moved = archiveNow();
+                if (moved > 0) {
+                    System.out.println("Archived " + moved + " lines and headers of closed orders.");
+                }
+            } catch (SQLException e) {
+                System.err.println("Order archiving failed: " + e.getMessage());
+            }
+        }, 1, Math.max(1, intervalMinutes), TimeUnit.MINUTES);
+    }
+
+    /**
+     * Archive everything currently eligible, one batch per transaction so
+     * the writer connection is never held for long.
+     *
+     * @return number of lines and headers moved
+     */
+    public int archiveNow() throws SQLException {
+        int total = 0;
+        int moved;
+        do {
+            try (Connection conn = DatabaseHelper.getWriteConnection()) {
+                moved = archiveBatch(conn);
+            }
+            total += moved;
+        } while (moved > 0 && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    /**
+     * Move up to batchSize eligible lines, then up to batchSize closed
+     * headers that no longer have lines in orders, with their events, in a
+     * single transaction.
+     *
+     * @return number of lines and headers moved
+     */
+    public int archiveBatch(Connection conn) throws SQLException {
+        String cutoff = "datetime('now', '-" + completedAfterDays + " days')";
+        String lineIds = "SELECT id FROM orders WHERE status IN ('COMPLETED', 'CANCELLED') AND order_time < " + cutoff
+                + " AND strftime('%Y_%m', order_time) IS NOT NULL" // Unparseable times could never be moved
+                + " ORDER BY order_time LIMIT " + batchSize;
+        // Headers go by the month they opened in, like their first line
+        String headerIds = "SELECT id FROM order_headers h WHERE status IN ('SERVED', 'CANCELLED')"
+                + " AND COALESCE(closed_at, opened_at) < " + cutoff
+                + " AND strftime('%Y_%m', opened_at) IS NOT NULL"
+                + " AND NOT EXISTS (SELECT 1 FROM orders l WHERE l.order_id = h.id)"
+                + " ORDER BY id LIMIT " + batchSize;
+
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS temp.archive_batch");
+            stmt.execute("CREATE TEMP TABLE archive_batch AS SELECT id, strftime('%Y_%m', order_time) AS month "
+                    + "FROM orders WHERE id IN (" + lineIds + ")");
+            int historyCount = historyTableCount(conn);
+            int moved = moveBatch(conn, Archived.LINES);
+
+            stmt.execute("DROP TABLE IF EXISTS temp.archive_headers");
+            stmt.execute("CREATE TEMP TABLE archive_headers AS SELECT id, strftime('%Y_%m', opened_at) AS month "
+                    + "FROM order_headers WHERE id IN (" + headerIds + ")");
+            // Events first: they refer to their header
+            stmt.execute("DELETE FROM temp.archive_batch");
+            stmt.execute("INSERT INTO temp.archive_batch SELECT e.id, h.month FROM order_events e "
+                    + "JOIN temp.archive_headers h ON h.id = e.order_id");
+            moveBatch(conn, Archived.EVENTS);
+            stmt.execute("DELETE FROM temp.archive_batch");
+            stmt.execute("INSERT INTO temp.archive_batch SELECT id, month FROM temp.archive_headers");
+            moved += moveBatch(conn, Archived.HEADERS);
+            stmt.execute("DROP TABLE temp.archive_headers");
+            stmt.execute("DROP TABLE temp.archive_batch");
+
+            if (historyTableCount(conn) != historyCount) {
+                rebuildUnionView(conn);
+            }
+            conn.commit();
+            return moved;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Copy the rows of the table listed in temp.archive_batch (id, month)
+     * into their month's history table and delete them.
+     *
+     * @return number of rows moved
+     */
+    private static int moveBatch(Connection conn, Archived archived) throws SQLException {
+        List<String> months = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT DISTINCT month FROM temp.archive_batch")) {
+            while (rs.next()) {
+                months.add(rs.getString(1));
+            }
+        }
+
+        int moved = 0;
+        for (String month : months) {
+            if (month == null || !MONTH.matcher(month).matches()) {
+                continue;
+            }
+            String history = archived.historyPrefix + month;
+            ensureHistoryTable(conn, archived, history);
+            String columns = String.join(", ", columnsOf(conn, history));
+
+            try (PreparedStatement copy = conn.prepareStatement("INSERT INTO " + history + " (" + columns + ") "
+                    + "SELECT " + columns + " FROM " + archived.table + " WHERE id IN "
+                    + "(SELECT id FROM temp.archive_batch WHERE month = ?)")) {
+                copy.setString(1, month);
+                moved += copy.executeUpdate();
+            }
+            // Only the month just copied, so a skipped month's rows are never lost
+            try (PreparedStatement delete = conn.prepareStatement("DELETE FROM " + archived.table
+                    + " WHERE id IN (SELECT id FROM temp.archive_batch WHERE month = ?)")) {
+                delete.setString(1, month);
+                delete.executeUpdate();
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Create the history table if needed and add any columns its live table
+     * has gained since it was created.
+     */
+    private static void ensureHistoryTable(Connection conn, Archived archived, String history) throws SQLException {
+        Set<String> existing = columnsOf(conn, history);
+        try (Statement stmt = conn.createStatement()) {
+            if (existing.isEmpty()) {
+                stmt.execute("CREATE TABLE " + history + " AS SELECT * FROM " + archived.table + " WHERE 0");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + history + "_" + archived.indexColumn
+                        + " ON " + history + "(" + archived.indexColumn + ")");
+                return;
+            }
+            for (String column : columnsOf(conn, archived.table)) {
+                if (!existing.contains(column)) {
+                    stmt.execute("ALTER TABLE " + history + " ADD COLUMN " + column);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recreate orders_all, and order_headers_all and order_events_all once
+     * those tables exist, as the live table UNION ALL every history table,
+     * padding columns an older history table lacks with NULL.
+     */
+    public static void rebuildUnionView(Connection conn) throws SQLException {
+        for (Archived archived : Archived.values()) {
+            Set<String> columns = columnsOf(conn, archived.table);
+            if (columns.isEmpty()) {
+                continue;
+            }
+            StringBuilder view = new StringBuilder("CREATE VIEW " + archived.view + " AS SELECT ")
+                    .append(String.join(", ", columns)).append(" FROM ").append(archived.table);
+
+            for (String history : historyTables(conn, archived.historyPrefix)) {
+                Set<String> present = columnsOf(conn, history);
+                List<String> select = new ArrayList<>();
+                for (String column : columns) {
+                    select.add(present.contains(column) ? column : "NULL AS " + column);
+                }
+                view.append(" UNION ALL SELECT ").append(String.join(", ", select)).append(" FROM ").append(history);
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP VIEW IF EXISTS " + archived.view);
+                stmt.execute(view.toString());
+            }
+        }
+    }
+
+    /**
+     * The monthly history tables of archived order lines.
+     */
+    public static List<String> historyTables(Connection conn) throws SQLException {
+        return historyTables(conn, Archived.LINES.historyPrefix);
+    }
+
+    private static List<String> historyTables(Connection conn, String prefix) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        // '_' is a LIKE wildcard, so match the prefix exactly
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT name FROM sqlite_master WHERE type = 'table' "
+                + "AND substr(name, 1, ?) = ? ORDER BY name")) {
+            pstmt.setInt(1, prefix.length());
+            pstmt.setString(2, prefix);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static int historyTableCount(Connection conn) throws SQLException {
+        int count = 0;
+        for (Archived archived : Archived.values()) {
+            count += historyTables(conn, archived.historyPrefix).size();
+        }
+        return count;
+    }
+
+    private static Set<String> columnsOf(Connection conn, String table) throws SQLException {
+        Set<String> columns = new LinkedHashSet<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name"));
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,429 @@
+package com.mycompany.restaurant.utils;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * OrderJournal - Append-only binary log of order mutations, written through
+ * a memory-mapped file. An append is a copy into mapped memory plus a CRC,
+ * with no system call and no fsync, so it is cheap enough for the FX thread;
+ * the pages belong to the OS, so a record survives the application crashing
+ * before its row reaches SQLite.
+ *
+ * Layout: a 32-byte header (magic, version, base sequence) followed by
+ * records of [length][seq][type][time][body][crc32]. An order is an ORDER
+ * record followed by its LINE records, possibly in several rounds, and
+ * STATUS records for each state change. On open the file is
+ * scanned and every intact record with the next expected sequence number is
+ * returned for replay; a torn or corrupt tail is ignored and overwritten.
+ * checkpoint() empties the journal once its records are safely in SQLite;
+ * checkpointIfAt() does so from the writer thread while appends go on.
+ * Only a checkpoint forces the pages to disk. A journal that outgrows its
+ * mapping is remapped larger, which is rare since checkpoints keep it small.
+ */
+public class OrderJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x4F524A31; // "ORJ1"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 32;
+    private static final int BASE_SEQ_OFFSET = 8;
+    private static final int INITIAL_SIZE = 4 * 1024 * 1024;
+
+    // length(4) + crc(4) around seq(8) + type(1) + time(8) + body
+    private static final int RECORD_OVERHEAD = 4 + 8 + 1 + 8 + 4;
+
+    public enum RecordType {
+        ORDER(1), LINE(2), STATUS(3);
+
+        private final byte code;
+
+        RecordType(int code) {
+            this.code = (byte) code;
+        }
+
+        static RecordType of(byte code) {
+            for (RecordType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * One replayed journal entry. ORDER records open an order and identify
+     * it by their own sequence number; LINE and STATUS records point at
+     * the order by that sequence number and/or its database id (0 when unknown).
+     */
+    public static class Record {
+        private final long seq;
+        private final RecordType type;
+        private final long timeMillis;
+        private String table;
+        private String item;
+        private String size;
+        private String extras;
+        private long totalMinor;
+        private long orderSeq;
+        private long orderId;
+        private String status;
+
+        Record(long seq, RecordType type, long timeMillis) {
+            this.seq = seq;
+            this.type = type;
+            this.timeMillis = timeMillis;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public RecordType getType() {
+            return type;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getItem() {
+            return item;
+        }
+
+        public String getSize() {
+            return size;
+        }
+
+        public String getExtras() {
+            return extras;
+        }
+
+        public long getTotalMinor() {
+            return totalMinor;
+        }
+
+        public long getOrderSeq() {
+            return orderSeq;
+        }
+
+        public long getOrderId() {
+            return orderId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long lastSeq;
+    private final List<Record> recovered;
+    private final CRC32 crc = new CRC32();
+
+    // Metrics
+    private long appends;
+    private long appendNanos;
+
+    private OrderJournal(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        long size = Math.max(channel.size(), INITIAL_SIZE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (buffer.getInt(0) != MAGIC) {
+            writeHeader(0);
+            recovered = Collections.emptyList();
+            lastSeq = 0;
+            buffer.position(HEADER_SIZE);
+        } else if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported order journal version " + buffer.getInt(4) + " in " + file);
+        } else {
+            recovered = scan();
+        }
+    }
+
+    public static OrderJournal open(Path file) throws IOException {
+        setAsideOtherVersion(file);
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new OrderJournal(file, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A journal written in another format cannot be replayed into the current
+     * schema; keep it next to the new one (orders.journal.v1 etc.) for inspection.
+     */
+    private static void setAsideOtherVersion(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < 8) {
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(8);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        int version = header.getInt(4);
+        if (header.getInt(0) == MAGIC && version != VERSION) {
+            Path aside = file.resolveSibling(file.getFileName() + ".v" + version);
+            Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+            System.err.println("Order journal " + file + " has format v" + version + "; moved to " + aside);
+        }
+    }
+
+    /**
+     * Records found in the journal when it was opened, in sequence order.
+     */
+    public List<Record> getRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Log a new order for a table.
+     *
+     * @return the record's sequence number, which identifies the order in later records
+     */
+    public synchronized long appendOrder(String table) {
+        long start = System.nanoTime();
+        byte[] tableBytes = utf8(table);
+        int recordStart = begin(RecordType.ORDER, 2 + tableBytes.length);
+        putString(tableBytes);
+        return end(recordStart, start);
+    }
+
+    /**
+     * Log one line added to an order.
+     */
+    public synchronized long appendLine(long orderSeq, long orderId, String item, String size, String extras,
+            long totalMinor) {
+        long start = System.nanoTime();
+        byte[][] strings = { utf8(item), utf8(size), utf8(extras) };
+        int bodyLength = 8 + 8 + 8;
+        for (byte[] s : strings) {
+            bodyLength += 2 + s.length;
+        }
+
+        int recordStart = begin(RecordType.LINE, bodyLength);
+        buffer.putLong(orderSeq);
+        buffer.putLong(orderId);
+        for (byte[] s : strings) {
+            putString(s);
+        }
+        buffer.putLong(totalMinor);
+        return end(recordStart, start);
+    }
+
+    /**
+     * Log an order's move to a new state (OrderStatus name).
+     */
+    public synchronized long appendStatus(long orderSeq, long orderId, String status) {
+        long start = System.nanoTime();
+        byte[] statusBytes = utf8(status);
+        int recordStart = begin(RecordType.STATUS, 16 + 2 + statusBytes.length);
+        buffer.putLong(orderSeq);
+        buffer.putLong(orderId);
+        putString(statusBytes);
+        return end(recordStart, start);
+    }
+
+    private void putString(byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private int begin(RecordType type, int bodyLength) {
+        int length = 8 + 1 + 8 + bodyLength;
+        ensureCapacity(RECORD_OVERHEAD + bodyLength + 4);
+        int recordStart = buffer.position();
+        buffer.putInt(length);
+        buffer.putLong(lastSeq + 1);
+        buffer.put(type.code);
+        buffer.putLong(System.currentTimeMillis());
+        return recordStart;
+    }
+
+    private long end(int recordStart, long startNanos) {
+        int length = buffer.getInt(recordStart);
+        crc.reset();
+        crc.update(buffer.slice(recordStart + 4, length));
+        buffer.putInt((int) crc.getValue());
+        // Zero length terminates the scan until the next record lands here
+        buffer.putInt(buffer.position(), 0);
+
+        lastSeq++;
+        appends++;
+        appendNanos += System.nanoTime() - startNanos;
+        return lastSeq;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int position = buffer.position();
+        long newSize = Math.max((long) buffer.capacity() * 2, (long) position + bytes);
+        if (newSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Order journal " + file + " is full; checkpoint has not run");
+        }
+        try {
+            // The old mapping's pages are the file's, so the new one sees them without a force
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not grow order journal " + file, e);
+        }
+        buffer.position(position);
+    }
+
+    /**
+     * Read every valid record after the header, stopping at the first one
+     * that is truncated, fails its checksum or breaks the sequence.
+     */
+    private List<Record> scan() {
+        List<Record> records = new ArrayList<>();
+        long expected = buffer.getLong(BASE_SEQ_OFFSET) + 1;
+        int position = HEADER_SIZE;
+
+        while (position + 4 <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            int end = position + 4 + length + 4;
+            if (length < 17 || end > buffer.capacity()) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(position + 4, length));
+            if ((int) crc.getValue() != buffer.getInt(end - 4)) {
+                break;
+            }
+
+            ByteBuffer body = buffer.slice(position + 4, length);
+            long seq = body.getLong();
+            RecordType type = RecordType.of(body.get());
+            if (seq != expected || type == null) {
+                break;
+            }
+            Record record = new Record(seq, type, body.getLong());
+            try {
+                if (type == RecordType.ORDER) {
+                    record.table = readString(body);
+                } else if (type == RecordType.LINE) {
+                    record.orderSeq = body.getLong();
+                    record.orderId = body.getLong();
+                    record.item = readString(body);
+                    record.size = readString(body);
+                    record.extras = readString(body);
+                    record.totalMinor = body.getLong();
+                } else {
+                    record.orderSeq = body.getLong();
+                    record.orderId = body.getLong();
+                    record.status = readString(body);
+                }
+            } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                break;
+            }
+            records.add(record);
+            expected++;
+            position = end;
+        }
+
+        lastSeq = expected - 1;
+        buffer.position(position);
+        return Collections.unmodifiableList(records);
+    }
+
+    /**
+     * Forget every record written so far. Only call this once everything
+     * in the journal is committed to SQLite. Sequence numbers keep counting
+     * up, so they stay unique across checkpoints.
+     */
+    public synchronized void checkpoint() {
+        writeHeader(lastSeq);
+        buffer.position(HEADER_SIZE);
+        buffer.putInt(HEADER_SIZE, 0);
+        buffer.force();
+    }
+
+    /**
+     * Checkpoint, but only if nothing has been appended after the given
+     * sequence number, i.e. the caller knows everything up to it is
+     * committed and nothing later is in the journal.
+     *
+     * @return false if newer records are held; the journal is left as it is
+     */
+    public synchronized boolean checkpointIfAt(long seq) {
+        if (lastSeq != seq) {
+            return false;
+        }
+        checkpoint();
+        return true;
+    }
+
+    private void writeHeader(long baseSeq) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(BASE_SEQ_OFFSET, baseSeq);
+        buffer.putInt(HEADER_SIZE, 0);
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Bytes of records currently held (excluding the header).
+     */
+    public synchronized int getUsedBytes() {
+        return buffer.position() - HEADER_SIZE;
+    }
+
+    public synchronized double getAverageAppendMicros() {
+        return appends == 0 ? 0 : appendNanos / 1_000.0 / appends;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d records appended, %d bytes held, avg append %.2f us",
+                file.getFileName(), appends, getUsedBytes(), getAverageAppendMicros());
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal field longer than " + Short.MAX_VALUE + " bytes");
+        }
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getShort()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,254 @@
+package com.mycompany.restaurant.utils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * SalesRollups - Pre-aggregated sales per item, per hour and per day.
+ * The rollup tables are maintained by triggers on the orders table, so they
+ * change in the same transaction as every order insert, completion or
+ * cancellation and analytics can read a few buckets instead of scanning
+ * every order. Cancelled orders are not sales and are left out. Hours and
+ * days are local time.
+ *
+ * Served orders (table visits) and their value are one more rollup row,
+ * kept by triggers on order_headers, so the average order value needs no
+ * scan either and still counts orders once they are archived.
+ *
+ * Run as a command to recompute or check the rollups against raw orders
+ * (including archived ones):
+ * SalesRollups rebuild | verify
+ */
+public class SalesRollups {
+
+    /**
+     * One rollup table: its name, key column and the expression that derives
+     * the key from an orders row (prefixed with the given row alias).
+     */
+    public static final String SERVED_TABLE = "served_orders";
+
+    private static final String SERVED_FROM_HEADERS =
+            "SELECT 1, COUNT(*), COALESCE(SUM(total_minor), 0) FROM %s WHERE status = 'SERVED'";
+
+    private enum Rollup {
+        ITEM("sales_by_item", "item_name", "%sitem_name"),
+        // order_time is stored in UTC; buckets follow the restaurant's own clock
+        HOUR("sales_by_hour", "hour", "strftime('%%Y-%%m-%%d %%H:00', %sorder_time, 'localtime')"),
+        DAY("sales_by_day", "day", "date(%sorder_time, 'localtime')");
+
+        final String table;
+        final String keyColumn;
+        final String keyExpression;
+
+        Rollup(String table, String keyColumn, String keyExpression) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.keyExpression = keyExpression;
+        }
+
+        String key(String alias) {
+            return String.format(keyExpression, alias);
+        }
+
+        /**
+         * Aggregate computed straight from the raw order rows.
+         */
+        String fromOrders(String source) {
+            return "SELECT " + key("") + ", COUNT(*), SUM(status = 'COMPLETED'), SUM(total_minor)"
+                    + " FROM " + source + " WHERE status IS NOT 'CANCELLED' GROUP BY 1";
+        }
+    }
+
+    /**
+     * Create the rollup tables and the triggers that keep them current.
+     */
+    public static void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (Rollup rollup : Rollup.values()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + rollup.table + " ("
+                        + rollup.keyColumn + " TEXT PRIMARY KEY,"
+                        + "order_count INTEGER NOT NULL DEFAULT 0,"
+                        + "completed_count INTEGER NOT NULL DEFAULT 0,"
+                        + "total_minor INTEGER NOT NULL DEFAULT 0"
+                        + ");");
+            }
+
+            StringBuilder onInsert = new StringBuilder(
+                    "CREATE TRIGGER IF NOT EXISTS trg_orders_rollup_insert AFTER INSERT ON orders BEGIN ");
+            StringBuilder onComplete = new StringBuilder(
+                    "CREATE TRIGGER IF NOT EXISTS trg_orders_rollup_complete AFTER UPDATE OF status ON orders "
+                            + "WHEN NEW.status = 'COMPLETED' AND OLD.status IS NOT 'COMPLETED' BEGIN ");
+            // Takes the line back out; a bucket left empty goes, as a rebuild would not have it
+            StringBuilder onCancel = new StringBuilder(
+                    "CREATE TRIGGER IF NOT EXISTS trg_orders_rollup_cancel AFTER UPDATE OF status ON orders "
+                            + "WHEN NEW.status = 'CANCELLED' AND OLD.status IS NOT 'CANCELLED' BEGIN ");
+            for (Rollup rollup : Rollup.values()) {
+                onInsert.append("INSERT INTO ").append(rollup.table)
+                        .append(" (").append(rollup.keyColumn).append(", order_count, completed_count, total_minor)")
+                        .append(" VALUES (").append(rollup.key("NEW."))
+                        .append(", 1, NEW.status = 'COMPLETED', NEW.total_minor)")
+                        .append(" ON CONFLICT(").append(rollup.keyColumn).append(") DO UPDATE SET")
+                        .append(" order_count = order_count + 1,")
+                        .append(" completed_count = completed_count + excluded.completed_count,")
+                        .append(" total_minor = total_minor + excluded.total_minor; ");
+
+                onComplete.append("UPDATE ").append(rollup.table)
+                        .append(" SET completed_count = completed_count + 1 WHERE ")
+                        .append(rollup.keyColumn).append(" = ").append(rollup.key("NEW.")).append("; ");
+
+                onCancel.append("UPDATE ").append(rollup.table)
+                        .append(" SET order_count = order_count - 1,")
+                        .append(" completed_count = completed_count - (OLD.status = 'COMPLETED'),")
+                        .append(" total_minor = total_minor - OLD.total_minor WHERE ")
+                        .append(rollup.keyColumn).append(" = ").append(rollup.key("OLD.")).append("; ")
+                        .append("DELETE FROM ").append(rollup.table).append(" WHERE ")
+                        .append(rollup.keyColumn).append(" = ").append(rollup.key("OLD."))
+                        .append(" AND order_count <= 0; ");
+            }
+            stmt.execute(onInsert.append("END;").toString());
+            stmt.execute(onComplete.append("END;").toString());
+            stmt.execute(onCancel.append("END;").toString());
+        }
+    }
+
+    /**
+     * Create the served orders rollup (a single row) and the triggers on
+     * order_headers that keep it current.
+     */
+    public static void createServedSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + SERVED_TABLE + " ("
+                    + "id INTEGER PRIMARY KEY CHECK (id = 1),"
+                    + "order_count INTEGER NOT NULL DEFAULT 0,"
+                    + "total_minor INTEGER NOT NULL DEFAULT 0"
+                    + ");");
+            stmt.execute("INSERT OR IGNORE INTO " + SERVED_TABLE + " (id) VALUES (1)");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_order_headers_served AFTER UPDATE OF status ON order_headers "
+                    + "WHEN NEW.status = 'SERVED' AND OLD.status IS NOT 'SERVED' BEGIN "
+                    + "UPDATE " + SERVED_TABLE + " SET order_count = order_count + 1, "
+                    + "total_minor = total_minor + NEW.total_minor WHERE id = 1; END;");
+            // Served is final, but keep the sum right should a total still change
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_order_headers_served_total "
+                    + "AFTER UPDATE OF total_minor ON order_headers "
+                    + "WHEN OLD.status = 'SERVED' AND NEW.status = 'SERVED' BEGIN "
+                    + "UPDATE " + SERVED_TABLE + " SET total_minor = total_minor + NEW.total_minor - OLD.total_minor "
+                    + "WHERE id = 1; END;");
+        }
+    }
+
+    /**
+     * Drop the triggers so createSchema can define them afresh, e.g. after
+     * a bucket key changes. The rollups then need a rebuild.
+     */
+    public static void dropTriggers(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TRIGGER IF EXISTS trg_orders_rollup_insert");
+            stmt.execute("DROP TRIGGER IF EXISTS trg_orders_rollup_complete");
+            stmt.execute("DROP TRIGGER IF EXISTS trg_orders_rollup_cancel");
+        }
+    }
+
+    /**
+     * Recompute every rollup table from raw orders.
+     */
+    public static void rebuild(Connection conn) throws SQLException {
+        String source = orderSource(conn);
+        try (Statement stmt = conn.createStatement()) {
+            for (Rollup rollup : Rollup.values()) {
+                stmt.execute("DELETE FROM " + rollup.table);
+                stmt.execute("INSERT INTO " + rollup.table + " " + rollup.fromOrders(source));
+            }
+            if (exists(conn, "table", SERVED_TABLE)) {
+                stmt.execute("DELETE FROM " + SERVED_TABLE);
+                stmt.execute("INSERT INTO " + SERVED_TABLE + " (id, order_count, total_minor) "
+                        + String.format(SERVED_FROM_HEADERS, headerSource(conn)));
+            }
+        }
+    }
+
+    /**
+     * Compare each rollup table with an aggregate of the raw orders.
+     *
+     * @return number of buckets that differ (0 when consistent)
+     */
+    public static int verify(Connection conn) throws SQLException {
+        int mismatches = 0;
+        String source = orderSource(conn);
+        try (Statement stmt = conn.createStatement()) {
+            for (Rollup rollup : Rollup.values()) {
+                String stored = "SELECT * FROM " + rollup.table;
+                String expected = rollup.fromOrders(source);
+                int missing = countRows(stmt, expected + " EXCEPT " + stored);
+                int extra = countRows(stmt, stored + " EXCEPT " + expected);
+                if (missing + extra > 0) {
+                    System.err.println(rollup.table + ": " + missing + " buckets missing or wrong, "
+                            + extra + " stale buckets");
+                }
+                mismatches += missing + extra;
+            }
+            if (exists(conn, "table", SERVED_TABLE)) {
+                String expected = String.format(SERVED_FROM_HEADERS, headerSource(conn));
+                if (countRows(stmt, expected + " EXCEPT SELECT * FROM " + SERVED_TABLE) > 0) {
+                    System.err.println(SERVED_TABLE + ": differs from the served order headers");
+                    mismatches++;
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Archived orders still count towards sales, so read through the
+     * orders_all union view once it exists.
+     */
+    private static String orderSource(Connection conn) throws SQLException {
+        return exists(conn, "view", OrderArchiver.UNION_VIEW) ? OrderArchiver.UNION_VIEW : "orders";
+    }
+
+    private static String headerSource(Connection conn) throws SQLException {
+        return exists(conn, "view", OrderArchiver.HEADERS_VIEW) ? OrderArchiver.HEADERS_VIEW : "order_headers";
+    }
+
+    private static boolean exists(Connection conn, String type, String name) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = '" + type
+                        + "' AND name = '" + name + "'")) {
+            return rs.next();
+        }
+    }
+
+    private static int countRows(Statement stmt, String query) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM (" + query + ")")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static void main(String[] args) throws SQLException {
+        String command = args.length == 0 ? "verify" : args[0];
+        DatabaseHelper.initializeDatabase();
+        try (Connection conn = DatabaseHelper.getWriteConnection()) {
+            if ("rebuild".equals(command)) {
+                conn.setAutoCommit(false);
+                rebuild(conn);
+                int mismatches = verify(conn);
+                if (mismatches != 0) {
+                    conn.rollback();
+                    throw new SQLException("Rebuilt rollups still differ from raw orders (" + mismatches + ")");
+                }
+                conn.commit();
+                System.out.println("Sales rollups rebuilt and verified.");
+            } else if ("verify".equals(command)) {
+                int mismatches = verify(conn);
+                System.out.println(mismatches == 0
+                        ? "Sales rollups match raw orders."
+                        : "Sales rollups differ from raw orders in " + mismatches + " buckets; run 'rebuild'.");
+            } else {
+                System.err.println("Usage: SalesRollups rebuild | verify");
+            }
+        } finally {
+            DatabaseHelper.shutdown();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.mycompany.restaurant.utils;
+
+import com.mycompany.restaurant.models.Money;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * SchemaMigrator - Versioned schema migrations applied at startup.
+ * Each migration runs once, in its own transaction, and is recorded in the
+ * schema_version table. New schema changes are appended to MIGRATIONS with
+ * the next version number; existing entries must never be edited.
+ */
+public class SchemaMigrator {
+
+    /**
+     * A single schema change.
+     */
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final Step step;
+
+        public Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Baseline tables", SchemaMigrator::createBaselineTables),
+            sql(2, "Index orders by status",
+                    "CREATE INDEX IF NOT EXISTS idx_orders_status ON orders(status)"),
+            sql(3, "Index orders by table and status",
+                    "CREATE INDEX IF NOT EXISTS idx_orders_table_status ON orders(table_name, status)"),
+            sql(4, "Index orders by order time",
+                    "CREATE INDEX IF NOT EXISTS idx_orders_order_time ON orders(order_time)"),
+            new Migration(5, "Store order totals as integer minor units", SchemaMigrator::addOrderTotalMinor),
+            sql(6, "Index orders by item and total",
+                    "CREATE INDEX IF NOT EXISTS idx_orders_item_total ON orders(item_name, total_minor)"),
+            new Migration(7, "Sales rollups per item, hour and day", conn -> {
+                SalesRollups.createSchema(conn);
+                SalesRollups.rebuild(conn);
+            }),
+            new Migration(8, "Union view over live and archived orders", OrderArchiver::rebuildUnionView),
+            new Migration(9, "Order journal sequence numbers", conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE orders ADD COLUMN journal_seq INTEGER");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_orders_journal_seq ON orders(journal_seq)");
+                }
+                OrderArchiver.rebuildUnionView(conn);
+            }),
+            new Migration(10, "Order headers with orders as their lines", SchemaMigrator::addOrderHeaders),
+            new Migration(11, "Order state machine and transition log", SchemaMigrator::addOrderStates),
+            new Migration(12, "Line events and writer origin for the change feed", SchemaMigrator::addLineEvents),
+            // NULL means the station's usual time (see Station.getDefaultPrep)
+            sql(13, "Prep time estimate per menu item",
+                    "ALTER TABLE menu_items ADD COLUMN prep_seconds INTEGER"),
+            new Migration(14, "Sales rollup hours and days in local time", conn -> {
+                SalesRollups.dropTriggers(conn);
+                SalesRollups.createSchema(conn);
+                SalesRollups.rebuild(conn);
+            }),
+            new Migration(15, "Served orders rollup and archived headers and events", conn -> {
+                OrderArchiver.rebuildUnionView(conn);
+                SalesRollups.createServedSchema(conn);
+                SalesRollups.rebuild(conn);
+            }));
+
+    /**
+     * Bring the database up to the latest version.
+     *
+     * @return number of migrations applied
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INTEGER PRIMARY KEY,"
+                    + "description TEXT NOT NULL,"
+                    + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
+                    + ");");
+        }
+
+        int current = currentVersion(conn);
+        int applied = 0;
+        boolean autoCommit = conn.getAutoCommit();
+        try {
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= current) {
+                    continue;
+                }
+                conn.setAutoCommit(false);
+                try {
+                    migration.step.apply(conn);
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "INSERT INTO schema_version(version, description) VALUES(?,?)")) {
+                        pstmt.setInt(1, migration.version);
+                        pstmt.setString(2, migration.description);
+                        pstmt.executeUpdate();
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Migration " + migration.version + " (" + migration.description
+                            + ") failed: " + e.getMessage(), e);
+                }
+                System.out.println("Applied schema migration " + migration.version + ": " + migration.description);
+                applied++;
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return applied;
+    }
+
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    private static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description, conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                for (String statement : statements) {
+                    stmt.execute(statement);
+                }
+            }
+        });
+    }
+
+    /**
+     * Every line added to an order is logged in order_events as a LINE event
+     * (status unchanged), so the order_events id is one sequence for all
+     * order changes. origin tags rows with the process that wrote them, so
+     * a change feed can skip its own.
+     */
+    private static void addLineEvents(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE order_events ADD COLUMN kind TEXT NOT NULL DEFAULT 'STATUS'");
+            stmt.execute("ALTER TABLE order_events ADD COLUMN line_id INTEGER");
+            stmt.execute("ALTER TABLE order_events ADD COLUMN origin TEXT");
+            stmt.execute("ALTER TABLE orders ADD COLUMN origin TEXT");
+            stmt.execute("CREATE TRIGGER trg_orders_line_event AFTER INSERT ON orders "
+                    + "WHEN NEW.order_id IS NOT NULL BEGIN "
+                    + "INSERT INTO order_events(order_id, kind, from_status, to_status, at, line_id, origin) "
+                    + "SELECT id, 'LINE', status, status, strftime('%Y-%m-%d %H:%M:%f', 'now'), NEW.id, NEW.origin "
+                    + "FROM order_headers WHERE id = NEW.order_id; END;");
+        }
+        OrderArchiver.rebuildUnionView(conn);
+    }
+
+    /**
+     * One order_headers row per table visit; the existing orders rows become
+     * its lines via orders.order_id. Pending lines are grouped into one open
+     * order per table. Completed history is left without a header.
+     */
+    private static void addOrderHeaders(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE order_headers ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "table_name TEXT NOT NULL,"
+                    + "status TEXT NOT NULL DEFAULT 'PENDING',"
+                    + "opened_at DATETIME DEFAULT CURRENT_TIMESTAMP,"
+                    + "closed_at DATETIME,"
+                    + "line_count INTEGER NOT NULL DEFAULT 0,"
+                    + "total_minor INTEGER NOT NULL DEFAULT 0,"
+                    + "journal_seq INTEGER"
+                    + ");");
+            stmt.execute("CREATE INDEX idx_order_headers_status ON order_headers(status)");
+            stmt.execute("CREATE INDEX idx_order_headers_journal_seq ON order_headers(journal_seq)");
+            stmt.execute("ALTER TABLE orders ADD COLUMN order_id INTEGER REFERENCES order_headers(id)");
+            stmt.execute("CREATE INDEX idx_orders_order_id ON orders(order_id)");
+
+            stmt.execute("INSERT INTO order_headers (table_name, status, opened_at, line_count, total_minor) "
+                    + "SELECT table_name, 'PENDING', MIN(order_time), COUNT(*), SUM(total_minor) "
+                    + "FROM orders WHERE status = 'PENDING' GROUP BY table_name");
+            stmt.execute("UPDATE orders SET order_id = (SELECT h.id FROM order_headers h "
+                    + "WHERE h.table_name = orders.table_name AND h.status = 'PENDING') WHERE status = 'PENDING'");
+
+            // Header totals follow their lines from here on
+            stmt.execute("CREATE TRIGGER trg_orders_header_totals AFTER INSERT ON orders "
+                    + "WHEN NEW.order_id IS NOT NULL BEGIN "
+                    + "UPDATE order_headers SET line_count = line_count + 1, total_minor = total_minor + NEW.total_minor "
+                    + "WHERE id = NEW.order_id; END;");
+        }
+        OrderArchiver.rebuildUnionView(conn);
+    }
+
+    /**
+     * Maps PENDING/COMPLETED headers to NEW/SERVED, adds the order_events
+     * transition log, and takes cancelled orders already counted back out
+     * of the sales rollups.
+     */
+    private static void addOrderStates(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE order_headers SET status = 'NEW' WHERE status = 'PENDING'");
+            stmt.execute("UPDATE order_headers SET status = 'SERVED' WHERE status = 'COMPLETED'");
+            stmt.execute("CREATE TABLE order_events ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "order_id INTEGER NOT NULL REFERENCES order_headers(id),"
+                    + "from_status TEXT,"
+                    + "to_status TEXT NOT NULL,"
+                    + "at TEXT NOT NULL,"
+                    + "journal_seq INTEGER"
+                    + ")");
+            stmt.execute("CREATE INDEX idx_order_events_order ON order_events(order_id, at)");
+            stmt.execute("CREATE INDEX idx_order_events_journal_seq ON order_events(journal_seq)");
+        }
+        SalesRollups.createSchema(conn);
+        SalesRollups.rebuild(conn);
+    }
+
+    /**
+     * Adds orders.total_minor (paisa) and backfills it from the legacy
+     * "Rs. 1550" style total_price text.
+     */
+    private static void addOrderTotalMinor(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE orders ADD COLUMN total_minor INTEGER NOT NULL DEFAULT 0");
+        }
+        try (Statement select = conn.createStatement();
+                ResultSet rs = select.executeQuery("SELECT id, total_price FROM orders WHERE total_price IS NOT NULL");
+                PreparedStatement update = conn.prepareStatement("UPDATE orders SET total_minor = ? WHERE id = ?")) {
+            while (rs.next()) {
+                Money total;
+                try {
+                    total = Money.parse(rs.getString("total_price"));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Leaving unparseable total on order " + rs.getLong("id") + " at zero");
+                    continue;
+                }
+                update.setLong(1, total.getMinorUnits());
+                update.setLong(2, rs.getLong("id"));
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    /**
+     * Original schema. Uses IF NOT EXISTS so databases created before
+     * migrations were introduced are adopted as version 1.
+     */
+    private static void createBaselineTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            // Menu Items Table
+            stmt.execute("CREATE TABLE IF NOT EXISTS menu_items ("
+                    + "id INTEGER PRIMARY KEY,"
+                    + "name TEXT NOT NULL,"
+                    + "category TEXT NOT NULL,"
+                    + "price REAL NOT NULL,"
+                    + "description TEXT,"
+                    + "available INTEGER DEFAULT 1"
+                    + ");");
+
+            // Orders Table
+            stmt.execute("CREATE TABLE IF NOT EXISTS orders ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "table_name TEXT NOT NULL,"
+                    + "item_name TEXT NOT NULL,"
+                    + "size TEXT,"
+                    + "extras TEXT,"
+                    + "total_price TEXT,"
+                    + "status TEXT DEFAULT 'PENDING',"
+                    + "order_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
+                    + ");");
+
+            // Inventory Table
+            stmt.execute("CREATE TABLE IF NOT EXISTS inventory ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + "name TEXT NOT NULL,"
+                    + "quantity REAL NOT NULL,"
+                    + "unit TEXT NOT NULL,"
+                    + "min_stock REAL DEFAULT 10.0"
+                    + ");");
+        }
+    }
+}
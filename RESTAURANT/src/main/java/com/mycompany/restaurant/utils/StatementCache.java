@@ -0,0 +1,184 @@
+package com.mycompany.restaurant.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StatementCache - Small LRU of prepared statements for one pooled
+ * connection, keyed by SQL text. Services keep calling prepareStatement()
+ * and close() as usual; a cached statement is handed out behind a wrapper
+ * whose close() only resets it, so SQLite parses and plans each query once
+ * per connection instead of once per call.
+ *
+ * Not thread-safe: a pooled connection is only used by one thread at a
+ * time. The hit/miss/eviction counters are shared across the whole pool.
+ */
+class StatementCache {
+
+    private final Connection conn;
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LinkedHashMap<String, Entry> statements;
+
+    StatementCache(Connection conn, int capacity, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.conn = conn;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Return a prepared statement for the SQL text, reusing the cached one
+     * when it is not already in use by the caller (e.g. a nested query).
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "keys:" + sql : sql;
+        Entry entry = statements.get(key);
+        if (entry != null && !entry.inUse) {
+            hits.increment();
+        } else if (entry != null) {
+            // Same SQL already borrowed on this connection: give out a one-off statement
+            misses.increment();
+            return conn.prepareStatement(sql, autoGeneratedKeys);
+        } else {
+            misses.increment();
+            entry = new Entry(conn.prepareStatement(sql, autoGeneratedKeys));
+            statements.put(key, entry);
+            evictOverflow();
+        }
+        entry.inUse = true;
+        return entry.borrow();
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = statements.values().iterator();
+        while (statements.size() > capacity && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest.inUse) {
+                continue;
+            }
+            it.remove();
+            eldest.closeQuietly();
+            evictions.increment();
+        }
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * Close every cached statement. Called before the connection itself is closed.
+     */
+    void close() {
+        for (Map.Entry<String, Entry> e : statements.entrySet()) {
+            e.getValue().closeQuietly();
+        }
+        statements.clear();
+    }
+
+    /**
+     * One cached statement and whether a caller currently holds it.
+     */
+    private static class Entry {
+        private final PreparedStatement statement;
+        private boolean inUse;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement borrow() {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new BorrowedStatement(this));
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Proxy handler that turns close() into a reset: the open result set is
+     * closed (ending SQLite's read on it) and parameters and batches are cleared.
+     */
+    private static class BorrowedStatement implements InvocationHandler {
+        private final Entry entry;
+        private ResultSet lastResult;
+        private boolean released;
+
+        BorrowedStatement(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return released || entry.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.statement + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Statement has already been closed");
+            }
+            Object result;
+            try {
+                result = method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                lastResult = (ResultSet) result;
+            }
+            return result;
+        }
+
+        private void release() {
+            try {
+                if (lastResult != null && !lastResult.isClosed()) {
+                    lastResult.close();
+                }
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+            } catch (SQLException e) {
+                System.err.println("Error resetting cached statement: " + e.getMessage());
+            } finally {
+                entry.inUse = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.mycompany.restaurant.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * StorageProfile - SQLite durability and performance settings applied to
+ * every pooled connection.
+ *
+ * Presets:
+ * safe      - WAL, synchronous=FULL: every commit survives power loss.
+ * balanced  - WAL, synchronous=NORMAL: survives app crashes; a power cut can
+ *             lose the last few commits. Default.
+ * rush-hour - WAL, synchronous=OFF, large cache and mmap: fastest, relies on
+ *             the OS to flush. Only for terminals on a UPS.
+ */
+public class StorageProfile {
+
+    public static final StorageProfile SAFE = new StorageProfile("safe", "WAL", "FULL", -8_000, 0, "DEFAULT", 5_000);
+    public static final StorageProfile BALANCED = new StorageProfile("balanced", "WAL", "NORMAL", -16_000,
+            64L * 1024 * 1024, "MEMORY", 5_000);
+    public static final StorageProfile RUSH_HOUR = new StorageProfile("rush-hour", "WAL", "OFF", -64_000,
+            256L * 1024 * 1024, "MEMORY", 10_000);
+
+    private static final StorageProfile[] PRESETS = { SAFE, BALANCED, RUSH_HOUR };
+
+    private final String name;
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSize; // Negative = KiB, positive = pages (SQLite convention)
+    private final long mmapSize;
+    private final String tempStore;
+    private final int busyTimeoutMs;
+
+    public StorageProfile(String name, String journalMode, String synchronous, int cacheSize, long mmapSize,
+            String tempStore, int busyTimeoutMs) {
+        this.name = name;
+        this.journalMode = requireOneOf("journal_mode", journalMode, "DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL",
+                "OFF");
+        this.synchronous = requireOneOf("synchronous", synchronous, "OFF", "NORMAL", "FULL", "EXTRA");
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = requireOneOf("temp_store", tempStore, "DEFAULT", "FILE", "MEMORY");
+        this.busyTimeoutMs = busyTimeoutMs;
+    }
+
+    public static StorageProfile preset(String name) {
+        for (StorageProfile preset : PRESETS) {
+            if (preset.name.equalsIgnoreCase(name.trim())) {
+                return preset;
+            }
+        }
+        throw new IllegalArgumentException("Unknown storage profile '" + name + "' (expected safe, balanced or rush-hour)");
+    }
+
+    public static StorageProfile[] presets() {
+        return PRESETS.clone();
+    }
+
+    /**
+     * Build a profile from properties: storage.profile picks the preset and
+     * storage.journal_mode, storage.synchronous, storage.cache_size,
+     * storage.mmap_size, storage.temp_store and storage.busy_timeout
+     * override individual settings.
+     */
+    public static StorageProfile fromProperties(Properties props) {
+        StorageProfile base = preset(props.getProperty("storage.profile", BALANCED.name));
+        String journal = props.getProperty("storage.journal_mode", base.journalMode);
+        String sync = props.getProperty("storage.synchronous", base.synchronous);
+        int cache = Integer.parseInt(props.getProperty("storage.cache_size", String.valueOf(base.cacheSize)).trim());
+        long mmap = Long.parseLong(props.getProperty("storage.mmap_size", String.valueOf(base.mmapSize)).trim());
+        String temp = props.getProperty("storage.temp_store", base.tempStore);
+        int busy = Integer.parseInt(props.getProperty("storage.busy_timeout", String.valueOf(base.busyTimeoutMs)).trim());
+
+        StorageProfile profile = new StorageProfile(base.name, journal, sync, cache, mmap, temp, busy);
+        return profile.sameSettings(base) ? base : profile.renamed(base.name + " (customized)");
+    }
+
+    /**
+     * Apply every setting to a freshly opened connection.
+     */
+    public void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMs);
+            stmt.execute("PRAGMA journal_mode = " + journalMode);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    public String getTempStore() {
+        return tempStore;
+    }
+
+    public int getBusyTimeoutMs() {
+        return busyTimeoutMs;
+    }
+
+    private StorageProfile renamed(String newName) {
+        return new StorageProfile(newName, journalMode, synchronous, cacheSize, mmapSize, tempStore, busyTimeoutMs);
+    }
+
+    private boolean sameSettings(StorageProfile other) {
+        return journalMode.equals(other.journalMode) && synchronous.equals(other.synchronous)
+                && cacheSize == other.cacheSize && mmapSize == other.mmapSize
+                && tempStore.equals(other.tempStore) && busyTimeoutMs == other.busyTimeoutMs;
+    }
+
+    // Values end up in PRAGMA statements, so only known keywords are accepted
+    private static String requireOneOf(String setting, String value, String... allowed) {
+        String upper = value.trim().toUpperCase(Locale.ROOT);
+        for (String option : allowed) {
+            if (option.equals(upper)) {
+                return upper;
+            }
+        }
+        throw new IllegalArgumentException("Invalid " + setting + ": " + value);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (journal_mode=%s, synchronous=%s, cache_size=%d, mmap_size=%d, temp_store=%s, busy_timeout=%d)",
+                name, journalMode, synchronous, cacheSize, mmapSize, tempStore, busyTimeoutMs);
+    }
+}
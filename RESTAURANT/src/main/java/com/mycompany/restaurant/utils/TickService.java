@@ -0,0 +1,100 @@
+package com.mycompany.restaurant.utils;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.util.Duration;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TickService - One clock, ticking about once a second, for everything on
+ * screen that shows how long ago something happened.
+ *
+ * A single Timeline runs while anyone is subscribed, however many tickets
+ * or tables are showing an age, and every listener is handed the same
+ * time on each tick. Listeners are held weakly, so a view that is
+ * navigated away from stops being ticked once it is collected; the
+ * subscriber keeps its listener in a field for as long as it wants ticks.
+ * Listeners are expected to update only what a tick actually changed,
+ * such as a minute count that has gone up. Used on the FX thread only.
+ */
+public final class TickService {
+
+    /**
+     * Called on each tick with the time it stands for.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void tick(LocalDateTime now);
+    }
+
+    private static final Duration PERIOD = Duration.seconds(1);
+
+    private static final List<WeakReference<Listener>> listeners = new ArrayList<>();
+    private static Timeline timeline;
+
+    private TickService() {
+    }
+
+    /**
+     * Tick the listener from the next tick on, for as long as it is
+     * reachable or until unsubscribed.
+     */
+    public static void subscribe(Listener listener) {
+        listeners.add(new WeakReference<>(listener));
+        if (timeline == null) {
+            timeline = new Timeline(new KeyFrame(PERIOD, e -> tick()));
+            timeline.setCycleCount(Timeline.INDEFINITE);
+            timeline.play();
+        }
+    }
+
+    public static void unsubscribe(Listener listener) {
+        listeners.removeIf(ref -> {
+            Listener held = ref.get();
+            return held == null || held == listener;
+        });
+        stopIfIdle();
+    }
+
+    /**
+     * Listeners still subscribed and not yet collected.
+     */
+    public static int getListenerCount() {
+        int count = 0;
+        for (WeakReference<Listener> ref : listeners) {
+            if (ref.get() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void tick() {
+        LocalDateTime now = LocalDateTime.now();
+        // A copy, so listeners may subscribe or unsubscribe while ticked
+        for (WeakReference<Listener> ref : new ArrayList<>(listeners)) {
+            Listener listener = ref.get();
+            if (listener == null) {
+                continue;
+            }
+            try {
+                listener.tick(now);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        listeners.removeIf(ref -> ref.get() == null);
+        stopIfIdle();
+    }
+
+    private static void stopIfIdle() {
+        if (listeners.isEmpty() && timeline != null) {
+            timeline.stop();
+            timeline = null;
+        }
+    }
+}
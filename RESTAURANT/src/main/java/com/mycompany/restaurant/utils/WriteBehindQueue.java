@@ -0,0 +1,351 @@
+package com.mycompany.restaurant.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * WriteBehindQueue - Asynchronous, group-committed database writes.
+ * Callers enqueue writes and return immediately; a single background thread
+ * drains the queue and commits everything waiting in one transaction on the
+ * pooled writer connection. When idle each write gets its own commit, under
+ * load many writes share one. A full queue blocks the caller (backpressure).
+ * Pending writes are flushed when DatabaseHelper shuts down.
+ */
+public class WriteBehindQueue {
+
+    /**
+     * A single database mutation, executed on the writer thread.
+     */
+    @FunctionalInterface
+    public interface Write {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static final Write STOP = conn -> {
+    };
+
+    /**
+     * Not a write: an action to run on the writer thread once everything
+     * queued before it has committed.
+     */
+    private static final class AfterCommit implements Write {
+        final Consumer<Boolean> action;
+
+        AfterCommit(Consumer<Boolean> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void apply(Connection conn) {
+        }
+    }
+
+    private final String name;
+    private final int maxBatch;
+    private final BlockingQueue<Write> queue;
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    // Progress tracking for flush()
+    private final Object progressLock = new Object();
+    private long submittedCount;
+    private long completedCount;
+
+    // Metrics
+    private final LongAdder backpressureWaits = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalCommitNanos = new LongAdder();
+    private final AtomicLong maxCommitNanos = new AtomicLong();
+    private final AtomicLong maxDepth = new AtomicLong();
+
+    private WriteBehindQueue(String name, int capacity, int maxBatch) {
+        this.name = name;
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        writerThread = new Thread(this::runWriter, name + "-writer");
+        writerThread.setDaemon(true);
+    }
+
+    /**
+     * Create a queue and start its writer thread. It is shut down, after
+     * flushing, with DatabaseHelper.
+     */
+    public static WriteBehindQueue start(String name, int capacity, int maxBatch) {
+        WriteBehindQueue queue = new WriteBehindQueue(name, capacity, maxBatch);
+        queue.writerThread.start();
+        DatabaseHelper.addShutdownHook(queue::shutdown);
+        return queue;
+    }
+
+    /**
+     * Queue a write. Blocks only when the queue is full.
+     */
+    public void submit(Write write) {
+        if (closed) {
+            throw new IllegalStateException(name + " write queue is shut down");
+        }
+        synchronized (progressLock) {
+            submittedCount++;
+        }
+        try {
+            if (!queue.offer(write)) {
+                backpressureWaits.increment();
+                queue.put(write);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (progressLock) {
+                submittedCount--;
+                progressLock.notifyAll();
+            }
+            throw new IllegalStateException("Interrupted while queueing write", e);
+        }
+        maxDepth.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    /**
+     * Run the action on the writer thread once every write submitted before
+     * this call has been committed, telling it whether all of them were.
+     * Not counted as a write by flush() or the stats.
+     */
+    public void whenCommitted(Consumer<Boolean> action) {
+        if (closed) {
+            return;
+        }
+        try {
+            queue.put(new AfterCommit(action));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait until every write submitted before this call has been committed.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (progressLock) {
+            long target = submittedCount;
+            while (completedCount < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    progressLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stop accepting writes, commit everything still queued and stop the
+     * writer thread.
+     */
+    public void shutdown() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(STOP);
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            System.err.println(name + " write queue shut down with " + queue.size() + " unwritten entries");
+        }
+    }
+
+    private void runWriter() {
+        List<Write> batch = new ArrayList<>(maxBatch);
+        List<Consumer<Boolean>> afterCommit = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+
+            if (batch.remove(STOP)) {
+                running = false;
+            }
+            // Everything ahead of an action is in this batch or an earlier one
+            batch.removeIf(write -> write instanceof AfterCommit after && afterCommit.add(after.action));
+            boolean committed = true;
+            if (!batch.isEmpty()) {
+                long failedBefore = failures.sum();
+                try {
+                    commit(batch);
+                } finally {
+                    markCompleted(batch.size());
+                }
+                committed = failures.sum() == failedBefore;
+            }
+            for (Consumer<Boolean> action : afterCommit) {
+                runQuietly(action, committed);
+            }
+            batch.clear();
+            afterCommit.clear();
+        }
+    }
+
+    private void runQuietly(Consumer<Boolean> action, boolean committed) {
+        try {
+            action.accept(committed);
+        } catch (RuntimeException e) {
+            System.err.println(name + " after-commit action failed: " + e);
+        }
+    }
+
+    /**
+     * Apply the batch in a single transaction. If the group commit fails the
+     * writes are retried one by one so a single bad write cannot take the
+     * rest of the batch down with it. A write that throws anything (an SQL
+     * error or a bug such as an NPE) is rolled back and counted as failed;
+     * the writer thread carries on, since callers block once it stops.
+     */
+    private void commit(List<Write> batch) {
+        long start = System.nanoTime();
+        try (Connection conn = DatabaseHelper.getWriteConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Write write : batch) {
+                    write.apply(conn);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                if (batch.size() == 1) {
+                    throw e;
+                }
+                for (Write write : batch) {
+                    try {
+                        write.apply(conn);
+                        conn.commit();
+                    } catch (SQLException | RuntimeException single) {
+                        conn.rollback();
+                        failures.increment();
+                        System.err.println(name + " write failed: " + single);
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            failures.add(batch.size());
+            System.err.println(name + " write batch failed: " + e);
+            e.printStackTrace();
+        }
+        long elapsed = System.nanoTime() - start;
+        batches.increment();
+        totalCommitNanos.add(elapsed);
+        maxCommitNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private void markCompleted(int count) {
+        synchronized (progressLock) {
+            completedCount += count;
+            progressLock.notifyAll();
+        }
+    }
+
+    public Stats getStats() {
+        long completed;
+        synchronized (progressLock) {
+            completed = completedCount;
+        }
+        long batchCount = batches.sum();
+        return new Stats(
+                queue.size(),
+                maxDepth.get(),
+                completed,
+                batchCount,
+                failures.sum(),
+                backpressureWaits.sum(),
+                batchCount == 0 ? 0 : totalCommitNanos.sum() / batchCount,
+                maxCommitNanos.get());
+    }
+
+    /**
+     * Point-in-time snapshot of queue activity.
+     */
+    public static class Stats {
+        private final int queueDepth;
+        private final long maxQueueDepth;
+        private final long writesCompleted;
+        private final long commits;
+        private final long failures;
+        private final long backpressureWaits;
+        private final long averageCommitNanos;
+        private final long maxCommitNanos;
+
+        Stats(int queueDepth, long maxQueueDepth, long writesCompleted, long commits, long failures,
+                long backpressureWaits, long averageCommitNanos, long maxCommitNanos) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.writesCompleted = writesCompleted;
+            this.commits = commits;
+            this.failures = failures;
+            this.backpressureWaits = backpressureWaits;
+            this.averageCommitNanos = averageCommitNanos;
+            this.maxCommitNanos = maxCommitNanos;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public long getWritesCompleted() {
+            return writesCompleted;
+        }
+
+        public long getCommits() {
+            return commits;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getBackpressureWaits() {
+            return backpressureWaits;
+        }
+
+        public long getAverageCommitNanos() {
+            return averageCommitNanos;
+        }
+
+        public long getMaxCommitNanos() {
+            return maxCommitNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "depth %d (max %d), %d writes in %d commits, %d failed, %d backpressure waits, avg commit %.3f ms, max commit %.3f ms",
+                    queueDepth, maxQueueDepth, writesCompleted, commits, failures, backpressureWaits,
+                    averageCommitNanos / 1_000_000.0, maxCommitNanos / 1_000_000.0);
+        }
+    }
+}
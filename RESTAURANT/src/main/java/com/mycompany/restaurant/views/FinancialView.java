@@ -1,29 +1,70 @@
 package com.mycompany.restaurant.views;
 
 import com.mycompany.restaurant.RestaurantApp;
+import com.mycompany.restaurant.models.Money;
+import com.mycompany.restaurant.services.AnalyticsCache;
+import com.mycompany.restaurant.services.LatencyStats;
 import com.mycompany.restaurant.utils.DatabaseHelper;
 import com.mycompany.restaurant.utils.AnimationUtils;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.chart.*;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
+import javafx.stage.FileChooser;
+import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * FinancialView - Sales analytics.
+ * The queries run in the background: each card shows a placeholder until
+ * its query is back, then fills in. The queries run one at a time, so
+ * leaving the screen drops the ones still queued; the one running
+ * finishes into the cache. Results are reused until the orders change (see
+ * AnalyticsCache), so coming back shows them at once.
+ */
 public class FinancialView {
 
+    // One thread, so queries queue behind each other and a cancelled one
+    // that has not started never reaches the database
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "analytics-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
     private BorderPane root;
     private RestaurantApp app;
     private com.mycompany.restaurant.services.OrderService orderService;
+    private AnalyticsCache analytics;
+    private final List<Task<?>> loading = new ArrayList<>();
 
     public FinancialView(RestaurantApp app) {
         this.app = app;
         this.orderService = com.mycompany.restaurant.services.OrderService.getInstance();
+        this.analytics = orderService.getAnalytics();
         createView();
     }
 
@@ -31,6 +72,12 @@ public class FinancialView {
         root = new BorderPane();
         root.getStyleClass().add("scene-root");
         root.setPadding(new Insets(30));
+        // Navigating away takes the view out of the scene
+        root.sceneProperty().addListener((obs, old, scene) -> {
+            if (old != null && scene == null) {
+                cancelLoading();
+            }
+        });
 
         // Header
         VBox topBar = new VBox(10);
@@ -56,7 +103,21 @@ public class FinancialView {
         VBox summaryBox = createRevenueSummary();
         grid.add(summaryBox, 1, 0);
 
-        root.setCenter(grid);
+        // 3. Revenue per day and today's orders per hour
+        grid.add(createRevenueByDayChart(), 0, 1);
+        grid.add(createOrdersByHourChart(), 1, 1);
+
+        // 4. Revenue by item
+        grid.add(createItemRevenueChart(), 0, 2, 2, 1);
+
+        // 5. Kitchen service times
+        VBox latencyBox = createServiceTimes();
+        grid.add(latencyBox, 0, 3, 2, 1);
+
+        ScrollPane scrollPane = new ScrollPane(grid);
+        scrollPane.setFitToWidth(true);
+        scrollPane.setStyle("-fx-background-color: transparent;");
+        root.setCenter(scrollPane);
         AnimationUtils.fadeIn(root, 500);
     }
 
@@ -69,16 +130,16 @@ public class FinancialView {
         Label lbl = new Label("Sales by Item");
         lbl.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
 
-        PieChart pieChart = new PieChart();
+        Region placeholder = skeleton(460, 330);
+        box.getChildren().addAll(lbl, placeholder);
 
-        // Fetch Data from Service
-        Map<String, Integer> data = orderService.getSalesByItemStats();
-
-        for (Map.Entry<String, Integer> entry : data.entrySet()) {
-            pieChart.getData().add(new PieChart.Data(entry.getKey(), entry.getValue()));
-        }
-
-        box.getChildren().addAll(lbl, pieChart);
+        load("salesByItem", orderService::getSalesByItemStats, (Map<String, Integer> data) -> {
+            PieChart pieChart = new PieChart();
+            for (Map.Entry<String, Integer> entry : data.entrySet()) {
+                pieChart.getData().add(new PieChart.Data(entry.getKey(), entry.getValue()));
+            }
+            replace(box, placeholder, pieChart);
+        });
         return box;
     }
 
@@ -89,20 +150,257 @@ public class FinancialView {
         box.setPadding(new Insets(30));
         box.setAlignment(Pos.CENTER);
 
-        // Fetch Total Revenue from Service
-        double totalRevenue = orderService.getTotalRevenue();
-
         Text title = new Text("Total Revenue");
         title.getStyleClass().add("label-modern");
 
-        Text amount = new Text("Rs. " + (int) totalRevenue);
-        amount.setStyle("-fx-font-size: 48px; -fx-font-weight: bold; -fx-fill: #27AE60;");
+        Region amountPlaceholder = skeleton(240, 56);
+        Region ordersPlaceholder = skeleton(260, 18);
+        box.getChildren().addAll(title, amountPlaceholder, ordersPlaceholder);
 
-        box.getChildren().addAll(title, amount);
+        load("totalRevenue", orderService::getTotalRevenue, (Money totalRevenue) -> {
+            Text amount = new Text(totalRevenue.format());
+            amount.setStyle("-fx-font-size: 48px; -fx-font-weight: bold; -fx-fill: #27AE60;");
+            replace(box, amountPlaceholder, amount);
+        });
+        load("servedOrders", () -> orderService.getServedOrderCount() + " orders · average "
+                + orderService.getAverageOrderValue().format(), (String summary) -> {
+                    Text orders = new Text(summary);
+                    orders.getStyleClass().add("label-modern");
+                    replace(box, ordersPlaceholder, orders);
+                });
 
         return box;
     }
 
+    /**
+     * Revenue for each of the last two weeks' trading days.
+     */
+    private VBox createRevenueByDayChart() {
+        VBox box = chartCard("Revenue by Day", 500);
+        Region placeholder = skeleton(460, 300);
+        box.getChildren().add(placeholder);
+
+        load("revenueByDay", orderService::getRevenueByDay, (Map<String, Money> data) -> {
+            BarChart<String, Number> chart = barChart("Rs.");
+            XYChart.Series<String, Number> series = new XYChart.Series<>();
+            List<Map.Entry<String, Money>> days = new ArrayList<>(data.entrySet());
+            for (Map.Entry<String, Money> day : days.subList(Math.max(0, days.size() - 14), days.size())) {
+                series.getData().add(new XYChart.Data<>(day.getKey().substring(5), day.getValue().toMajor()));
+            }
+            chart.getData().add(series);
+            replace(box, placeholder, chart);
+        });
+        return box;
+    }
+
+    /**
+     * Orders placed in each hour of today so far.
+     */
+    private VBox createOrdersByHourChart() {
+        VBox box = chartCard("Today's Orders by Hour", 400);
+        Region placeholder = skeleton(360, 300);
+        box.getChildren().add(placeholder);
+
+        java.time.LocalDate today = java.time.LocalDate.now();
+        load("ordersByHour:" + today, () -> orderService.getOrdersByHour(today), (Map<String, Integer> data) -> {
+            BarChart<String, Number> chart = barChart("Orders");
+            XYChart.Series<String, Number> series = new XYChart.Series<>();
+            for (Map.Entry<String, Integer> hour : data.entrySet()) {
+                // "yyyy-MM-dd HH:00" to "HH:00"
+                series.getData().add(new XYChart.Data<>(hour.getKey().substring(11), hour.getValue()));
+            }
+            chart.getData().add(series);
+            replace(box, placeholder, chart);
+        });
+        return box;
+    }
+
+    /**
+     * The ten items that have brought in the most.
+     */
+    private VBox createItemRevenueChart() {
+        VBox box = chartCard("Revenue by Item", 930);
+        Region placeholder = skeleton(890, 300);
+        box.getChildren().add(placeholder);
+
+        load("revenueByItem", orderService::getRevenueByItem, (Map<String, Money> data) -> {
+            BarChart<String, Number> chart = barChart("Rs.");
+            XYChart.Series<String, Number> series = new XYChart.Series<>();
+            data.entrySet().stream()
+                    .sorted(Map.Entry.<String, Money>comparingByValue().reversed())
+                    .limit(10)
+                    .forEach(item -> series.getData().add(
+                            new XYChart.Data<>(item.getKey(), item.getValue().toMajor())));
+            chart.getData().add(series);
+            replace(box, placeholder, chart);
+        });
+        return box;
+    }
+
+    private static VBox chartCard(String title, double width) {
+        VBox box = new VBox(10);
+        box.setPrefWidth(width);
+        box.getStyleClass().add("glass-card");
+        box.setPadding(new Insets(20));
+
+        Label lbl = new Label(title);
+        lbl.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
+        box.getChildren().add(lbl);
+        return box;
+    }
+
+    private static BarChart<String, Number> barChart(String valueLabel) {
+        NumberAxis valueAxis = new NumberAxis();
+        valueAxis.setLabel(valueLabel);
+        BarChart<String, Number> chart = new BarChart<>(new CategoryAxis(), valueAxis);
+        chart.setLegendVisible(false);
+        chart.setAnimated(false);
+        chart.setPrefHeight(300);
+        return chart;
+    }
+
+    /**
+     * Show a query's result, from the cache if it is current, otherwise once
+     * the query has run in the background.
+     */
+    private <T> void load(String key, Supplier<T> query, Consumer<T> show) {
+        T cached = analytics.peek(key);
+        if (cached != null) {
+            show.accept(cached);
+            return;
+        }
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() {
+                return analytics.get(key, query);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            loading.remove(task);
+            show.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            loading.remove(task);
+            task.getException().printStackTrace();
+        });
+        loading.add(task);
+        LOADER.execute(task);
+    }
+
+    /**
+     * Drop the queries still queued; they are skipped when the loader
+     * reaches them. The one already running is left to finish, so its
+     * result is cached for next time, but is not shown.
+     */
+    private void cancelLoading() {
+        for (Task<?> task : loading) {
+            task.cancel(false);
+        }
+        loading.clear();
+    }
+
+    /**
+     * A grey block standing in for content that is still loading.
+     */
+    private static Region skeleton(double width, double height) {
+        Region block = new Region();
+        block.getStyleClass().add("skeleton");
+        block.setPrefSize(width, height);
+        block.setMaxSize(width, height);
+        return block;
+    }
+
+    private static void replace(VBox box, Node placeholder, Node content) {
+        int at = box.getChildren().indexOf(placeholder);
+        if (at >= 0) {
+            box.getChildren().set(at, content);
+            AnimationUtils.fadeIn(content, 300);
+        }
+    }
+
+    /**
+     * Order and line service times from the kitchen, per station, item and
+     * hour, with an export of the full percentile table.
+     */
+    private VBox createServiceTimes() {
+        VBox box = new VBox(10);
+        box.setPrefWidth(930);
+        box.getStyleClass().add("glass-card");
+        box.setPadding(new Insets(20));
+
+        Label lbl = new Label("Kitchen Service Times");
+        lbl.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
+
+        LatencyStats stats = orderService.getLatencyStats();
+        TableView<LatencyStats.Series> table = new TableView<>();
+        table.setPrefHeight(300);
+        table.setPlaceholder(new Label("No orders timed yet"));
+        table.getColumns().add(textColumn("Measure", 140, LatencyStats.Series::getMeasure));
+        table.getColumns().add(textColumn("By", 70, s -> s.getGroup().toString()));
+        table.getColumns().add(textColumn("Key", 170, LatencyStats.Series::getKey));
+        TableColumn<LatencyStats.Series, Long> countCol = new TableColumn<>("Count");
+        countCol.setPrefWidth(70);
+        countCol.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getHistogram().getCount()));
+        table.getColumns().add(countCol);
+        table.getColumns().add(timeColumn("Median", h -> h.getPercentile(50)));
+        table.getColumns().add(timeColumn("p90", h -> h.getPercentile(90)));
+        table.getColumns().add(timeColumn("p99", h -> h.getPercentile(99)));
+        table.getColumns().add(timeColumn("Max", h -> h.getMax()));
+        table.getItems().setAll(stats.getSeries());
+
+        Button refreshBtn = new Button("Refresh");
+        refreshBtn.getStyleClass().add("btn-primary");
+        refreshBtn.setOnAction(e -> table.getItems().setAll(stats.getSeries()));
+
+        Button exportBtn = new Button("Export CSV");
+        exportBtn.getStyleClass().add("btn-success");
+        exportBtn.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Export service times");
+            chooser.setInitialFileName("service-times.csv");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+            File file = chooser.showSaveDialog(root.getScene().getWindow());
+            if (file == null) {
+                return;
+            }
+            try {
+                stats.exportCsv(file.toPath());
+            } catch (IOException ex) {
+                new Alert(Alert.AlertType.ERROR, "Could not export: " + ex.getMessage()).showAndWait();
+            }
+        });
+
+        HBox actions = new HBox(10, refreshBtn, exportBtn);
+        box.getChildren().addAll(lbl, table, actions);
+        return box;
+    }
+
+    /**
+     * A duration column, sorted by value and shown as minutes and seconds.
+     */
+    private static TableColumn<LatencyStats.Series, Long> timeColumn(String title,
+            java.util.function.ToLongFunction<com.mycompany.restaurant.utils.LatencyHistogram> value) {
+        TableColumn<LatencyStats.Series, Long> column = new TableColumn<>(title);
+        column.setPrefWidth(90);
+        column.setCellValueFactory(c -> new SimpleObjectProperty<>(value.applyAsLong(c.getValue().getHistogram())));
+        column.setCellFactory(c -> new TableCell<>() {
+            @Override
+            protected void updateItem(Long millis, boolean empty) {
+                super.updateItem(millis, empty);
+                setText(empty || millis == null ? null : LatencyStats.format(millis));
+            }
+        });
+        return column;
+    }
+
+    private static TableColumn<LatencyStats.Series, String> textColumn(String title, double width,
+            java.util.function.Function<LatencyStats.Series, String> value) {
+        TableColumn<LatencyStats.Series, String> column = new TableColumn<>(title);
+        column.setPrefWidth(width);
+        column.setCellValueFactory(c -> new SimpleStringProperty(value.apply(c.getValue())));
+        return column;
+    }
+
     public BorderPane getView() {
         return root;
     }
@@ -2,34 +2,65 @@ package com.mycompany.restaurant.views;
 
 import com.mycompany.restaurant.RestaurantApp;
 import com.mycompany.restaurant.services.OrderService;
-import com.mycompany.restaurant.views.WaiterOrderView.Order;
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.OrderStatus;
+import com.mycompany.restaurant.models.Station;
 import com.mycompany.restaurant.utils.AnimationUtils;
+import com.mycompany.restaurant.views.components.KitchenTicket;
+import com.mycompany.restaurant.views.components.ProductImage;
+import com.mycompany.restaurant.views.components.TicketGrid;
+import javafx.application.Platform;
 import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.*;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * KitchenView - Kitchen Display System (KDS)
- * Shows active orders in real-time
+ * Shows orders still in the kitchen (new and preparing), one ticket per table order.
+ * Only the tickets on screen exist as nodes (see TicketGrid), so a busy
+ * service scrolls and updates as quickly as a quiet one.
+ * A station screen shows only the orders, and lines, made at that station.
  */
 public class KitchenView {
 
     private BorderPane root;
     private RestaurantApp app;
-    private TilePane ordersContainer;
     private OrderService orderService;
-
-    public KitchenView(RestaurantApp app) {
+    private ComboBox<String> bumpItemBox;
+    private Station station; // null for the whole kitchen
+
+    private TicketGrid grid;
+    private final java.util.List<ObservableList<Order>> queues = new java.util.ArrayList<>();
+    // Tickets containing each item, for the bump box, and the lines of each
+    // order counted so far
+    private final java.util.Map<String, Integer> cookingCounts = new java.util.HashMap<>();
+    private final java.util.Map<Order, Integer> countedLines = new java.util.IdentityHashMap<>();
+    private final java.util.Set<String> uncountedItems = new java.util.HashSet<>();
+    private boolean pruneScheduled;
+    private final ListChangeListener<Order> tallyListener = this::tally;
+    private final WeakListChangeListener<Order> weakTally = new WeakListChangeListener<>(tallyListener);
+
+    private KitchenView(RestaurantApp app) {
         this.app = app;
         this.orderService = OrderService.getInstance();
-        createView();
+    }
 
-        // Listen for new orders
-        orderService.getActiveOrders().addListener((ListChangeListener<Order>) c -> refreshOrders());
+    /**
+     * Build the view and start following the kitchen's queues. The view
+     * registers itself with its controls and the queues, so that happens
+     * here rather than in the constructor.
+     */
+    public static KitchenView create(RestaurantApp app) {
+        ProductImage.preload(KitchenTicket.IMAGE_SIZE);
+        KitchenView view = new KitchenView(app);
+        view.createView();
+        return view;
     }
 
     private void createView() {
@@ -49,140 +80,218 @@ public class KitchenView {
         subtitle.getStyleClass().addAll("label-modern", "text-center");
         subtitle.setStyle("-fx-font-size: 16px;");
 
-        topBar.getChildren().addAll(title, subtitle);
+        // Bulk bump: mark every ticket with the item ready in one go
+        HBox bumpBar = new HBox(10);
+        bumpBar.setAlignment(Pos.CENTER);
+        bumpItemBox = new ComboBox<>();
+        bumpItemBox.setPromptText("Item");
+        bumpItemBox.getStyleClass().add("combo-box-modern");
+        Button bumpBtn = new Button("Mark all ready");
+        bumpBtn.getStyleClass().add("btn-success");
+        bumpBtn.disableProperty().bind(bumpItemBox.valueProperty().isNull());
+        bumpBtn.setOnAction(e -> {
+            String item = bumpItemBox.getValue();
+            inBackground(() -> orderService.advanceItem(item, OrderStatus.READY));
+        });
+        ComboBox<Station> stationBox = new ComboBox<>();
+        stationBox.getItems().add(null);
+        stationBox.getItems().addAll(Station.values());
+        stationBox.setPromptText("All stations");
+        stationBox.setButtonCell(new ListCell<>() {
+            @Override
+            protected void updateItem(Station item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(item == null ? "All stations" : item.getDisplayName());
+            }
+        });
+        stationBox.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Station item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty ? null : item == null ? "All stations" : item.getDisplayName());
+            }
+        });
+        stationBox.getStyleClass().add("combo-box-modern");
+        stationBox.valueProperty().addListener((obs, old, value) -> showStation(value));
+        bumpBar.getChildren().addAll(stationBox, bumpItemBox, bumpBtn);
+
+        topBar.getChildren().addAll(title, subtitle, bumpBar);
         root.setTop(topBar);
 
         // Orders Area
-        ordersContainer = new TilePane();
-        ordersContainer.setPrefColumns(3); // Enforce 3 columns
-        ordersContainer.setHgap(20);
-        ordersContainer.setVgap(20);
-        ordersContainer.setAlignment(Pos.TOP_LEFT);
-        ordersContainer.setPadding(new Insets(20));
-
-        ScrollPane scrollPane = new ScrollPane(ordersContainer);
-        scrollPane.setFitToWidth(true);
-        scrollPane.setStyle("-fx-background-color: transparent;");
-        scrollPane.getStyleClass().add("scroll-pane");
+        grid = new TicketGrid(
+                order -> inBackground(() -> orderService.advanceAll(java.util.List.of(order), OrderStatus.PREPARING)),
+                // Skipped if another terminal already moved it; the grid follows the queues
+                order -> inBackground(() -> orderService.advanceAll(java.util.List.of(order), OrderStatus.READY)));
+        grid.setPlaceholder(createEmptyState());
+        root.setCenter(grid.getView());
 
-        root.setCenter(scrollPane);
-
-        // Initial Load
-        refreshOrders();
+        // Initial Load, then follow orders entering or leaving the kitchen
+        followQueues();
 
         AnimationUtils.fadeIn(topBar, 500);
     }
 
-    private void refreshOrders() {
-        ordersContainer.getChildren().clear();
-
-        for (Order order : orderService.getActiveOrders()) {
-            VBox ticket = createOrderTicket(order);
-            ordersContainer.getChildren().add(ticket);
-            AnimationUtils.fadeIn(ticket, 400);
+    /**
+     * Show the kitchen's queues, or the station's share of them, in the
+     * order the kitchen scheduler would start them, and keep the bump box in
+     * step with them.
+     */
+    private void followQueues() {
+        for (OrderStatus status : new OrderStatus[] { OrderStatus.NEW, OrderStatus.PREPARING }) {
+            ObservableList<Order> queue = station == null ? orderService.getOrders(status)
+                    : orderService.getOrders(status, station);
+            queues.add(new SortedList<>(queue, orderService.kitchenOrder(station)));
         }
+        grid.setSources(queues, station);
+        // Weak, like the grid's, so a kitchen view navigated away from is let go
+        for (ObservableList<Order> queue : queues) {
+            queue.addListener(weakTally);
+            for (Order order : queue) {
+                recount(order);
+            }
+        }
+    }
 
-        if (orderService.getActiveOrders().isEmpty()) {
-            VBox emptyState = new VBox(15);
-            emptyState.setAlignment(Pos.CENTER);
-            emptyState.setPrefWidth(800);
-
-            Text emptyIcon = new Text("✅");
-            emptyIcon.setStyle("-fx-font-size: 60px;");
-
-            Text emptyText = new Text("All orders completed!");
-            emptyText.getStyleClass().add("section-title");
-            emptyText.setStyle("-fx-fill: #95A5A6;");
-
-            emptyState.getChildren().addAll(emptyIcon, emptyText);
-            ordersContainer.getChildren().add(emptyState);
+    /**
+     * Switch between the whole kitchen and one station's screen.
+     */
+    private void showStation(Station value) {
+        if (value == station) {
+            return;
         }
+        dispose();
+        station = value;
+        cookingCounts.clear();
+        countedLines.clear();
+        uncountedItems.clear();
+        bumpItemBox.getItems().clear();
+        bumpItemBox.setValue(null);
+        followQueues();
     }
 
-    private VBox createOrderTicket(Order order) {
-        VBox ticket = new VBox(10);
-        ticket.setPrefWidth(260); // Optimal for 3-col grid
-        ticket.setPrefHeight(320);
-        ticket.getStyleClass().add("table-card");
-        ticket.setStyle(
-                "-fx-background-color: white; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 10, 0, 0, 2); -fx-background-radius: 10; -fx-padding: 15;");
-
-        // Image Selection Logic
-        String imagePath = "/images/food_sides.png"; // Default
-        String itemName = order.getItem().toLowerCase();
-
-        if (itemName.contains("pizza") || itemName.contains("fajita") || itemName.contains("feast")
-                || itemName.contains("achari") || itemName.contains("lover")) {
-            imagePath = "/images/food_pizza.png";
-        } else if (itemName.contains("burger") || itemName.contains("smash") || itemName.contains("zinger")
-                || itemName.contains("sizzler") || itemName.contains("grilled") || itemName.contains("chapli")) {
-            imagePath = "/images/food_burger.png";
-        } else if (itemName.contains("drink") || itemName.contains("cola") || itemName.contains("sprite")
-                || itemName.contains("marg") || itemName.contains("lime") || itemName.contains("water")
-                || itemName.contains("chai")) {
-            imagePath = "/images/food_drink.png";
+    private void tally(ListChangeListener.Change<? extends Order> change) {
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                continue;
+            }
+            if (change.wasUpdated()) {
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    recount(change.getList().get(i));
+                }
+                continue;
+            }
+            for (Order order : change.getRemoved()) {
+                Integer counted = countedLines.remove(order);
+                if (counted != null) {
+                    countItems(order, 0, counted, -1);
+                }
+            }
+            for (Order order : change.getAddedSubList()) {
+                recount(order);
+            }
         }
+        if (!uncountedItems.isEmpty() && !pruneScheduled) {
+            pruneScheduled = true;
+            Platform.runLater(this::pruneItems);
+        }
+    }
 
-        javafx.scene.image.ImageView itemImage = new javafx.scene.image.ImageView();
-        try {
-            itemImage.setImage(new javafx.scene.image.Image(getClass().getResource(imagePath).toExternalForm()));
-            itemImage.setFitWidth(60);
-            itemImage.setFitHeight(60);
-            itemImage.setPreserveRatio(true);
-        } catch (Exception e) {
-            System.err.println("Could not load image: " + imagePath);
+    /**
+     * Count the lines added to the order since it was last counted.
+     */
+    private void recount(Order order) {
+        int counted = countedLines.getOrDefault(order, 0);
+        int lines = order.getItems().size();
+        if (lines > counted) {
+            countItems(order, counted, lines, 1);
         }
+        countedLines.put(order, lines);
+    }
 
-        // Header (Table & Time)
-        HBox header = new HBox();
-        header.setAlignment(Pos.CENTER_LEFT);
-        Label tableLbl = new Label(order.getTable());
-        tableLbl.setStyle("-fx-font-weight: bold; -fx-font-size: 16px; -fx-text-fill: #E74C3C;");
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
-        Label timeLbl = new Label(LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm")));
-        timeLbl.setStyle("-fx-text-fill: #95A5A6;");
-        header.getChildren().addAll(tableLbl, spacer, timeLbl);
-
-        // Content Row with Image
-        HBox contentRow = new HBox(15);
-        contentRow.setAlignment(Pos.CENTER_LEFT);
-
-        VBox textContent = new VBox(5);
-        Label itemLbl = new Label(order.getItem());
-        itemLbl.setStyle("-fx-font-size: 18px; -fx-font-weight: bold; -fx-text-fill: #2C3E50;");
-        itemLbl.setWrapText(true);
-        itemLbl.setMaxWidth(180);
-
-        textContent.getChildren().add(itemLbl);
-        contentRow.getChildren().addAll(itemImage, textContent);
-
-        // Details Box
-        VBox detailsBox = new VBox(5);
-        detailsBox.setStyle("-fx-background-color: #F8F9F9; -fx-padding: 10; -fx-background-radius: 5;");
-
-        if (order.getSize() != null && !order.getSize().isEmpty()) {
-            detailsBox.getChildren().add(new Label("Size: " + order.getSize()));
+    /**
+     * Keep the bump box listing each item on at least one ticket, touching
+     * it only when an item first appears or last goes. Items that drop to
+     * zero are removed once the current batch of changes is done, so an
+     * order moving between queues does not clear the selection.
+     */
+    private void countItems(Order order, int from, int to, int delta) {
+        for (OrderLine line : order.getItems().subList(from, to)) {
+            if (station != null && line.getStation() != station) {
+                continue;
+            }
+            String item = line.getItemName();
+            boolean listed = cookingCounts.containsKey(item);
+            if (cookingCounts.merge(item, delta, Integer::sum) <= 0) {
+                uncountedItems.add(item);
+            } else if (!listed) {
+                int at = java.util.Collections.binarySearch(bumpItemBox.getItems(), item);
+                bumpItemBox.getItems().add(-at - 1, item);
+            }
         }
-        if (order.getExtras() != null && !order.getExtras().isEmpty()) {
-            Label extras = new Label("Extras: " + order.getExtras());
-            extras.setStyle("-fx-text-fill: #27AE60; -fx-font-weight: bold;");
-            detailsBox.getChildren().add(extras);
+    }
+
+    private void pruneItems() {
+        pruneScheduled = false;
+        for (String item : uncountedItems) {
+            if (cookingCounts.getOrDefault(item, 0) <= 0) {
+                cookingCounts.remove(item);
+                bumpItemBox.getItems().remove(item);
+                if (item.equals(bumpItemBox.getValue())) {
+                    bumpItemBox.setValue(null);
+                }
+            }
         }
+        uncountedItems.clear();
+    }
 
-        // Actions
-        Button completeBtn = new Button("Mark Ready");
-        completeBtn.getStyleClass().add("btn-success");
-        completeBtn.setMaxWidth(Double.MAX_VALUE);
-        completeBtn.setOnAction(e -> {
-            orderService.removeOrder(order);
-            // refresh handled by listener
+    /**
+     * Send a change off the FX thread, since in hub client mode it waits for
+     * the hub. The wall follows the queues, so there is nothing to update
+     * afterwards.
+     */
+    private static void inBackground(Runnable change) {
+        Thread.ofVirtual().name("kitchen-command").start(() -> {
+            try {
+                change.run();
+            } catch (IllegalStateException e) {
+                System.err.println("Kitchen change not made: " + e.getMessage());
+            }
         });
+    }
 
-        VBox.setVgrow(detailsBox, Priority.ALWAYS);
-        ticket.getChildren().addAll(header, new Separator(), contentRow, detailsBox, completeBtn);
+    private VBox createEmptyState() {
+        VBox empty = new VBox(15);
+        empty.setAlignment(Pos.CENTER);
+        empty.setPrefWidth(800);
 
-        return ticket;
+        Text emptyIcon = new Text("✅");
+        emptyIcon.setStyle("-fx-font-size: 60px;");
+
+        Text emptyText = new Text("All orders completed!");
+        emptyText.getStyleClass().add("section-title");
+        emptyText.setStyle("-fx-fill: #95A5A6;");
+
+        empty.getChildren().addAll(emptyIcon, emptyText);
+        return empty;
+    }
+
+    /**
+     * The ticket wall, for its size and how many tickets it has built.
+     */
+    public TicketGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Stop following the order queues now rather than when collected.
+     */
+    public void dispose() {
+        grid.dispose();
+        for (ObservableList<Order> queue : queues) {
+            queue.removeListener(weakTally);
+        }
+        queues.clear();
     }
 
     public BorderPane getView() {
@@ -2,12 +2,16 @@ package com.mycompany.restaurant.views;
 
 import com.mycompany.restaurant.RestaurantApp;
 import com.mycompany.restaurant.models.MenuItem;
+import com.mycompany.restaurant.models.Station;
 import com.mycompany.restaurant.services.MenuService;
 import com.mycompany.restaurant.utils.AnimationUtils;
+import com.mycompany.restaurant.views.components.ProductImage;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
 
@@ -16,6 +20,8 @@ import javafx.scene.text.Text;
  */
 public class MenuManagementView {
 
+    private static final double THUMBNAIL_SIZE = 32;
+
     private BorderPane root;
     private RestaurantApp app;
     private MenuService menuService;
@@ -155,6 +161,33 @@ public class MenuManagementView {
         menuTable = new TableView<>(menuService.getAllItems());
         menuTable.getStyleClass().add("table-view");
 
+        // Thumbnail from the shared image cache; cells keep their ImageView as they scroll
+        TableColumn<MenuItem, Station> imageCol = new TableColumn<>("");
+        imageCol.setCellValueFactory(c -> new SimpleObjectProperty<>(menuService.getStation(c.getValue())));
+        imageCol.setCellFactory(col -> new TableCell<>() {
+            private final ImageView view = new ImageView();
+
+            {
+                view.setFitWidth(THUMBNAIL_SIZE);
+                view.setFitHeight(THUMBNAIL_SIZE);
+                view.setPreserveRatio(true);
+            }
+
+            @Override
+            protected void updateItem(Station station, boolean empty) {
+                super.updateItem(station, empty);
+                if (empty || station == null) {
+                    setGraphic(null);
+                } else {
+                    view.setImage(ProductImage.forStation(station, THUMBNAIL_SIZE));
+                    setGraphic(view);
+                }
+            }
+        });
+        imageCol.setMinWidth(THUMBNAIL_SIZE + 16);
+        imageCol.setMaxWidth(THUMBNAIL_SIZE + 16);
+        imageCol.setSortable(false);
+
         TableColumn<MenuItem, String> nameCol = new TableColumn<>("Name");
         nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
 
@@ -164,7 +197,7 @@ public class MenuManagementView {
         TableColumn<MenuItem, Double> priceCol = new TableColumn<>("Price");
         priceCol.setCellValueFactory(new PropertyValueFactory<>("price")); // Ideally format this
 
-        menuTable.getColumns().addAll(nameCol, catCol, priceCol);
+        menuTable.getColumns().addAll(imageCol, nameCol, catCol, priceCol);
         menuTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
         VBox.setVgrow(menuTable, Priority.ALWAYS);
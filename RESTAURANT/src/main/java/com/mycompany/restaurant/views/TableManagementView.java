@@ -2,6 +2,7 @@ package com.mycompany.restaurant.views;
 
 import com.mycompany.restaurant.models.Table;
 import com.mycompany.restaurant.utils.AnimationUtils;
+import com.mycompany.restaurant.utils.TickService;
 import javafx.collections.*;
 import javafx.geometry.*;
 import javafx.scene.control.*;
@@ -10,16 +11,22 @@ import javafx.scene.text.Text;
 
 /**
  * Table Management View - Visual floor plan of restaurant tables
+ * Occupied tables count their minutes up off the shared TickService.
  */
 public class TableManagementView {
     private BorderPane root;
     private ObservableList<Table> tables;
     private GridPane tableGrid;
+    // Minutes label of each occupied table's card, and the minutes it shows
+    private final java.util.Map<Table, Text> occupiedTimes = new java.util.HashMap<>();
+    private final java.util.Map<Table, Long> shownMinutes = new java.util.HashMap<>();
+    private final TickService.Listener ticker = this::tick;
 
     public TableManagementView() {
         tables = FXCollections.observableArrayList();
         initializeTables();
         createView();
+        TickService.subscribe(ticker);
     }
 
     private void initializeTables() {
@@ -38,6 +45,8 @@ public class TableManagementView {
 
     private void createView() {
         root = new BorderPane();
+        occupiedTimes.clear();
+        shownMinutes.clear();
         root.setStyle("-fx-background-color: #ECF0F1;");
         root.setPadding(new Insets(30));
 
@@ -127,6 +136,8 @@ public class TableManagementView {
             Text time = new Text("⏱️ " + minutes + " min");
             time.setStyle("-fx-font-size: 13px; -fx-fill: #C0392B;");
             card.getChildren().add(time);
+            occupiedTimes.put(table, time);
+            shownMinutes.put(table, minutes);
         } else if (status.equals("RESERVED")) {
             Text reserved = new Text("Reserved");
             reserved.setStyle("-fx-font-size: 13px; -fx-fill: #F39C12; -fx-font-weight: bold;");
@@ -142,6 +153,18 @@ public class TableManagementView {
         return card;
     }
 
+    /**
+     * Move the occupied tables' minutes on, where the minute has changed.
+     */
+    private void tick(java.time.LocalDateTime now) {
+        for (java.util.Map.Entry<Table, Text> entry : occupiedTimes.entrySet()) {
+            long minutes = entry.getKey().getOccupiedMinutes(now);
+            if (shownMinutes.put(entry.getKey(), minutes) != minutes) {
+                entry.getValue().setText("⏱️ " + minutes + " min");
+            }
+        }
+    }
+
     private HBox createLegendItem(String icon, String label) {
         HBox item = new HBox(8);
         item.setAlignment(Pos.CENTER_LEFT);
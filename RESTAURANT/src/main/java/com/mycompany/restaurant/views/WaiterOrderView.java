@@ -2,10 +2,16 @@ package com.mycompany.restaurant.views;
 
 import com.mycompany.restaurant.RestaurantApp;
 import com.mycompany.restaurant.models.MenuItem;
+import com.mycompany.restaurant.models.Money;
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.OrderStatus;
+import com.mycompany.restaurant.models.TableOccupancy;
 import com.mycompany.restaurant.services.MenuService;
 import com.mycompany.restaurant.services.OrderService;
 import com.mycompany.restaurant.utils.AnimationUtils;
 import javafx.collections.*;
+import javafx.concurrent.Task;
 import javafx.geometry.*;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -18,6 +24,8 @@ import java.io.*;
  */
 public class WaiterOrderView {
 
+    private static final int TABLE_COUNT = 30;
+
     private BorderPane root;
     private RestaurantApp app;
 
@@ -28,6 +36,9 @@ public class WaiterOrderView {
     // Bill display
     private TextArea billArea;
 
+    // Lines collected for the next order round
+    private final java.util.List<OrderLine> draftLines = new java.util.ArrayList<>();
+
     // Orders table
     private TableView<Order> orderTable;
 
@@ -103,9 +114,17 @@ public class WaiterOrderView {
         VBox tableBox_container = createFormField("Table / Delivery:", tableBox = new ComboBox<>());
         refreshTableOptions();
 
-        // Add listener to refresh when clicked? Or just rely on initial load?
-        // Let's add a focus listener to refresh when user tries to pick
-        tableBox.setOnMouseClicked(e -> refreshTableOptions());
+        // Keep the picker in step with occupancy changes, one table at a time,
+        // for as long as this view is on screen
+        TableOccupancy.Listener occupancyListener = this::onTableOccupancyChanged;
+        tableBox.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) {
+                orderService.getTableOccupancy().removeListener(occupancyListener);
+            } else if (oldScene == null) {
+                orderService.getTableOccupancy().addListener(occupancyListener);
+                refreshTableOptions();
+            }
+        });
 
         // Category
         VBox categoryBox_container = createFormField("Category:", categoryBox = new ComboBox<>());
@@ -146,6 +165,11 @@ public class WaiterOrderView {
         HBox buttonBox = new HBox(10);
         buttonBox.setAlignment(Pos.CENTER);
 
+        Button addItemBtn = new Button("➕ Add Item");
+        addItemBtn.getStyleClass().add("btn-secondary");
+        addItemBtn.setPrefWidth(120);
+        addItemBtn.setOnAction(e -> addDraftLine());
+
         Button placeBtn = new Button("🍕 Place Order");
         placeBtn.getStyleClass().add("btn-primary");
         placeBtn.setPrefWidth(150);
@@ -156,7 +180,7 @@ public class WaiterOrderView {
         clearBtn.setPrefWidth(100);
         clearBtn.setOnAction(e -> clearBill());
 
-        buttonBox.getChildren().addAll(placeBtn, clearBtn);
+        buttonBox.getChildren().addAll(addItemBtn, placeBtn, clearBtn);
 
         form.getChildren().addAll(
                 formTitle,
@@ -227,32 +251,41 @@ public class WaiterOrderView {
 
         // Columns
         TableColumn<Order, String> tableCol = new TableColumn<>("Table");
-        tableCol.setCellValueFactory(new PropertyValueFactory<>("table"));
+        tableCol.setCellValueFactory(new PropertyValueFactory<>("tableName"));
         tableCol.setPrefWidth(100);
 
-        TableColumn<Order, String> pizzaCol = new TableColumn<>("Item");
-        pizzaCol.setCellValueFactory(new PropertyValueFactory<>("pizza"));
-        pizzaCol.setPrefWidth(150);
-
-        TableColumn<Order, String> sizeCol = new TableColumn<>("Size");
-        sizeCol.setCellValueFactory(new PropertyValueFactory<>("size"));
-        sizeCol.setPrefWidth(80);
+        TableColumn<Order, String> itemsCol = new TableColumn<>("Items");
+        itemsCol.setCellValueFactory(new PropertyValueFactory<>("itemSummary"));
+        itemsCol.setPrefWidth(300);
 
-        TableColumn<Order, String> extrasCol = new TableColumn<>("Extras");
-        extrasCol.setCellValueFactory(new PropertyValueFactory<>("extras"));
-        extrasCol.setPrefWidth(120);
+        TableColumn<Order, String> timeCol = new TableColumn<>("Time");
+        timeCol.setCellValueFactory(new PropertyValueFactory<>("orderTimeFormatted"));
+        timeCol.setPrefWidth(70);
 
         TableColumn<Order, String> totalCol = new TableColumn<>("Total");
-        totalCol.setCellValueFactory(new PropertyValueFactory<>("total"));
+        totalCol.setCellValueFactory(new PropertyValueFactory<>("totalFormatted"));
         totalCol.setPrefWidth(100);
 
-        orderTable.getColumns().addAll(tableCol, pizzaCol, sizeCol, extrasCol, totalCol);
+        TableColumn<Order, OrderStatus> statusCol = new TableColumn<>("Status");
+        statusCol.setCellValueFactory(new PropertyValueFactory<>("status"));
+        statusCol.setPrefWidth(90);
+
+        orderTable.getColumns().addAll(tableCol, itemsCol, timeCol, totalCol, statusCol);
+
+        Button addRoundBtn = new Button("Add Items to Selected");
+        addRoundBtn.getStyleClass().add("btn-primary");
+        addRoundBtn.setOnAction(e -> addToSelectedOrder());
+
+        Button servedBtn = new Button("Mark Served");
+        servedBtn.getStyleClass().add("btn-success");
+        servedBtn.setOnAction(e -> serveOrder());
 
         Button cancelBtn = new Button("Cancel Selected");
         cancelBtn.getStyleClass().add("btn-danger");
         cancelBtn.setOnAction(e -> cancelOrder());
 
-        ordersCard.getChildren().addAll(ordersTitle, orderTable, cancelBtn);
+        HBox orderActions = new HBox(10, addRoundBtn, servedBtn, cancelBtn);
+        ordersCard.getChildren().addAll(ordersTitle, orderTable, orderActions);
 
         container.getChildren().addAll(billCard, ordersCard);
         VBox.setVgrow(ordersCard, Priority.ALWAYS);
@@ -295,17 +328,16 @@ public class WaiterOrderView {
 
     private void refreshTableOptions() {
         String currentSelection = tableBox.getValue();
-        tableBox.getItems().clear();
-        tableBox.getItems().add("Delivery");
+        TableOccupancy occupancy = orderService.getTableOccupancy();
 
-        java.util.Set<String> occupied = orderService.getOccupiedTables();
-
-        for (int i = 1; i <= 30; i++) {
-            String tableName = "Table " + i;
-            if (!occupied.contains(tableName)) {
-                tableBox.getItems().add(tableName);
+        java.util.List<String> options = new java.util.ArrayList<>();
+        options.add("Delivery");
+        for (int i = 1; i <= TABLE_COUNT; i++) {
+            if (!occupancy.isOccupied(i)) {
+                options.add(TableOccupancy.TABLE_PREFIX + i);
             }
         }
+        tableBox.getItems().setAll(options);
 
         if (currentSelection != null && tableBox.getItems().contains(currentSelection)) {
             tableBox.setValue(currentSelection);
@@ -314,11 +346,34 @@ public class WaiterOrderView {
         }
     }
 
-    private void placeOrder() {
-        String table = tableBox.getValue();
+    /**
+     * Patch the table picker for one table instead of rebuilding it.
+     */
+    private void onTableOccupancyChanged(int tableNumber, boolean occupied) {
+        if (tableNumber > TABLE_COUNT) {
+            return;
+        }
+        String tableName = TableOccupancy.TABLE_PREFIX + tableNumber;
+        if (occupied) {
+            boolean wasSelected = tableName.equals(tableBox.getValue());
+            tableBox.getItems().remove(tableName);
+            if (wasSelected) {
+                tableBox.getSelectionModel().selectFirst();
+            }
+        } else if (!tableBox.getItems().contains(tableName)) {
+            // "Delivery" first, then the free tables below this one
+            int index = 1 + (tableNumber - 1) - orderService.getTableOccupancy().countOccupiedBelow(tableNumber);
+            tableBox.getItems().add(Math.min(index, tableBox.getItems().size()), tableName);
+        }
+    }
+
+    /**
+     * Build a line from the form, or null (with an error shown) if no valid item is picked.
+     */
+    private OrderLine lineFromForm() {
         String category = categoryBox.getValue();
         String itemName = itemBox.getValue();
-        String size = sizeBox.getValue();
+        String size = "Pizza".equals(category) ? sizeBox.getValue() : "";
 
         // Find item to get base price
         MenuItem menuItem = menuService.getAllItems().stream()
@@ -328,66 +383,147 @@ public class WaiterOrderView {
 
         if (menuItem == null) {
             showError("Please select a valid item.");
-            return;
+            return null;
         }
 
         // Calculate price
-        double price = menuItem.getPrice(); // Base price
+        Money price = Money.ofMajor(menuItem.getPrice()); // Base price
 
         // Apply Pizza Sizing Logic
         if ("Pizza".equals(category)) {
             if ("Large".equals(size)) {
-                price += 300;
+                price = price.plus(Money.ofMajor(300));
             } else if ("XL".equals(size)) {
-                price += 600;
+                price = price.plus(Money.ofMajor(600));
             }
         }
 
-        double total = price;
+        Money total = price;
         StringBuilder extras = new StringBuilder();
 
         if (extraToppingsCheck.isSelected()) {
-            total += 200;
+            total = total.plus(Money.ofMajor(200));
             extras.append("Toppings ");
         }
         if (drinkCheck.isSelected()) {
-            total += 290;
+            total = total.plus(Money.ofMajor(290));
             extras.append("Drink "); // This checkbox might be redundant now that we have Drinks category
         }
         if (wrapCheck.isSelected()) {
-            total += 350;
+            total = total.plus(Money.ofMajor(350));
             extras.append("Wrap ");
         }
 
-        // Generate bill
-        String bill = generateBill(table, itemName, category, size, extras.toString(), (int) total);
-        billArea.setText(bill);
+        return new OrderLine(itemName, category, size == null ? "" : size, extras.toString().trim(), total,
+                menuService.getStation(menuItem));
+    }
 
-        // Add to orders
-        // Add to orders
-        Order order = new Order(table, itemName, size, extras.toString().trim(), "Rs. " + (int) total);
-        orderService.addOrder(order); // Add to Shared Service
+    private void addDraftLine() {
+        OrderLine line = lineFromForm();
+        if (line != null) {
+            draftLines.add(line);
+            billArea.setText(generateBill(tableBox.getValue(), draftLines));
+        }
+    }
 
-        // Show success
-        showSuccess("Order placed successfully!");
-        refreshTableOptions();
-        clearBill();
+    /**
+     * Lines to send: the draft, or just the item on the form if nothing was added yet.
+     */
+    private java.util.List<OrderLine> takeDraft() {
+        if (draftLines.isEmpty()) {
+            OrderLine line = lineFromForm();
+            if (line == null) {
+                return java.util.List.of();
+            }
+            draftLines.add(line);
+        }
+        java.util.List<OrderLine> lines = new java.util.ArrayList<>(draftLines);
+        draftLines.clear();
+        return lines;
+    }
+
+    private void placeOrder() {
+        String table = tableBox.getValue();
+        java.util.List<OrderLine> lines = takeDraft();
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        // One order per table visit: a table that still has an open order gets another round
+        inBackground(() -> orderService.addToTable(table, lines), order -> {
+            // Generate bill
+            billArea.setText(generateBill(table, lines));
+
+            // Show success
+            showSuccess("Order placed successfully!");
+        }, e -> {
+            // Hub client mode with the hub unreachable
+            draftLines.addAll(lines);
+            showError("Order not placed: " + e.getMessage());
+        });
+    }
+
+    /**
+     * Run an order command off the FX thread, since in hub client mode it
+     * waits for the hub, then report back on the FX thread. A hub that
+     * cannot be reached or rejects the command is an IllegalStateException.
+     */
+    private <T> void inBackground(java.util.concurrent.Callable<T> command, java.util.function.Consumer<T> done,
+            java.util.function.Consumer<IllegalStateException> failed) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return command.call();
+            }
+        };
+        task.setOnSucceeded(e -> done.accept(task.getValue()));
+        task.setOnFailed(e -> {
+            if (task.getException() instanceof IllegalStateException rejected) {
+                failed.accept(rejected);
+            } else {
+                task.getException().printStackTrace();
+            }
+        });
+        Thread.ofVirtual().name("order-command").start(task);
+    }
+
+    private void addToSelectedOrder() {
+        Order selected = orderTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showError("Please select an order to add items to.");
+            return;
+        }
+        java.util.List<OrderLine> lines = takeDraft();
+        if (lines.isEmpty()) {
+            return;
+        }
+        inBackground(() -> orderService.addLines(selected, lines), added -> {
+            if (!added) {
+                draftLines.addAll(lines);
+                showError(selected.getTableName() + "'s order was just closed. Place the items as a new order.");
+                return;
+            }
+            billArea.setText(generateBill(selected.getTableName(), lines));
+            showSuccess("Items added to " + selected.getTableName() + ".");
+        }, e -> {
+            draftLines.addAll(lines);
+            showError("Items not added: " + e.getMessage());
+        });
     }
 
-    private String generateBill(String table, String item, String category, String size, String extras, int total) {
+    private String generateBill(String table, java.util.List<OrderLine> lines) {
+        Money total = Money.ZERO;
         StringBuilder bill = new StringBuilder();
         bill.append("═══════════════════════════════════\n");
         bill.append("       RESTAURANT BILL\n");
         bill.append("═══════════════════════════════════\n\n");
-        bill.append(String.format("Table/Delivery: %s\n", table));
-        bill.append(String.format("Item: %s\n", item));
-        if (!size.isEmpty() && sizeBox.getParent().isVisible()) {
-            bill.append(String.format("Size: %s\n", size));
+        bill.append(String.format("Table/Delivery: %s\n\n", table));
+        for (OrderLine line : lines) {
+            bill.append(String.format("%-24s %10s\n", line.getDescription(), line.getPrice().format()));
+            total = total.plus(line.getPrice());
         }
-        bill.append(String.format("Category: %s\n", category));
-        bill.append(String.format("Extras: %s\n", extras.isEmpty() ? "None" : extras));
         bill.append("\n───────────────────────────────────\n");
-        bill.append(String.format("TOTAL AMOUNT: Rs. %d/-\n", total));
+        bill.append(String.format("TOTAL AMOUNT: %s/-\n", total.format()));
         bill.append("═══════════════════════════════════\n");
         bill.append("       Thank you!\n");
         bill.append("═══════════════════════════════════");
@@ -396,6 +532,7 @@ public class WaiterOrderView {
     }
 
     private void clearBill() {
+        draftLines.clear();
         billArea.setText("Select items and calculate order...");
     }
 
@@ -406,8 +543,35 @@ public class WaiterOrderView {
             return;
         }
 
-        orderService.removeOrder(selected);
-        showSuccess("Order cancelled successfully!");
+        if (!selected.getStatus().canTransitionTo(OrderStatus.CANCELLED)) {
+            showError("This order is already " + selected.getStatus().getDisplayName().toLowerCase()
+                    + " and cannot be cancelled.");
+            return;
+        }
+
+        inBackground(() -> {
+            orderService.advance(selected, OrderStatus.CANCELLED);
+            return null;
+        }, done -> showSuccess("Order cancelled successfully!"),
+                e -> showError("Order not cancelled: " + e.getMessage()));
+    }
+
+    private void serveOrder() {
+        Order selected = orderTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showError("Please select an order to serve.");
+            return;
+        }
+        if (selected.getStatus() != OrderStatus.READY) {
+            showError("Only orders marked ready by the kitchen can be served.");
+            return;
+        }
+
+        inBackground(() -> {
+            orderService.advance(selected, OrderStatus.SERVED);
+            return null;
+        }, done -> {
+        }, e -> showError("Order not served: " + e.getMessage()));
     }
 
     // File handling removed to use Database-only persistence
@@ -441,46 +605,4 @@ public class WaiterOrderView {
     public BorderPane getView() {
         return root;
     }
-
-    // Order data class
-    public static class Order {
-        private String table, pizza, size, extras, total;
-
-        public Order(String table, String pizza, String size, String extras, String total) {
-            this.table = table;
-            this.pizza = pizza;
-            this.size = size;
-            this.extras = extras;
-            this.total = total;
-        }
-
-        public String toFileString() {
-            return table + "," + pizza + "," + size + "," + extras + "," + total;
-        }
-
-        public String getTable() {
-            return table;
-        }
-
-        public String getPizza() {
-            return pizza;
-        }
-
-        // For compatibility, we'll keep getPizza but conceptually it's 'item'
-        public String getItem() {
-            return pizza;
-        }
-
-        public String getSize() {
-            return size;
-        }
-
-        public String getExtras() {
-            return extras;
-        }
-
-        public String getTotal() {
-            return total;
-        }
-    }
 }
@@ -0,0 +1,285 @@
+package com.mycompany.restaurant.views.components;
+
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.OrderLine;
+import com.mycompany.restaurant.models.OrderStatus;
+import com.mycompany.restaurant.models.Station;
+import com.mycompany.restaurant.services.MenuService;
+import com.mycompany.restaurant.utils.ImageCache;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Separator;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * KitchenTicket - One order's ticket on the kitchen display.
+ *
+ * The nodes are built once and refilled for whichever order the ticket
+ * shows, so tickets can be recycled (see TicketGrid). Lines are only ever
+ * added to an open order, so an update appends rows for the new lines and
+ * leaves the rest alone. On a station screen only the station's lines are
+ * listed.
+ *
+ * The ticket also shows how long ago the order came in, and is outlined
+ * once that passes the longest prep time among its lines, and again in
+ * red once it passes the time the kitchen promises (see
+ * KitchenScheduler). tick() moves it on; it touches the nodes only when
+ * the minute shown or the outline changes.
+ */
+public class KitchenTicket {
+
+    // Artwork is decoded at this size once, for every ticket (see ImageCache)
+    public static final double IMAGE_SIZE = 60;
+    public static final double WIDTH = 260; // Optimal for 3-col grid
+    // Past the longest prep by this much the order is overdue, as promised by KitchenScheduler
+    private static final long OVERDUE_SLACK_MINUTES = 10;
+
+    /**
+     * How late the order is running, and the style class that shows it.
+     */
+    private enum Age {
+        ON_TIME(null),
+        LATE("ticket-late"),
+        OVERDUE("ticket-overdue");
+
+        final String styleClass;
+
+        Age(String styleClass) {
+            this.styleClass = styleClass;
+        }
+    }
+
+    private final VBox root = new VBox(10);
+    private final Label tableLbl = new Label();
+    private final Label timeLbl = new Label();
+    private final Label ageLbl = new Label();
+    private final ImageView itemImage = new ImageView();
+    private final Label itemLbl = new Label();
+    private final VBox detailsBox = new VBox(5);
+    private final Button startBtn = new Button("Start");
+
+    // Line rows built so far; the first usedRows are in detailsBox, for the
+    // station's lines among the first shownLines of the order
+    private final List<LineRow> rows = new ArrayList<>();
+    private int shownLines;
+    private int usedRows;
+    private String imagePath;
+
+    private Order order;
+    private OrderStatus shownStatus;
+    private Station station; // null lists every line
+    private long longestPrepSeconds;
+    private long shownMinutes = -1;
+    private Age shownAge = Age.ON_TIME;
+
+    public KitchenTicket(Consumer<Order> onStart, Consumer<Order> onReady) {
+        root.setPrefWidth(WIDTH);
+        root.setPrefHeight(320);
+        root.getStyleClass().add("table-card");
+        root.setStyle(
+                "-fx-background-color: white; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 10, 0, 0, 2); -fx-background-radius: 10; -fx-padding: 15;");
+
+        itemImage.setFitWidth(IMAGE_SIZE);
+        itemImage.setFitHeight(IMAGE_SIZE);
+        itemImage.setPreserveRatio(true);
+
+        // Header (Table & Time)
+        HBox header = new HBox();
+        header.setAlignment(Pos.CENTER_LEFT);
+        tableLbl.setStyle("-fx-font-weight: bold; -fx-font-size: 16px; -fx-text-fill: #E74C3C;");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        timeLbl.setStyle("-fx-text-fill: #95A5A6;");
+        ageLbl.getStyleClass().add("ticket-age");
+        VBox times = new VBox(2, timeLbl, ageLbl);
+        times.setAlignment(Pos.CENTER_RIGHT);
+        header.getChildren().addAll(tableLbl, spacer, times);
+
+        // Content Row with Image
+        HBox contentRow = new HBox(15);
+        contentRow.setAlignment(Pos.CENTER_LEFT);
+        VBox textContent = new VBox(5);
+        itemLbl.setStyle("-fx-font-size: 18px; -fx-font-weight: bold; -fx-text-fill: #2C3E50;");
+        itemLbl.setWrapText(true);
+        itemLbl.setMaxWidth(180);
+        textContent.getChildren().add(itemLbl);
+        contentRow.getChildren().addAll(itemImage, textContent);
+
+        // Details Box
+        detailsBox.setStyle("-fx-background-color: #F8F9F9; -fx-padding: 10; -fx-background-radius: 5;");
+
+        // Actions
+        HBox actions = new HBox(10);
+        startBtn.getStyleClass().add("btn-primary");
+        startBtn.setMaxWidth(Double.MAX_VALUE);
+        HBox.setHgrow(startBtn, Priority.ALWAYS);
+        startBtn.managedProperty().bind(startBtn.visibleProperty());
+        startBtn.setOnAction(e -> onStart.accept(order));
+        Button completeBtn = new Button("Mark Ready");
+        completeBtn.getStyleClass().add("btn-success");
+        completeBtn.setMaxWidth(Double.MAX_VALUE);
+        HBox.setHgrow(completeBtn, Priority.ALWAYS);
+        completeBtn.setOnAction(e -> onReady.accept(order));
+        actions.getChildren().addAll(startBtn, completeBtn);
+
+        VBox.setVgrow(detailsBox, Priority.ALWAYS);
+        root.getChildren().addAll(header, new Separator(), contentRow, detailsBox, actions);
+    }
+
+    public VBox getView() {
+        return root;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Lines of the order shown so far, from the first.
+     */
+    public int getShownLineCount() {
+        return shownLines;
+    }
+
+    /**
+     * List only the lines made at the station, or every line for null.
+     * Takes effect from the next show().
+     */
+    public void setStation(Station value) {
+        if (value != station) {
+            station = value;
+            order = null;
+        }
+    }
+
+    /**
+     * Show an order. Showing the same order again only refreshes what changed.
+     */
+    public void show(Order next) {
+        if (next != order) {
+            order = next;
+            shownStatus = null;
+            tableLbl.setText(next.getTableName());
+            detailsBox.getChildren().clear();
+            shownLines = 0;
+            usedRows = 0;
+            longestPrepSeconds = 0;
+            shownMinutes = -1;
+        }
+        refresh();
+        tick(LocalDateTime.now());
+    }
+
+    /**
+     * Bring the order's age up to date, as of the given time (see
+     * TickService).
+     */
+    public void tick(LocalDateTime now) {
+        long minutes = Math.max(0, order.getMinutesSinceOrder(now));
+        if (minutes != shownMinutes) {
+            shownMinutes = minutes;
+            ageLbl.setText(minutes + " min");
+            showAge();
+        }
+    }
+
+    /**
+     * Outline the ticket for how late it is running, if that has changed.
+     */
+    private void showAge() {
+        long lateAfter = (longestPrepSeconds + 59) / 60;
+        Age age = shownMinutes >= lateAfter + OVERDUE_SLACK_MINUTES ? Age.OVERDUE
+                : shownMinutes >= lateAfter ? Age.LATE : Age.ON_TIME;
+        if (age == shownAge) {
+            return;
+        }
+        if (shownAge.styleClass != null) {
+            root.getStyleClass().remove(shownAge.styleClass);
+        }
+        if (age.styleClass != null) {
+            root.getStyleClass().add(age.styleClass);
+        }
+        shownAge = age;
+    }
+
+    /**
+     * Bring the ticket up to date with its order's status and lines.
+     */
+    public void refresh() {
+        OrderStatus status = order.getStatus();
+        if (status != shownStatus) {
+            shownStatus = status;
+            timeLbl.setText(status.getDisplayName() + " · " + order.getOrderTimeFormatted());
+            startBtn.setVisible(status == OrderStatus.NEW);
+        }
+
+        List<OrderLine> lines = order.getItems();
+        if (lines.size() == shownLines) {
+            return;
+        }
+        int firstRows = usedRows;
+        MenuService menu = MenuService.getInstance();
+        for (int i = shownLines; i < lines.size(); i++) {
+            OrderLine line = lines.get(i);
+            longestPrepSeconds = Math.max(longestPrepSeconds, menu.getPrepTime(line).getSeconds());
+            if (station != null && line.getStation() != station) {
+                continue;
+            }
+            if (usedRows == rows.size()) {
+                rows.add(new LineRow());
+            }
+            rows.get(usedRows++).show(line, detailsBox);
+        }
+        shownLines = lines.size();
+        if (shownMinutes >= 0) {
+            showAge(); // A slower dish gives the order longer
+        }
+        if (usedRows == firstRows && firstRows > 0) {
+            return;
+        }
+
+        itemLbl.setText(usedRows == 1 ? rows.get(0).itemName : usedRows + " items");
+        String path = ProductImage.pathFor(usedRows == 0 ? null : rows.get(0).station);
+        if (!path.equals(imagePath)) {
+            imagePath = path;
+            itemImage.setImage(ImageCache.get(path, IMAGE_SIZE, IMAGE_SIZE));
+        }
+    }
+
+    /**
+     * The labels for one order line, kept for reuse.
+     */
+    private static final class LineRow {
+        final Label lineLbl = new Label();
+        final Label extrasLbl = new Label();
+        String itemName;
+        Station station;
+
+        LineRow() {
+            lineLbl.setWrapText(true);
+            extrasLbl.setStyle("-fx-text-fill: #27AE60; -fx-font-weight: bold;");
+        }
+
+        void show(OrderLine line, VBox detailsBox) {
+            itemName = line.getItemName();
+            station = line.getStation();
+            String size = line.getSize().isEmpty() ? "" : line.getSize() + " ";
+            lineLbl.setText("• " + size + line.getItemName());
+            detailsBox.getChildren().add(lineLbl);
+            if (!line.getExtras().isEmpty() && !"None".equalsIgnoreCase(line.getExtras())) {
+                extrasLbl.setText("   Extras: " + line.getExtras());
+                detailsBox.getChildren().add(extrasLbl);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mycompany.restaurant.views.components;
+
+import com.mycompany.restaurant.models.Station;
+import com.mycompany.restaurant.utils.ImageCache;
+import javafx.scene.image.Image;
+
+/**
+ * ProductImage - Artwork for menu items, served from the shared ImageCache.
+ * An item's picture follows the kitchen station MenuService routes it to,
+ * so it is settled once per menu change rather than guessed from the name.
+ */
+public final class ProductImage {
+
+    public static final String PIZZA = "/images/food_pizza.png";
+    public static final String BURGER = "/images/food_burger.png";
+    public static final String DRINK = "/images/food_drink.png";
+    public static final String SIDES = "/images/food_sides.png";
+
+    private ProductImage() {
+    }
+
+    /**
+     * Resource path of the picture for items made at the station; the
+     * sides artwork when there is none.
+     */
+    public static String pathFor(Station station) {
+        if (station == null) {
+            return SIDES;
+        }
+        switch (station) {
+            case PIZZA_OVEN:
+                return PIZZA;
+            case GRILL:
+                return BURGER;
+            case BAR:
+                return DRINK;
+            default:
+                return SIDES;
+        }
+    }
+
+    /**
+     * The picture for the station's items scaled to fit size x size,
+     * possibly still loading.
+     */
+    public static Image forStation(Station station, double size) {
+        return ImageCache.get(pathFor(station), size, size);
+    }
+
+    /**
+     * Start decoding every product picture at the given size.
+     */
+    public static void preload(double size) {
+        ImageCache.preload(size, size, PIZZA, BURGER, DRINK, SIDES);
+    }
+}
@@ -0,0 +1,252 @@
+package com.mycompany.restaurant.views.components;
+
+import com.mycompany.restaurant.models.Order;
+import com.mycompany.restaurant.models.Station;
+import com.mycompany.restaurant.utils.AnimationUtils;
+import com.mycompany.restaurant.utils.TickService;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+import javafx.scene.Node;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * TicketGrid - Kitchen tickets in rows of as many as fit the width, with
+ * nodes only for the rows on screen.
+ *
+ * A ListView virtualizes the rows: it keeps just enough row cells to fill
+ * the viewport and rebinds them as the wall scrolls, so thousands of open
+ * orders cost the scene graph of a dozen tickets. Each row cell owns its
+ * tickets and refills them in place; showing a ticket its own order again
+ * only patches what changed. After a queue change only the cells on screen
+ * are refilled.
+ *
+ * The orders come from one or more queues shown one after another, which
+ * only hold the grid weakly. Orders arriving in the first queue fade in.
+ * While it follows queues the grid ticks its tickets' ages off the shared
+ * TickService, again only for the tickets on screen.
+ * Used on the FX thread only.
+ */
+public final class TicketGrid {
+
+    private static final double GAP = 20;
+
+    private final ListView<Integer> rows = new ListView<>();
+    private final Consumer<Order> onStart;
+    private final Consumer<Order> onReady;
+
+    private final List<ObservableList<Order>> sources = new ArrayList<>();
+    private final ListChangeListener<Order> listener = this::sourceChanged;
+    private final WeakListChangeListener<Order> weakListener = new WeakListChangeListener<>(listener);
+    private final TickService.Listener ticker = this::tick;
+    private final List<RowCell> cells = new ArrayList<>();
+    // Arrived but not yet on screen
+    private final Set<Order> arrivals = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private Station station;
+    private int columns = 1;
+    private long ticketsCreated;
+
+    public TicketGrid(Consumer<Order> onStart, Consumer<Order> onReady) {
+        this.onStart = onStart;
+        this.onReady = onReady;
+
+        rows.setFocusTraversable(false);
+        rows.setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 20;");
+        rows.setCellFactory(list -> {
+            RowCell cell = new RowCell();
+            cells.add(cell);
+            return cell;
+        });
+        rows.widthProperty().addListener((obs, old, width) -> {
+            int fit = (int) ((width.doubleValue() - 60 + GAP) / (KitchenTicket.WIDTH + GAP));
+            if (Math.max(1, fit) != columns) {
+                columns = Math.max(1, fit);
+                refresh();
+            }
+        });
+    }
+
+    /**
+     * Show these queues, one after another, in place of the current ones.
+     *
+     * @param station list only the station's lines on each ticket, or null for all
+     */
+    public void setSources(List<ObservableList<Order>> queues, Station station) {
+        dispose();
+        sources.addAll(queues);
+        for (ObservableList<Order> queue : sources) {
+            queue.addListener(weakListener);
+        }
+        TickService.subscribe(ticker);
+        this.station = station;
+        arrivals.clear();
+        refresh();
+    }
+
+    /**
+     * Stop following the queues. The tickets shown stay as they are.
+     */
+    public void dispose() {
+        for (ObservableList<Order> queue : sources) {
+            queue.removeListener(weakListener);
+        }
+        sources.clear();
+        TickService.unsubscribe(ticker);
+    }
+
+    private void tick(LocalDateTime now) {
+        for (RowCell cell : liveCells()) {
+            if (!cell.isEmpty() && cell.getGraphic() != null) {
+                cell.tick(now);
+            }
+        }
+    }
+
+    private void sourceChanged(ListChangeListener.Change<? extends Order> change) {
+        boolean first = change.getList() == sources.get(0);
+        while (change.next()) {
+            if (change.wasRemoved()) {
+                arrivals.removeAll(change.getRemoved());
+            }
+            if (first && change.wasAdded() && !change.wasPermutated()) {
+                arrivals.addAll(change.getAddedSubList());
+            }
+        }
+        refresh();
+    }
+
+    /**
+     * Match the row count to the orders, then refill the rows on screen.
+     */
+    private void refresh() {
+        int count = (getOrderCount() + columns - 1) / columns;
+        List<Integer> items = rows.getItems();
+        if (items.size() > count) {
+            items.subList(count, items.size()).clear();
+        }
+        while (items.size() < count) {
+            items.add(items.size());
+        }
+        for (RowCell cell : liveCells()) {
+            Integer row = cell.getItem();
+            if (!cell.isEmpty() && row != null && row < count) {
+                cell.fill(row);
+            }
+        }
+    }
+
+    /**
+     * Cells the list still uses. Ones it has let go of (a new skin or cell
+     * factory) are dropped here so they can be collected.
+     */
+    private List<RowCell> liveCells() {
+        cells.removeIf(cell -> cell.getListView() != rows);
+        return cells;
+    }
+
+    public int getOrderCount() {
+        int count = 0;
+        for (ObservableList<Order> queue : sources) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    private Order orderAt(int index) {
+        for (ObservableList<Order> queue : sources) {
+            if (index < queue.size()) {
+                return queue.get(index);
+            }
+            index -= queue.size();
+        }
+        return null;
+    }
+
+    /**
+     * Shown instead of the rows while there are no orders.
+     */
+    public void setPlaceholder(Node placeholder) {
+        rows.setPlaceholder(placeholder);
+    }
+
+    public ListView<Integer> getView() {
+        return rows;
+    }
+
+    /**
+     * Row cells the list still uses, which bounds the tickets in the scene.
+     */
+    public int getRowCellCount() {
+        return liveCells().size();
+    }
+
+    public long getTicketsCreated() {
+        return ticketsCreated;
+    }
+
+    /**
+     * One row of tickets, refilled for whichever row it is given.
+     */
+    private final class RowCell extends ListCell<Integer> {
+        private final HBox box = new HBox(GAP);
+        private final List<KitchenTicket> tickets = new ArrayList<>();
+
+        RowCell() {
+            // Inline, so selection and focus never restyle the row
+            setStyle("-fx-background-color: transparent; -fx-padding: 0 0 " + GAP + " 0;");
+        }
+
+        @Override
+        protected void updateItem(Integer row, boolean empty) {
+            super.updateItem(row, empty);
+            if (empty || row == null) {
+                setGraphic(null);
+                return;
+            }
+            fill(row);
+            setGraphic(box);
+        }
+
+        void tick(LocalDateTime now) {
+            for (int i = 0; i < box.getChildren().size(); i++) {
+                tickets.get(i).tick(now);
+            }
+        }
+
+        void fill(int row) {
+            int first = row * columns;
+            int count = Math.max(0, Math.min(columns, getOrderCount() - first));
+            while (tickets.size() < count) {
+                tickets.add(new KitchenTicket(onStart, onReady));
+                ticketsCreated++;
+            }
+            if (box.getChildren().size() != count) {
+                List<Node> views = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    views.add(tickets.get(i).getView());
+                }
+                box.getChildren().setAll(views);
+            }
+            for (int i = 0; i < count; i++) {
+                KitchenTicket ticket = tickets.get(i);
+                Order order = orderAt(first + i);
+                ticket.setStation(station);
+                ticket.show(order);
+                if (arrivals.remove(order)) {
+                    AnimationUtils.fadeIn(ticket.getView(), 400);
+                }
+            }
+        }
+    }
+}